@@ -0,0 +1,30 @@
+package courses.concordia.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "cache")
+@Component
+public class CacheConfigProperties {
+    private Duration ttl = Duration.ofHours(1);
+    private String invalidationChannel = "cache-invalidation";
+    private Map<String, CacheSpec> caches = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class CacheSpec {
+        // Redis time to live, defaults to the global ttl
+        private Duration ttl;
+        // In-process entries kept per node, 0 disables the local tier
+        private long localMaxSize = 0;
+        private Duration localTtl = Duration.ofMinutes(5);
+    }
+}
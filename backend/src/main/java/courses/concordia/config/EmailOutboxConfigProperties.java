@@ -0,0 +1,24 @@
+package courses.concordia.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "email.outbox")
+@Component
+public class EmailOutboxConfigProperties {
+    private String from = "cdpl4ter@gmail.com";
+    private int workers = 2;
+    // Messages claimed by a free worker and sent over one SMTP connection
+    private int batchSize = 20;
+    private int maxAttempts = 6;
+    private Duration initialBackoff = Duration.ofSeconds(30);
+    private Duration maxBackoff = Duration.ofHours(1);
+    private Duration lease = Duration.ofMinutes(5);
+    private Duration pollInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,21 @@
+package courses.concordia.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "integrity-scan")
+@Component
+public class IntegrityScanConfigProperties {
+    // Number of orphans removed by one delete
+    private int batchSize = 500;
+    // Pause after each delete, so that a scan against production leaves room for foreground traffic
+    private Duration pauseBetweenBatches = Duration.ofMillis(100);
+    // Number of orphan ids reported per relation
+    private int sampleSize = 10;
+}
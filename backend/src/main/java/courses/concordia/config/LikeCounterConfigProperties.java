@@ -0,0 +1,22 @@
+package courses.concordia.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "likes")
+@Component
+public class LikeCounterConfigProperties {
+    private Duration flushInterval = Duration.ofSeconds(5);
+    // Votes persisted by one bulk write
+    private int flushBatchSize = 500;
+    // Only one node flushes at a time; a node that died while flushing is replaced after this
+    private Duration flushLease = Duration.ofMinutes(1);
+    // The votes of a review idle this long are dropped from Redis and reloaded from MongoDB on the next vote
+    private Duration votesTtl = Duration.ofDays(7);
+}
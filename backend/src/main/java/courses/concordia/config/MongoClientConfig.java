@@ -3,27 +3,37 @@ package courses.concordia.config;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import courses.concordia.model.Instructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.Document;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
 import org.springframework.data.mongodb.core.convert.MongoCustomConversions.MongoConverterConfigurationAdapter;
 import org.springframework.data.convert.ReadingConverter;
 import org.springframework.data.convert.WritingConverter;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @Slf4j
 @EnableMongoAuditing
+@RequiredArgsConstructor
 public class MongoClientConfig extends AbstractMongoClientConfiguration {
+    private final MongoPoolConfigProperties poolProperties;
+    private final MeterRegistry meterRegistry;
 
     @Value("${spring.data.mongodb.database}")
     private String database;
@@ -35,10 +45,35 @@ public class MongoClientConfig extends AbstractMongoClientConfiguration {
         return database;
     }
 
+    /**
+     * Settings of the single pooled client shared by the repositories, MongoTemplate and Atlas Search.
+     * Pool options given in the connection string take precedence over the configured ones.
+     */
     @Bean
     public MongoClientSettings mongoClientSettings() {
         log.info("=> Creating the MongoClientSettings for MongoClient & MongoTemplate.");
-        return MongoClientSettings.builder().applyConnectionString(new ConnectionString(connectionString)).build();
+        return MongoClientSettings.builder()
+                .applyToConnectionPoolSettings(builder -> builder
+                        .maxSize(poolProperties.getMaxSize())
+                        .minSize(poolProperties.getMinSize())
+                        .maxWaitTime(poolProperties.getMaxWaitTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(poolProperties.getMaxConnectionIdleTime().toMillis(), TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry))
+                        .addConnectionPoolListener(new MongoPoolWaitTimeListener(meterRegistry)))
+                .applyToSocketSettings(builder -> builder
+                        .connectTimeout((int) poolProperties.getConnectTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .readTimeout((int) poolProperties.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS))
+                .applyConnectionString(new ConnectionString(connectionString))
+                .build();
+    }
+
+    /**
+     * Runs the callback in a MongoDB transaction. The transaction manager is deliberately not a bean, so that
+     * the @Transactional annotations keep their current behaviour and only explicit callers get a transaction.
+     */
+    @Bean
+    public TransactionTemplate mongoTransactionTemplate(MongoDatabaseFactory mongoDatabaseFactory) {
+        return new TransactionTemplate(new MongoTransactionManager(mongoDatabaseFactory));
     }
 
     @Override
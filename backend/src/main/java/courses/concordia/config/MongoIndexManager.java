@@ -0,0 +1,215 @@
+package courses.concordia.config;
+
+import courses.concordia.model.*;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.domain.Sort.Direction.ASC;
+import static org.springframework.data.domain.Sort.Direction.DESC;
+
+/**
+ * Declares the indexes backing the repository finders and the review listings, and reconciles them at startup.
+ * Every managed index is named with the {@value #PREFIX} prefix: missing ones are created, ones whose keys or
+ * uniqueness changed are rebuilt, and ones no longer declared are dropped. Indexes created by other means are left
+ * untouched. Reconciliation runs once the application is ready and after the data migrations, which declare a
+ * higher precedence, so that duplicates are removed before a unique index is built.
+ */
+@Component
+@ConditionalOnProperty(prefix = "mongo.indexes", name = "enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexManager {
+    private static final String PREFIX = "app_";
+
+    private final MongoTemplate mongoTemplate;
+
+    private static final Map<Class<?>, List<Index>> INDEXES = Map.of(
+            Review.class, List.of(
+                    // Review listings of a course or instructor, one per sort variant, with the id as keyset tie-breaker
+                    index("courseId_timestamp").on("courseId", ASC).on("timestamp", ASC).on("_id", ASC),
+                    index("courseId_likes").on("courseId", ASC).on("likes", ASC).on("_id", ASC),
+                    index("courseId_difficulty").on("courseId", ASC).on("difficulty", ASC).on("_id", ASC),
+                    index("courseId_experience").on("courseId", ASC).on("experience", ASC).on("_id", ASC),
+                    index("instructorId_timestamp").on("instructorId", ASC).on("timestamp", ASC).on("_id", ASC),
+                    index("instructorId_likes").on("instructorId", ASC).on("likes", ASC).on("_id", ASC),
+                    index("instructorId_difficulty").on("instructorId", ASC).on("difficulty", ASC).on("_id", ASC),
+                    index("instructorId_rating").on("instructorId", ASC).on("rating", ASC).on("_id", ASC),
+                    // Global filtered listing
+                    index("timestamp").on("timestamp", ASC).on("_id", ASC),
+                    index("likes").on("likes", ASC).on("_id", ASC),
+                    index("experience").on("experience", ASC).on("_id", ASC),
+                    // Reviews of a user, and the one review a user may leave per course or instructor
+                    index("userId_timestamp").on("userId", ASC).on("timestamp", DESC),
+                    index("userId_courseId_type").on("userId", ASC).on("courseId", ASC).on("type", ASC),
+                    index("userId_instructorId_type").on("userId", ASC).on("instructorId", ASC).on("type", ASC),
+                    index("instructorId_courseId_timestamp").on("instructorId", ASC).on("courseId", ASC).on("timestamp", ASC),
+                    index("type").on("type", ASC),
+                    // Reverse lookups of the integrity scan, from a comment or resource link to its review
+                    index("commentsId").on("comments._id", ASC),
+                    index("resourceLinksId").on("resourceLinks._id", ASC)
+            ),
+            Interaction.class, List.of(
+                    // One vote per user and review, a review being identified by its course or instructor depending on its type
+                    index("courseId_userId_referrer_type").on("courseId", ASC).on("userId", ASC).on("referrer", ASC).on("type", ASC)
+                            .unique().partial(PartialIndexFilter.of(Criteria.where("type").is("course"))),
+                    index("courseId_referrer_type").on("courseId", ASC).on("referrer", ASC).on("type", ASC),
+                    index("instructorId_userId_referrer_type").on("instructorId", ASC).on("userId", ASC).on("referrer", ASC).on("type", ASC)
+                            .unique().partial(PartialIndexFilter.of(Criteria.where("type").is("instructor"))),
+                    index("instructorId_referrer_type").on("instructorId", ASC).on("referrer", ASC).on("type", ASC),
+                    index("referrer").on("referrer", ASC)
+            ),
+            Notification.class, List.of(
+                    // Inbox pages newest first, one notification per user and review, and the notifications of a review
+                    index("userId_notifiedAt").on("userId", ASC).on("notifiedAt", DESC).on("_id", DESC),
+                    index("userId_reviewId").on("userId", ASC).on("reviewId", ASC)
+                            .unique().partial(PartialIndexFilter.of(Criteria.where("reviewId").exists(true))),
+                    index("reviewId").on("reviewId", ASC),
+                    index("courseId_creatorId").on("courseId", ASC).on("creatorId", ASC),
+                    // Purge of expired notifications
+                    index("notifiedAt").on("notifiedAt", ASC)
+            ),
+            Subscription.class, List.of(
+                    index("userId_courseId").on("userId", ASC).on("courseId", ASC),
+                    // Covers the subscriber lookup of the notification fan-out
+                    index("courseId_userId").on("courseId", ASC).on("userId", ASC)
+            ),
+            Token.class, List.of(
+                    index("token").on("token", ASC),
+                    index("userId").on("userId", ASC)
+            ),
+            User.class, List.of(
+                    index("username").on("username", ASC),
+                    index("email").on("email", ASC)
+            ),
+            EmailMessage.class, List.of(
+                    index("status_nextAttemptAt").on("status", ASC).on("nextAttemptAt", ASC),
+                    index("status_lockedUntil").on("status", ASC).on("lockedUntil", ASC),
+                    // Sent mails are kept a week for troubleshooting
+                    index("sentAt").on("sentAt", ASC).expire(Duration.ofDays(7))
+            ),
+            ReviewEvent.class, List.of(
+                    // Claims of due and expired events, the per-review ordering check and the oldest pending event
+                    index("status_nextAttemptAt").on("status", ASC).on("nextAttemptAt", ASC),
+                    index("status_lockedUntil").on("status", ASC).on("lockedUntil", ASC),
+                    index("reviewId_id").on("reviewId", ASC).on("_id", ASC),
+                    index("status_id").on("status", ASC).on("_id", ASC),
+                    // Processed events are kept a week for inspection
+                    index("processedAt").on("processedAt", ASC).expire(Duration.ofDays(7))
+            ),
+            Instructor.class, List.of(
+                    // Instructors teaching a course, looked up from the course page
+                    index("courses").on("courses", ASC)
+            ),
+            GradeDistribution.class, List.of(
+                    index("course_year_term").on("course.subject", ASC).on("course.catalog", ASC).on("year", DESC).on("term", ASC)
+            )
+    );
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void reconcileIndexes() {
+        INDEXES.forEach((entity, indexes) -> {
+            try {
+                reconcile(entity, indexes);
+            } catch (Exception e) {
+                log.error("Failed to reconcile indexes of {}", entity.getSimpleName(), e);
+            }
+        });
+    }
+
+    private void reconcile(Class<?> entity, List<Index> declared) {
+        IndexOperations indexOps = mongoTemplate.indexOps(entity);
+        Map<String, IndexInfo> existing = indexOps.getIndexInfo().stream()
+                .filter(info -> info.getName().startsWith(PREFIX))
+                .collect(Collectors.toMap(IndexInfo::getName, info -> info));
+
+        int created = 0;
+        int rebuilt = 0;
+        for (Index index : declared) {
+            String name = index.getIndexOptions().getString("name");
+            IndexInfo current = existing.remove(name);
+            if (current != null && definitionOf(current).equals(definitionOf(index))) {
+                continue;
+            }
+            if (current != null) {
+                log.info("Rebuilding index {} of {} as {}", name, entity.getSimpleName(), definitionOf(index));
+                indexOps.dropIndex(name);
+                rebuilt++;
+            } else {
+                created++;
+            }
+            indexOps.ensureIndex(index);
+        }
+
+        for (String stale : existing.keySet()) {
+            log.info("Dropping index {} of {} which is no longer declared", stale, entity.getSimpleName());
+            indexOps.dropIndex(stale);
+        }
+
+        log.info("Indexes of {} reconciled: {} declared, {} created, {} rebuilt, {} dropped",
+                entity.getSimpleName(), declared.size(), created, rebuilt, existing.size());
+    }
+
+    /**
+     * Whether a managed index is already built as unique, in which case the migration removing the duplicates
+     * that would prevent it has nothing left to do.
+     *
+     * @param entity The entity of the collection.
+     * @param name   The name of the index, without the prefix.
+     */
+    public static boolean isUniqueIndexBuilt(MongoTemplate mongoTemplate, Class<?> entity, String name) {
+        return mongoTemplate.indexOps(entity).getIndexInfo().stream()
+                .anyMatch(info -> info.getName().equals(PREFIX + name) && info.isUnique());
+    }
+
+    private static Index index(String name) {
+        return new Index().named(PREFIX + name).background();
+    }
+
+    /**
+     * Describes the keys, uniqueness and partial filter of an index, the parts that require a rebuild when they change.
+     */
+    private static List<String> definitionOf(Index index) {
+        List<String> definition = new ArrayList<>();
+        index.getIndexKeys().forEach((key, direction) ->
+                definition.add(key + ":" + (((Number) direction).intValue() < 0 ? DESC : ASC)));
+        Document options = index.getIndexOptions();
+        if (options.getBoolean("unique", false)) {
+            definition.add("unique");
+        }
+        if (options.containsKey("partialFilterExpression")) {
+            definition.add("partial:" + options.get("partialFilterExpression", Document.class).toJson());
+        }
+        return definition;
+    }
+
+    private static List<String> definitionOf(IndexInfo info) {
+        List<String> definition = new ArrayList<>();
+        info.getIndexFields().forEach(field ->
+                definition.add(field.getKey() + ":" + Objects.requireNonNullElse(field.getDirection(), ASC)));
+        if (info.isUnique()) {
+            definition.add("unique");
+        }
+        if (info.getPartialFilterExpression() != null) {
+            definition.add("partial:" + Document.parse(info.getPartialFilterExpression()).toJson());
+        }
+        return definition;
+    }
+}
@@ -0,0 +1,21 @@
+package courses.concordia.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "mongo.pool")
+@Component
+public class MongoPoolConfigProperties {
+    private int maxSize = 100;
+    private int minSize = 0;
+    private Duration maxWaitTime = Duration.ofSeconds(10);
+    private Duration maxConnectionIdleTime = Duration.ofMinutes(10);
+    private Duration connectTimeout = Duration.ofSeconds(10);
+    private Duration readTimeout = Duration.ofSeconds(30);
+}
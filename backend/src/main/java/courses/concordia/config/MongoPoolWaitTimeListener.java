@@ -0,0 +1,55 @@
+package courses.concordia.config;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckOutStartedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long requests wait to check a connection out of the MongoDB pool.
+ * The synchronous driver starts and completes a checkout on the same thread, so the start time is kept per thread.
+ */
+public class MongoPoolWaitTimeListener implements ConnectionPoolListener {
+    private final ThreadLocal<Long> checkOutStart = new ThreadLocal<>();
+    private final Timer checkedOut;
+    private final Timer failed;
+
+    public MongoPoolWaitTimeListener(MeterRegistry meterRegistry) {
+        this.checkedOut = Timer.builder("mongodb.driver.pool.checkout.wait")
+                .description("Time spent waiting for a pooled MongoDB connection")
+                .tag("result", "success")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failed = Timer.builder("mongodb.driver.pool.checkout.wait")
+                .description("Time spent waiting for a pooled MongoDB connection")
+                .tag("result", "failed")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void connectionCheckOutStarted(ConnectionCheckOutStartedEvent event) {
+        checkOutStart.set(System.nanoTime());
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        record(checkedOut);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        record(failed);
+    }
+
+    private void record(Timer timer) {
+        Long start = checkOutStart.get();
+        if (start != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            checkOutStart.remove();
+        }
+    }
+}
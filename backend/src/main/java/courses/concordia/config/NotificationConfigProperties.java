@@ -0,0 +1,43 @@
+package courses.concordia.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "notifications")
+@Component
+public class NotificationConfigProperties {
+    // Notifications kept per user, the oldest are dropped beyond it
+    private int maxPerUser = 100;
+    // Age after which notifications are dropped
+    private Duration retention = Duration.ofDays(90);
+    private Duration purgeInterval = Duration.ofHours(1);
+    // Number of expired notifications removed by one delete
+    private int purgeBatchSize = 500;
+    // Subscribers notified by one bulk write
+    private int fanoutBatchSize = 500;
+    // Largest page of the inbox served at once
+    private int maxPageSize = 50;
+    private Stream stream = new Stream();
+
+    @Getter
+    @Setter
+    public static class Stream {
+        // Redis channel carrying the events to the nodes holding the connections
+        private String channel = "notification-events";
+        // Longest a connection stays open, clients reconnect with the id of the last event they received
+        private Duration timeout = Duration.ofMinutes(30);
+        private Duration heartbeatInterval = Duration.ofSeconds(25);
+        // Open connections accepted per node
+        private int maxConnections = 10000;
+        // Threads writing events to the connections of this node
+        private int senders = 4;
+        // Events per published message
+        private int publishBatchSize = 500;
+    }
+}
@@ -0,0 +1,19 @@
+package courses.concordia.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "principal-cache")
+@Component
+public class PrincipalCacheConfigProperties {
+    private String channel = "principal-invalidation";
+    // Upper bound on how long a node may serve a principal changed without a broadcast
+    private Duration ttl = Duration.ofMinutes(5);
+    private long maxSize = 10_000;
+}
@@ -0,0 +1,41 @@
+package courses.concordia.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "rate-limit")
+@Component
+public class RateLimitConfigProperties {
+    private boolean enabled = true;
+    // Keys tracked per node when Redis is unreachable
+    private long localMaxKeys = 10_000;
+    private List<Policy> policies = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Policy {
+        private String name;
+        // HTTP method to match, any method if unset
+        private String method;
+        // Ant-style request path pattern
+        private String path;
+        private int limit;
+        private Duration window;
+        private KeyType key = KeyType.IP;
+    }
+
+    public enum KeyType {
+        // Client address
+        IP,
+        // Authenticated username, client address for anonymous requests
+        USER
+    }
+}
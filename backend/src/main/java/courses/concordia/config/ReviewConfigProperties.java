@@ -0,0 +1,23 @@
+package courses.concordia.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "reviews")
+@Component
+public class ReviewConfigProperties {
+    // Largest page of the comments or resource links of a review served at once
+    private int maxPageSize = 50;
+    private Upload upload = new Upload();
+
+    @Getter
+    @Setter
+    public static class Upload {
+        // Reviews checked for duplicates and inserted by one bulk write
+        private int chunkSize = 1000;
+    }
+}
@@ -0,0 +1,24 @@
+package courses.concordia.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "reviews.events")
+@Component
+public class ReviewEventConfigProperties {
+    // Store the review and its event in one transaction, which needs a replica set
+    private boolean transactional = true;
+    // Events processed at once, each one is claimed only when a worker is free to start it
+    private int workers = 4;
+    private int maxAttempts = 8;
+    private Duration initialBackoff = Duration.ofSeconds(5);
+    private Duration maxBackoff = Duration.ofMinutes(10);
+    private Duration lease = Duration.ofMinutes(2);
+    private Duration pollInterval = Duration.ofSeconds(1);
+}
@@ -0,0 +1,186 @@
+package courses.concordia.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import courses.concordia.util.CacheTags;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Redis cache that registers every stored entry under the course and instructor tags of its value,
+ * so that writes can evict only the entries referencing the entity they touched.
+ * <p>
+ * When configured with a local tier, entries are also kept in a bounded in-process cache keyed by their Redis key.
+ * Every eviction is broadcast on the invalidation channel so all nodes drop their local copy; a node that misses
+ * a message serves the old value for at most the local time to live.
+ * Hits, misses, puts and evictions are exported to Micrometer.
+ */
+@Slf4j
+public class TaggedRedisCache extends RedisCache {
+    private final StringRedisTemplate redisTemplate;
+    private final String invalidationChannel;
+    private final Cache<String, Object> localCache;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter localHits;
+    private final Counter puts;
+    private final Counter evictions;
+
+    protected TaggedRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfiguration,
+                               Cache<String, Object> localCache, StringRedisTemplate redisTemplate,
+                               String invalidationChannel, MeterRegistry meterRegistry) {
+        super(name, cacheWriter, cacheConfiguration);
+        this.redisTemplate = redisTemplate;
+        this.invalidationChannel = invalidationChannel;
+        this.localCache = localCache;
+        this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss").register(meterRegistry);
+        this.localHits = Counter.builder("cache.local.hits").tag("cache", name).register(meterRegistry);
+        this.puts = Counter.builder("cache.puts").tag("cache", name).register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", name).register(meterRegistry);
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        String cacheKey = localCache != null ? createCacheKey(key) : null;
+        if (localCache != null) {
+            Object value = localCache.getIfPresent(cacheKey);
+            if (value != null) {
+                localHits.increment();
+                hits.increment();
+                return value;
+            }
+        }
+
+        Object value = super.lookup(key);
+        (value != null ? hits : misses).increment();
+        if (value != null && localCache != null) {
+            localCache.put(cacheKey, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        super.put(key, value);
+        puts.increment();
+        if (localCache != null) {
+            localCache.put(createCacheKey(key), value);
+        }
+        tag(key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        super.evict(key);
+        evictions.increment();
+        String cacheKey = createCacheKey(key);
+        evictLocal(List.of(cacheKey));
+        publishInvalidation(List.of(cacheKey));
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        evictions.increment();
+        clearLocal();
+        publishInvalidation(List.of());
+    }
+
+    /**
+     * Evicts every entry registered under the tag, on this node and, through the invalidation channel, on all others.
+     * Only the keys read from the tag set are removed from it, so entries tagged in the meantime stay tracked.
+     *
+     * @param tag The course or instructor tag.
+     */
+    public void evictTagged(String tag) {
+        String setKey = CacheTags.setKey(getName(), tag);
+        Set<String> cacheKeys = redisTemplate.opsForSet().members(setKey);
+        if (cacheKeys == null || cacheKeys.isEmpty()) {
+            return;
+        }
+        redisTemplate.delete(cacheKeys);
+        redisTemplate.opsForSet().remove(setKey, cacheKeys.toArray());
+        evictions.increment(cacheKeys.size());
+        evictLocal(cacheKeys);
+        publishInvalidation(cacheKeys);
+        log.debug("Evicted {} entries tagged {} from {}", cacheKeys.size(), tag, getName());
+    }
+
+    /**
+     * Drops entries from the local tier only.
+     *
+     * @param cacheKeys The Redis keys of the entries.
+     */
+    public void evictLocal(Collection<String> cacheKeys) {
+        if (localCache != null) {
+            localCache.invalidateAll(cacheKeys);
+        }
+    }
+
+    /**
+     * Drops every entry from the local tier only.
+     */
+    public void clearLocal() {
+        if (localCache != null) {
+            localCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Broadcasts evicted keys to the other nodes. The message is the cache name followed by one key per line,
+     * a message without keys clears the whole cache.
+     */
+    private void publishInvalidation(Collection<String> cacheKeys) {
+        if (localCache == null) {
+            return;
+        }
+        try {
+            String message = getName() + (cacheKeys.isEmpty() ? "" : "\n" + String.join("\n", cacheKeys));
+            redisTemplate.convertAndSend(invalidationChannel, message);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish invalidation for cache {}", getName(), e);
+        }
+    }
+
+    /**
+     * Adds the Redis key of the entry to the set of every tag of its value. The sets expire with the entries,
+     * and an entry that could not be tagged is dropped since it could never be invalidated.
+     */
+    private void tag(Object key, Object value) {
+        Set<String> tags = CacheTags.resolve(value);
+        if (tags.isEmpty()) {
+            return;
+        }
+
+        String cacheKey = createCacheKey(key);
+        Duration ttl = getCacheConfiguration().getTtlFunction().getTimeToLive(key, value);
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (String tag : tags) {
+                    String setKey = CacheTags.setKey(getName(), tag);
+                    stringConnection.sAdd(setKey, cacheKey);
+                    if (ttl != null && !ttl.isZero() && !ttl.isNegative()) {
+                        stringConnection.expire(setKey, ttl.toSeconds());
+                    }
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to tag cache entry {}, evicting it", cacheKey, e);
+            evict(key);
+        }
+    }
+}
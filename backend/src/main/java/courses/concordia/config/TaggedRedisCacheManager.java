@@ -0,0 +1,67 @@
+package courses.concordia.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Redis cache manager creating {@link TaggedRedisCache} instances, with a local tier for the caches
+ * configured with a local max size, and applying the invalidations broadcast by other nodes.
+ */
+public class TaggedRedisCacheManager extends RedisCacheManager {
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final CacheConfigProperties properties;
+
+    public TaggedRedisCacheManager(RedisCacheWriter cacheWriter, RedisCacheConfiguration defaultCacheConfiguration,
+                                   Map<String, RedisCacheConfiguration> initialCacheConfigurations,
+                                   StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+                                   CacheConfigProperties properties) {
+        super(cacheWriter, defaultCacheConfiguration, initialCacheConfigurations);
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+    }
+
+    @Override
+    protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfiguration) {
+        RedisCacheConfiguration configuration = cacheConfiguration != null ? cacheConfiguration : getDefaultCacheConfiguration();
+        CacheConfigProperties.CacheSpec spec = properties.getCaches().get(name);
+        com.github.benmanes.caffeine.cache.Cache<String, Object> localCache = null;
+        if (spec != null && spec.getLocalMaxSize() > 0) {
+            localCache = Caffeine.newBuilder()
+                    .maximumSize(spec.getLocalMaxSize())
+                    .expireAfterWrite(spec.getLocalTtl())
+                    .build();
+        }
+        return new TaggedRedisCache(name, getCacheWriter(), configuration, localCache, redisTemplate,
+                properties.getInvalidationChannel(), meterRegistry);
+    }
+
+    /**
+     * Applies an invalidation message published by {@link TaggedRedisCache} to the local tier of this node.
+     *
+     * @param message The cache name followed by one evicted key per line, or the cache name alone to clear it.
+     */
+    public void handleInvalidation(String message) {
+        List<String> lines = Arrays.asList(message.split("\n"));
+        Cache cache = getCache(lines.get(0));
+        if (!(cache instanceof TaggedRedisCache taggedCache)) {
+            return;
+        }
+        if (lines.size() == 1) {
+            taggedCache.clearLocal();
+        } else {
+            taggedCache.evictLocal(lines.subList(1, lines.size()));
+        }
+    }
+}
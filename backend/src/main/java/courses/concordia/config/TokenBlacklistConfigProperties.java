@@ -0,0 +1,20 @@
+package courses.concordia.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "token-blacklist")
+@Component
+public class TokenBlacklistConfigProperties {
+    private String channel = "token-blacklist";
+    // How long a node trusts a negative lookup, bounding the delay before a token blacklisted
+    // without a broadcast is rejected everywhere
+    private Duration negativeTtl = Duration.ofSeconds(30);
+    private long localMaxSize = 100_000;
+}
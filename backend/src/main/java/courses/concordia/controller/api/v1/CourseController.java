@@ -2,9 +2,11 @@ package courses.concordia.controller.api.v1;
 
 import courses.concordia.dto.model.course.CourseDto;
 import courses.concordia.dto.model.review.ReviewSortingDto;
+import courses.concordia.dto.model.course.CourseReviewsDto;
 import courses.concordia.dto.response.Response;
 import courses.concordia.dto.model.course.CourseFilterDto;
 import courses.concordia.service.CourseService;
+import courses.concordia.service.ReviewOverlayService;
 import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
@@ -24,6 +26,7 @@ import java.util.List;
 public class CourseController {
 
     private final CourseService courseService;
+    private final ReviewOverlayService reviewOverlayService;
     @Value("${beaudelaire.uploadKey}")
     private String uploadKey;
 
@@ -65,9 +68,13 @@ public class CourseController {
             @RequestBody ReviewSortingDto sortType,
             @RequestParam(name = "userId", defaultValue = "null") String userId,
             @RequestParam(name = "limit", defaultValue = "20") int limit,
-            @RequestParam(name = "offset", defaultValue = "0") int offset
+            @RequestParam(name = "offset", defaultValue = "0") int offset,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
-        return Response.ok().setPayload(courseService.getCourseAndReviewsByIdPaginated(id, limit, offset, userId, sortType));
+        CourseReviewsDto page = cursor != null
+                ? courseService.getCourseAndReviewsByIdWithCursor(id, limit, cursor, sortType)
+                : courseService.getCourseAndReviewsByIdPaginated(id, limit, offset, sortType);
+        return Response.ok().setPayload(reviewOverlayService.withOverlay(page, userId));
     }
 
     @Timed(value = "courses.get", description = "Get instructors for course")
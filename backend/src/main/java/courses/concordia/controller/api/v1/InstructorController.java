@@ -4,8 +4,10 @@ import courses.concordia.dto.model.instructor.InstructorDto;
 import courses.concordia.dto.model.instructor.InstructorFilterDto;
 import courses.concordia.dto.model.review.ReviewSortingDto;
 import courses.concordia.dto.response.ProcessingResult;
+import courses.concordia.dto.model.instructor.InstructorReviewsDto;
 import courses.concordia.dto.response.Response;
 import courses.concordia.service.InstructorService;
+import courses.concordia.service.ReviewOverlayService;
 import io.micrometer.core.annotation.Timed;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
@@ -26,6 +28,7 @@ import java.util.Map;
 @RequestMapping("/api/v1/instructors")
 public class InstructorController {
     private final InstructorService instructorService;
+    private final ReviewOverlayService reviewOverlayService;
     @Value("${beaudelaire.uploadKey}")
     private String uploadKey;
 
@@ -74,9 +77,13 @@ public class InstructorController {
             @RequestBody ReviewSortingDto sortType,
             @RequestParam(name = "userId", defaultValue = "null") String userId,
             @RequestParam(name = "limit", defaultValue = "20") int limit,
-            @RequestParam(name = "offset", defaultValue = "0") int offset
+            @RequestParam(name = "offset", defaultValue = "0") int offset,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
-        return Response.ok().setPayload(instructorService.getInstructorAndReviewsByIdPaginated(id, limit, offset, userId, sortType));
+        InstructorReviewsDto page = cursor != null
+                ? instructorService.getInstructorAndReviewsByIdWithCursor(id, limit, cursor, sortType)
+                : instructorService.getInstructorAndReviewsByIdPaginated(id, limit, offset, sortType);
+        return Response.ok().setPayload(reviewOverlayService.withOverlay(page, userId));
     }
 
     @Timed(value = "instructors.get", description = "Get instructors with filter")
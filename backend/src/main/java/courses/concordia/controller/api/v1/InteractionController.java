@@ -1,6 +1,7 @@
 package courses.concordia.controller.api.v1;
 
 import courses.concordia.dto.model.interaction.InteractionDto;
+import courses.concordia.dto.model.interaction.InteractionLookupDto;
 import courses.concordia.dto.model.interaction.UserInteractionsForCourseDto;
 import courses.concordia.dto.model.interaction.UserInteractionsForInstructorDto;
 import courses.concordia.dto.response.Response;
@@ -36,6 +37,12 @@ public class InteractionController {
                 .setPayload(payload);
     }
 
+    @PostMapping("/lookup")
+    public Response<?> lookupInteractions(@RequestBody InteractionLookupDto lookup) {
+        List<InteractionDto> interactions = interactionService.lookupInteractions(lookup);
+        return Response.ok().setPayload(interactions);
+    }
+
     @PostMapping
     public Response<?> addOrUpdateInteraction(@RequestBody InteractionDto interaction) {
         InteractionDto interactionDto = interactionService.addOrUpdateInteraction(interaction);
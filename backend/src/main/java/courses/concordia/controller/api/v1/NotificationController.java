@@ -6,9 +6,14 @@ import courses.concordia.dto.model.notification.UpdateNotificationDto;
 import courses.concordia.dto.response.Response;
 import courses.concordia.model.User;
 import courses.concordia.service.NotificationService;
+import courses.concordia.service.NotificationStreamService;
 import courses.concordia.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -17,21 +22,46 @@ import java.util.List;
 @RequestMapping("/api/v1/notifications")
 public class NotificationController {
     private final NotificationService notificationService;
+    private final NotificationStreamService notificationStreamService;
     private final UserService userService;
     @GetMapping
-    public Response<?> getNotifications() {
+    public Response<?> getNotifications(
+            @RequestParam(name = "page", defaultValue = "0") int page,
+            @RequestParam(name = "size", defaultValue = "20") int size
+    ) {
         User user = userService.getAuthenticatedUser();
 
         if(user == null) {
             return Response.unauthorized();
         }
 
-         List<NotificationDto> notifications = notificationService.getNotifications(user.get_id());
+         List<NotificationDto> notifications = notificationService.getNotifications(user.get_id(), page, size);
          return Response
                 .ok()
                 .setPayload(notifications);
     }
 
+    @GetMapping("/unread-count")
+    public Response<?> getUnreadCount() {
+        User user = userService.getAuthenticatedUser();
+        if(user == null) {
+            return Response.unauthorized();
+        }
+        return Response.ok().setPayload(notificationService.getUnreadCount(user.get_id()));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamNotifications(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        User user = userService.getAuthenticatedUser();
+        if(user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return notificationStreamService.subscribe(user.get_id(), lastEventId)
+                // Proxies must not buffer the stream
+                .map(emitter -> ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build());
+    }
+
     @PutMapping
     public Response<?> updateNotification(@RequestBody UpdateNotificationDto updateNotificationDto) {
 
@@ -6,8 +6,7 @@ import courses.concordia.dto.model.review.ReviewPayloadDto;
 import courses.concordia.dto.response.Response;
 import courses.concordia.dto.response.ProcessingResult;
 import courses.concordia.model.User;
-import courses.concordia.service.InteractionService;
-import courses.concordia.service.NotificationService;
+import courses.concordia.service.IntegrityScanService;
 import courses.concordia.dto.model.CommentDto;
 import courses.concordia.model.Comment;
 import courses.concordia.service.ReviewService;
@@ -33,8 +32,7 @@ import java.util.Map;
 public class ReviewController {
     private final ReviewService reviewService;
     private final UserService userService;
-    private final InteractionService interactionService;
-    private final NotificationService notificationService;
+    private final IntegrityScanService integrityScanService;
     private final ModelMapper modelMapper;
     @Value("${beaudelaire.uploadKey}")
     private String uploadKey;
@@ -84,8 +82,12 @@ public class ReviewController {
     public Response<?> getReviewsWithFilters(
             @RequestBody ReviewFilterDto filters,
             @RequestParam(name = "limit", defaultValue = "20") int limit,
-            @RequestParam(name = "offset", defaultValue = "0") int offset
+            @RequestParam(name = "offset", defaultValue = "0") int offset,
+            @RequestParam(name = "cursor", required = false) String cursor
     ) {
+        if (cursor != null) {
+            return Response.ok().setPayload(reviewService.getReviewsWithFilter(limit, cursor, filters));
+        }
         List<ReviewDto> reviews = reviewService.getReviewsWithFilter(limit, offset, filters);
         return Response.ok().setPayload(reviews);
     }
@@ -104,7 +106,6 @@ public class ReviewController {
         }
 
         ReviewDto addedReview = reviewService.addOrUpdateReview(reviewDto);
-        notificationService.addNotifications(reviewDto);
         return Response.ok().setPayload(addedReview);
     }
 
@@ -112,16 +113,12 @@ public class ReviewController {
     @PutMapping
     public Response<?> updateReview(@RequestBody ReviewDto reviewDto) {
         ReviewDto addedReview = reviewService.addOrUpdateReview(reviewDto);
-        notificationService.updateNotifications(reviewDto.get_id(), reviewDto.getCourseId(), reviewDto);
         return Response.ok().setPayload(addedReview);
     }
 
     @Timed(value = "reviews.delete", description = "Delete review")
     @DeleteMapping
     public Response<?> deleteReview(@RequestBody ReviewPayloadDto reviewPayloadDto) {
-        ReviewDto reviewDto = reviewService.getReviewById(reviewPayloadDto.getId());
-        interactionService.deleteInteractions(reviewPayloadDto.getId(), reviewPayloadDto.getUserId(), reviewDto.getType());
-        notificationService.deleteNotification(reviewPayloadDto.getUserId(), null, reviewDto.getCourseId());
         reviewService.deleteReview(reviewPayloadDto.getId(), reviewPayloadDto.getType(), reviewPayloadDto.getCourseId(), reviewPayloadDto.getInstructorId());
         return Response.ok().setPayload("Review was deleted successfully");
     }
@@ -133,13 +130,43 @@ public class ReviewController {
         return ResponseEntity.ok("Reviews deleted successfully. " + result.getDeletedCount() + " reviews were deleted.");
     }
 
+    @Timed(value = "reviews.integrity", description = "Scan for and delete orphaned documents")
+    @PostMapping("/integrity")
+    public ResponseEntity<?> scanIntegrity(@RequestParam String key,
+                                           @RequestParam(name = "relations", required = false) List<String> relations,
+                                           @RequestParam(name = "dryRun", defaultValue = "true") boolean dryRun) {
+        if (!key.equals(uploadKey)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid key");
+        }
+        return ResponseEntity.ok(Response.ok().setPayload(integrityScanService.scan(relations, dryRun)));
+    }
+
     @Timed(value = "reviews.delete", description = "Delete duplicate reviews")
     @DeleteMapping("/duplicate")
-    public ResponseEntity<String> deleteDuplicateReviews() {
-        ProcessingResult result = reviewService.deleteDuplicateReviews();
+    public ResponseEntity<String> deleteDuplicateReviews(@RequestParam(name = "dryRun", defaultValue = "false") boolean dryRun) {
+        ProcessingResult result = reviewService.deleteDuplicateReviews(dryRun);
+        if (dryRun) {
+            return ResponseEntity.ok("Dry run: " + result.getDeletedCount() + " duplicate reviews would be deleted.");
+        }
         return ResponseEntity.ok("Duplicate reviews deleted successfully. " + result.getDeletedCount() + " reviews were deleted.");
     }
 
+    @Timed(value = "reviews.comments.get", description = "Get a page of the comments of a review")
+    @GetMapping("/{reviewId}/comments")
+    public Response<?> getReviewComments(@PathVariable String reviewId,
+                                         @RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "20") int size) {
+        return Response.ok().setPayload(reviewService.getReviewComments(reviewId, page, size));
+    }
+
+    @Timed(value = "reviews.resourceLinks.get", description = "Get a page of the resource links of a review")
+    @GetMapping("/{reviewId}/resource-links")
+    public Response<?> getReviewResourceLinks(@PathVariable String reviewId,
+                                              @RequestParam(defaultValue = "0") int page,
+                                              @RequestParam(defaultValue = "20") int size) {
+        return Response.ok().setPayload(reviewService.getReviewResourceLinks(reviewId, page, size));
+    }
+
     @Timed(value = "reviews.comments.add", description = "Add comment to a review")
     @PostMapping("/{reviewId}/comments")
     public Response<?> addCommentToReview(
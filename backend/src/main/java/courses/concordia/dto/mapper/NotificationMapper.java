@@ -2,13 +2,18 @@ package courses.concordia.dto.mapper;
 
 import courses.concordia.dto.model.notification.NotificationDto;
 import courses.concordia.model.Notification;
+import courses.concordia.model.Review;
 
 public class NotificationMapper {
-    public static NotificationDto toDto(Notification notification) {
+    public static NotificationDto toDto(Notification notification, Review review) {
         return new NotificationDto()
                 .set_id(notification.get_id())
                 .setUserId(notification.getUserId())
-                .setReview(ReviewMapper.toDto(notification.getReview()))
+                .setReviewId(notification.getReviewId())
+                .setCourseId(notification.getCourseId())
+                .setCreatorId(notification.getCreatorId())
+                .setNotifiedAt(notification.getNotifiedAt())
+                .setReview(review != null ? ReviewMapper.toDto(review) : null)
                 .setSeen(notification.isSeen());
     }
 }
@@ -25,6 +25,8 @@ public class ReviewMapper {
         dto.setResourceLinks(review.getResourceLinks().stream()
             .map(ReviewMapper::resourceLinkToDto)
             .collect(Collectors.toList()));
+        dto.setCommentCount(review.getCommentCount());
+        dto.setResourceLinkCount(review.getResourceLinkCount());
 
         if (reviewType.equals("school")) {
             dto.setSchoolId(review.getSchoolId());
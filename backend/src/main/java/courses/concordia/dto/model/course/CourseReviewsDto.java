@@ -3,6 +3,7 @@ package courses.concordia.dto.model.course;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import courses.concordia.dto.model.review.ReviewDto;
+import courses.concordia.dto.model.review.ReviewOverlayDto;
 import lombok.*;
 import lombok.experimental.Accessors;
 
@@ -19,5 +20,7 @@ public class CourseReviewsDto {
     private CourseDto course;
     private List<ReviewDto> reviews;
     private long totalReviews;
+    private String nextCursor;
     private boolean hasUserReviewed;
+    private ReviewOverlayDto userOverlay;
 }
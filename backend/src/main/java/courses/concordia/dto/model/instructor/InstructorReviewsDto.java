@@ -3,6 +3,7 @@ package courses.concordia.dto.model.instructor;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import courses.concordia.dto.model.review.ReviewDto;
+import courses.concordia.dto.model.review.ReviewOverlayDto;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -23,5 +24,7 @@ public class InstructorReviewsDto {
     private InstructorDto instructor;
     private List<ReviewDto> reviews;
     private long totalReviews;
+    private String nextCursor;
     private boolean hasUserReviewed;
+    private ReviewOverlayDto userOverlay;
 }
@@ -0,0 +1,24 @@
+package courses.concordia.dto.model.integrity;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import lombok.experimental.Accessors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@Accessors(chain = true)
+@NoArgsConstructor
+@ToString
+@JsonInclude(value = JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class IntegrityFindingDto {
+    private String relation;
+    private String collection;
+    private long orphanCount;
+    private long deletedCount;
+    private List<String> sampleIds = new ArrayList<>();
+}
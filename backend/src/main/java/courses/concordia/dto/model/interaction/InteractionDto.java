@@ -22,5 +22,7 @@ public class InteractionDto {
     private String instructorId;
     private String userId;
     private String referrer;
+    // The likes of the review after the interaction, only set in the response to a vote
+    private Integer likes;
 
 }
@@ -0,0 +1,43 @@
+package courses.concordia.dto.model.interaction;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * The reviews of a page, all of one course or instructor, whose interactions by a user are looked up.
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+@NoArgsConstructor
+@ToString
+@JsonInclude(value = JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class InteractionLookupDto {
+    private String type;
+    private String referrer;
+    private List<ReviewKey> reviews;
+
+    /**
+     * A review, identified like the interactions with it are: by its course, instructor and author.
+     */
+    @Getter
+    @Setter
+    @Accessors(chain = true)
+    @NoArgsConstructor
+    @ToString
+    @JsonInclude(value = JsonInclude.Include.NON_NULL)
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ReviewKey {
+        private String courseId;
+        private String instructorId;
+        private String userId;
+    }
+}
@@ -0,0 +1,30 @@
+package courses.concordia.dto.model.notification;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+/**
+ * An event pushed to the notification stream of a user: a new notification, or a change of the unread count.
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+@NoArgsConstructor
+@ToString
+@JsonInclude(value = JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class NotificationEventDto {
+    public static final String NOTIFICATION = "notification";
+    public static final String UNREAD = "unread";
+
+    private String userId;
+    private String type;
+    // Set on notification events, without the review which is fetched with the inbox
+    private NotificationDto notification;
+    private int unread;
+}
@@ -64,6 +64,9 @@ public class ReviewDto {
     // School specific ratings
     private String schoolId;
 
+    // In listings, only the latest comment and no resource link
     private List<CommentDto> comments = new ArrayList<>();
     private List<ResourceLinkDto> resourceLinks = new ArrayList<>();
+    private int commentCount;
+    private int resourceLinkCount;
 }
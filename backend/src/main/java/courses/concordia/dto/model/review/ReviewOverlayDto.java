@@ -0,0 +1,32 @@
+package courses.concordia.dto.model.review;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import courses.concordia.dto.model.interaction.InteractionDto;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * The part of a course or instructor review page specific to the user viewing it.
+ */
+@Getter
+@Setter
+@Accessors(chain = true)
+@NoArgsConstructor
+@ToString
+@JsonInclude(value = JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ReviewOverlayDto {
+    private String userId;
+    private boolean hasUserReviewed;
+    // The review of the user on the course or instructor, and its index on the page when it is listed there
+    private String userReviewId;
+    private Integer userReviewPosition;
+    // The votes of the user on the reviews of the page
+    private List<InteractionDto> interactions;
+}
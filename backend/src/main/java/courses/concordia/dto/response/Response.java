@@ -75,6 +75,12 @@ public class Response<T> {
         return response;
     }
 
+    public static <T> Response<T> tooManyRequests() {
+        Response<T> response = new Response<>();
+        response.setStatus(Status.TOO_MANY_REQUESTS);
+        return response;
+    }
+
     public void addErrorMsgToResponse(String errorMsg, Exception ex) {
         ResponseError error = new ResponseError()
                 .setDetails(errorMsg)
@@ -84,7 +90,7 @@ public class Response<T> {
     }
 
     public enum Status {
-        OK, BAD_REQUEST, UNAUTHORIZED, VALIDATION_EXCEPTION, EXCEPTION, WRONG_CREDENTIALS, ACCESS_DENIED, NOT_FOUND, DUPLICATE_ENTITY
+        OK, BAD_REQUEST, UNAUTHORIZED, VALIDATION_EXCEPTION, EXCEPTION, WRONG_CREDENTIALS, ACCESS_DENIED, NOT_FOUND, DUPLICATE_ENTITY, TOO_MANY_REQUESTS
     }
 
     @JsonInclude(JsonInclude.Include.NON_NULL)
@@ -34,6 +34,10 @@ public class Course {
     private int[] experienceDistribution = new int[5];
     @ToString.Exclude @EqualsAndHashCode.Exclude
     private int reviewCount = 0;
+    @ToString.Exclude @EqualsAndHashCode.Exclude
+    private Integer difficultySum;
+    @ToString.Exclude @EqualsAndHashCode.Exclude
+    private Integer experienceSum;
     private List<Schedule> schedules;
 
     @Data
@@ -0,0 +1,45 @@
+package courses.concordia.model;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A mail waiting in the outbox, rendered from its template and sent by the outbox workers.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@Accessors(chain = true)
+@Document(collection = "emailOutbox")
+public class EmailMessage {
+    @MongoId
+    private String _id;
+    private String template;
+    private String to;
+    private String subject;
+    private Map<String, Object> variables;
+
+    private Status status = Status.PENDING;
+    private int attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt;
+    // A message being sent is leased until then, after which another worker may claim it
+    private LocalDateTime lockedUntil;
+    // Claim holding the lease, the outcome of a send is only recorded while it still does
+    private String owner;
+    private LocalDateTime sentAt;
+    private String lastError;
+
+    public enum Status {
+        PENDING,
+        SENDING,
+        SENT,
+        DEAD
+    }
+}
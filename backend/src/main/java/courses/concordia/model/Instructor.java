@@ -43,6 +43,10 @@ public class Instructor {
     @ToString.Exclude @EqualsAndHashCode.Exclude
     private int reviewCount = 0;
     @ToString.Exclude @EqualsAndHashCode.Exclude
+    private Integer difficultySum;
+    @ToString.Exclude @EqualsAndHashCode.Exclude
+    private Integer ratingSum;
+    @ToString.Exclude @EqualsAndHashCode.Exclude
     private int lastReviewCount = 0;
     private String aiSummary;
 
@@ -7,6 +7,11 @@ import lombok.experimental.Accessors;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.MongoId;
 
+import java.time.LocalDateTime;
+
+/**
+ * An entry of a user's inbox, referencing the review it is about rather than copying it.
+ */
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,7 +20,11 @@ import org.springframework.data.mongodb.core.mapping.MongoId;
 public class Notification {
     @MongoId
     private String _id;
-    private Review review;
-    private boolean seen;
     private String userId;
+    private String reviewId;
+    private String courseId;
+    private String creatorId;
+    private boolean seen;
+    // When the review was posted or last edited, the inbox is ordered by it
+    private LocalDateTime notifiedAt;
 }
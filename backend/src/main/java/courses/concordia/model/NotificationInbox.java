@@ -0,0 +1,24 @@
+package courses.concordia.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+/**
+ * The counters of a user's notifications, kept in step with every write to the inbox.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Accessors(chain = true)
+@Document(collection = "notificationInboxes")
+public class NotificationInbox {
+    // The ID of the user
+    @MongoId
+    private String _id;
+    private int total;
+    private int unread;
+}
@@ -67,4 +67,7 @@ public class Review {
 
     private List<Comment> comments = new ArrayList<>();
     private List<ResourceLink> resourceLinks = new ArrayList<>();
+    // Lengths of the embedded lists, so that listings can leave the lists out
+    private int commentCount;
+    private int resourceLinkCount;
 }
@@ -0,0 +1,65 @@
+package courses.concordia.model;
+
+import courses.concordia.service.ReviewStatisticsService.ReviewSnapshot;
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A write to a review whose side effects are still to be applied, stored in the same transaction as the write.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@Accessors(chain = true)
+@Document(collection = "reviewEvents")
+public class ReviewEvent {
+    @MongoId
+    private String _id;
+    private Type type;
+    private String reviewId;
+    private String reviewType;
+    private String userId;
+    // Whether the write added the review rather than edited it
+    private boolean created;
+    private ReviewSnapshot previous;
+    private ReviewSnapshot current;
+    // Side effects already applied, skipped when the event is retried
+    private Set<Step> completedSteps = new HashSet<>();
+
+    private Status status = Status.PENDING;
+    private int attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime nextAttemptAt;
+    // An event being processed is leased until then, after which another worker may claim it
+    private LocalDateTime lockedUntil;
+    // Identifies the claim holding the lease, a worker whose lease was taken over no longer records anything
+    private String owner;
+    private LocalDateTime processedAt;
+    private String lastError;
+
+    public enum Type {
+        UPSERTED,
+        DELETED
+    }
+
+    public enum Step {
+        STATISTICS,
+        CACHES,
+        NOTIFICATIONS,
+        INTERACTIONS
+    }
+
+    public enum Status {
+        PENDING,
+        PROCESSING,
+        DONE,
+        DEAD
+    }
+}
@@ -10,5 +10,4 @@ public interface SubscriptionRepository extends MongoRepository<Subscription, St
     List<Subscription> findByUserId(String userId);
     Optional<Subscription> findByUserIdAndCourseId(String userId, String courseId);
     void deleteByUserIdAndCourseId(String userId, String courseId);
-    List<Subscription> findByCourseId(String courseId);
 }
@@ -5,6 +5,7 @@ import courses.concordia.config.RtConfigProperties;
 import courses.concordia.config.TokenType;
 import courses.concordia.service.CookieService;
 import courses.concordia.service.JwtService;
+import courses.concordia.service.PrincipalCacheService;
 import courses.concordia.service.TokenBlacklistService;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
@@ -18,7 +19,6 @@ import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -32,7 +32,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final CookieService cookieService;
     private final TokenBlacklistService tokenBlacklistService;
-    private final UserDetailsService userDetailsService;
+    private final PrincipalCacheService principalCacheService;
     private final JwtConfigProperties jwtConfigProperties;
     private final RtConfigProperties rtConfigProperties;
 
@@ -69,10 +69,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private UserDetails authenticateUsingJwtToken(String jwtToken, HttpServletRequest request) {
         try {
-            String username = jwtService.extractUsername(jwtToken, TokenType.ACCESS_TOKEN);
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtService.isTokenValid(jwtToken, userDetails, TokenType.ACCESS_TOKEN)) {
+            JwtService.VerifiedToken verified = jwtService.verify(jwtToken, TokenType.ACCESS_TOKEN);
+            if (verified.subject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                UserDetails userDetails = principalCacheService.loadUserByUsername(verified.subject());
+                if (verified.isValidFor(userDetails)) {
                     setAuthenticationContext(userDetails, request);
                     return userDetails;
                 }
@@ -85,10 +85,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private UserDetails authenticateUsingRefreshToken(String refreshToken, HttpServletRequest request, HttpServletResponse response) {
         try {
-            String username = jwtService.extractUsername(refreshToken, TokenType.REFRESH_TOKEN);
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtService.isTokenValid(refreshToken, userDetails, TokenType.REFRESH_TOKEN)) {
+            JwtService.VerifiedToken verified = jwtService.verify(refreshToken, TokenType.REFRESH_TOKEN);
+            if (verified.subject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                UserDetails userDetails = principalCacheService.loadUserByUsername(verified.subject());
+                if (verified.isValidFor(userDetails)) {
                     log.debug("Generating new access token for user: {}", userDetails.getUsername());
                     String newJwtToken = jwtService.generateToken(userDetails, TokenType.ACCESS_TOKEN);
                     cookieService.addTokenCookie(response, newJwtToken, TokenType.ACCESS_TOKEN);
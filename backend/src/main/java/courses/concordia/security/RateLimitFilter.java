@@ -1,36 +1,85 @@
 package courses.concordia.security;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import courses.concordia.config.RateLimitConfigProperties;
+import courses.concordia.config.RateLimitConfigProperties.KeyType;
+import courses.concordia.config.RateLimitConfigProperties.Policy;
+import courses.concordia.dto.response.Response;
+import courses.concordia.service.RateLimitService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 
+/**
+ * Applies the configured rate limit policies, keyed by client address or authenticated user.
+ * Every matching policy must admit the request; otherwise it is rejected with 429 and a Retry-After header
+ * without reaching the rest of the chain.
+ */
 @Component
+@RequiredArgsConstructor
 public class RateLimitFilter extends OncePerRequestFilter {
-
-    private final ConcurrentHashMap<String, Long> requestCounts = new ConcurrentHashMap<>();
-    private static final String REVIEW_SUBMISSION_ENDPOINT = "/api/v1/reviews";
+    private final RateLimitService rateLimitService;
+    private final RateLimitConfigProperties properties;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
 
     @Override
-    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
-            throws ServletException, IOException {
-        if ("POST".equalsIgnoreCase(request.getMethod()) && request.getRequestURI().endsWith(REVIEW_SUBMISSION_ENDPOINT)) {
-            String clientIP = request.getRemoteAddr();
-            long currentTime = System.currentTimeMillis();
-            requestCounts.merge(clientIP, currentTime, (oldTime, newTime) -> {
-                if (newTime - oldTime < TimeUnit.SECONDS.toMillis(10)) { // Limit to 1 request per 10 seconds
-                    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
-                    return oldTime;
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        if (properties.isEnabled()) {
+            for (Policy policy : properties.getPolicies()) {
+                if (!matches(policy, request)) {
+                    continue;
+                }
+                RateLimitService.Decision decision = rateLimitService.tryAcquire(
+                        policy.getName(), clientKey(policy, request), policy.getLimit(), policy.getWindow());
+                if (!decision.allowed()) {
+                    reject(response, decision);
+                    return;
                 }
-                return newTime;
-            });
+            }
         }
         filterChain.doFilter(request, response);
     }
+
+    private boolean matches(Policy policy, HttpServletRequest request) {
+        return (policy.getMethod() == null || policy.getMethod().equalsIgnoreCase(request.getMethod()))
+                && pathMatcher.match(policy.getPath(), request.getRequestURI());
+    }
+
+    private String clientKey(Policy policy, HttpServletRequest request) {
+        if (policy.getKey() == KeyType.USER) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
+                return "user:" + authentication.getName();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(HttpServletResponse response, RateLimitService.Decision decision) throws IOException {
+        long retryAfterSeconds = Math.max(1, (decision.retryAfter().toMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Response<?> body = Response.tooManyRequests();
+        body.setErrors("Too many requests, retry in " + retryAfterSeconds + " seconds");
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
 }
@@ -0,0 +1,7 @@
+package courses.concordia.service;
+
+public interface CacheInvalidationService {
+    void evictByCourse(String courseId, String... cacheNames);
+    void evictByInstructor(String instructorId, String... cacheNames);
+    void evictAll(String... cacheNames);
+}
@@ -16,6 +16,7 @@ public interface CourseService {
     void updateCourses(MultipartFile file);
     void updateCoursesStatistics();
     List<CourseInstructorDto> getInstructors(String id);
-    CourseReviewsDto getCourseAndReviewsByIdPaginated(String id, int limit, int offset, String userId, ReviewSortingDto sortType);
+    CourseReviewsDto getCourseAndReviewsByIdPaginated(String id, int limit, int offset, ReviewSortingDto sortType);
+    CourseReviewsDto getCourseAndReviewsByIdWithCursor(String id, int limit, String cursor, ReviewSortingDto sortType);
     HomeStatsDto getHomeStats();
 }
@@ -0,0 +1,8 @@
+package courses.concordia.service;
+
+import java.util.Map;
+
+public interface EmailOutboxService {
+    void enqueue(String template, String to, String subject, Map<String, Object> variables);
+    void drain();
+}
@@ -14,5 +14,6 @@ public interface InstructorService {
     InstructorDto getInstructorById(String id);
     void updateInstructorsStatistics();
     ProcessingResult uploadInstructors(MultipartFile file);
-    InstructorReviewsDto getInstructorAndReviewsByIdPaginated(String id, int limit, int offset, String userId, ReviewSortingDto sortType);
+    InstructorReviewsDto getInstructorAndReviewsByIdPaginated(String id, int limit, int offset, ReviewSortingDto sortType);
+    InstructorReviewsDto getInstructorAndReviewsByIdWithCursor(String id, int limit, String cursor, ReviewSortingDto sortType);
 }
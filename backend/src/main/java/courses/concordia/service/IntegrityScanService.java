@@ -0,0 +1,20 @@
+package courses.concordia.service;
+
+import courses.concordia.dto.model.integrity.IntegrityFindingDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface IntegrityScanService {
+    String REVIEW_INSTRUCTOR = "review-instructor";
+    String COURSE_INTERACTION_REVIEW = "course-interaction-review";
+    String INSTRUCTOR_INTERACTION_REVIEW = "instructor-interaction-review";
+    String NOTIFICATION_REVIEW = "notification-review";
+    String SUBSCRIPTION_COURSE = "subscription-course";
+    String COMMENT_REVIEW = "comment-review";
+    String RESOURCE_LINK_REVIEW = "resource-link-review";
+
+    Set<String> relations();
+    List<IntegrityFindingDto> scan(Collection<String> relations, boolean dryRun);
+}
@@ -1,17 +1,23 @@
 package courses.concordia.service;
 
 import courses.concordia.dto.model.interaction.InteractionDto;
+import courses.concordia.dto.model.interaction.InteractionLookupDto;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface InteractionService {
     List<InteractionDto> getUserInteractions(String id, String referrer, String type);
 
+    List<InteractionDto> getUserInteractions(String id, String referrer, String type, Collection<String> authorIds);
+
+    List<InteractionDto> lookupInteractions(InteractionLookupDto lookup);
+
     InteractionDto addOrUpdateInteraction(InteractionDto interactionDto);
 
     void deleteInteraction(InteractionDto interactionDto);
 
-    void deleteInteractions(String id, String userId, String type);
+    void deleteInteractions(String courseId, String instructorId, String userId, String type);
 
     List<InteractionDto> getUserInteractions(String referrer);
 
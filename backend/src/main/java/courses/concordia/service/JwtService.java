@@ -9,6 +9,7 @@ import java.util.Map;
 import java.util.function.Function;
 
 public interface JwtService {
+    VerifiedToken verify(String token, TokenType tokenType);
     String extractUsername(String token);
     String extractUsername(String token, TokenType tokenType);
     <T> T extractClaim(String token, Function<Claims, T> claimsResolver, TokenType tokenType);
@@ -17,4 +18,22 @@ public interface JwtService {
     boolean isTokenValid(String token, UserDetails userDetails, TokenType tokenType);
     boolean isTokenExpired(String token, TokenType tokenType);
     Date extractExpiration(String token, TokenType tokenType);
+
+    /**
+     * The claims of a token whose signature was verified.
+     *
+     * @param tokenType  The type of the token.
+     * @param subject    The username the token was issued to.
+     * @param issuedAt   When the token was issued.
+     * @param expiration When the token expires.
+     */
+    record VerifiedToken(TokenType tokenType, String subject, Date issuedAt, Date expiration) {
+        public boolean isExpired() {
+            return expiration.before(new Date());
+        }
+
+        public boolean isValidFor(UserDetails userDetails) {
+            return subject.equals(userDetails.getUsername()) && !isExpired();
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package courses.concordia.service;
+
+import courses.concordia.model.Interaction;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.util.List;
+import java.util.Map;
+
+public interface LikeCounterService {
+    int vote(VoteTarget target, String voter, Interaction.InteractionKind kind);
+    Map<VoteTarget, Integer> pendingVotes(String voter);
+    Map<VoteTarget, Integer> pendingVotes(String voter, List<VoteTarget> targets);
+    void forget(VoteTarget target);
+    void flush();
+
+    /**
+     * The review a vote is cast on, identified like the interactions do: by its type, course or instructor,
+     * and author.
+     */
+    record VoteTarget(String type, String courseId, String instructorId, String authorId) {
+        private static final String SEPARATOR = "|";
+
+        public static VoteTarget of(Interaction interaction) {
+            return new VoteTarget(interaction.getType(), interaction.getCourseId(), interaction.getInstructorId(), interaction.getUserId());
+        }
+
+        public static VoteTarget parse(String key) {
+            String[] parts = key.split("\\|", -1);
+            return new VoteTarget(parts[0], emptyToNull(parts[1]), emptyToNull(parts[2]), emptyToNull(parts[3]));
+        }
+
+        public String key() {
+            return String.join(SEPARATOR, type, nullToEmpty(courseId), nullToEmpty(instructorId), nullToEmpty(authorId));
+        }
+
+        /**
+         * @return The criteria matching the review.
+         */
+        public Criteria reviewCriteria() {
+            Criteria criteria = "instructor".equals(type)
+                    ? Criteria.where("instructorId").is(instructorId)
+                    : Criteria.where("courseId").is(courseId);
+            return criteria.and("userId").is(authorId).and("type").is(type);
+        }
+
+        private static String nullToEmpty(String value) {
+            return value == null ? "" : value;
+        }
+
+        private static String emptyToNull(String value) {
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
@@ -7,8 +7,10 @@ import java.util.List;
 
 public interface NotificationService {
     void addNotifications(ReviewDto reviewDto);
-    List<NotificationDto> getNotifications(String userId);
+    List<NotificationDto> getNotifications(String userId, int page, int size);
+    int getUnreadCount(String userId);
     void updateNotifications(String creatorId, String courseId, ReviewDto reviewDto);
     void deleteNotification(String creatorId, String userId, String courseId);
     void updateNotification(String userId, String courseId, String creatorId, boolean seen);
+    void purgeExpiredNotifications();
 }
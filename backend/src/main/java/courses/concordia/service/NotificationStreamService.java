@@ -0,0 +1,12 @@
+package courses.concordia.service;
+
+import courses.concordia.dto.model.notification.NotificationEventDto;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface NotificationStreamService {
+    Optional<SseEmitter> subscribe(String userId, String lastEventId);
+    void publish(List<NotificationEventDto> events);
+}
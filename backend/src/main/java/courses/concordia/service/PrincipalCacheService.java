@@ -0,0 +1,8 @@
+package courses.concordia.service;
+
+import courses.concordia.model.User;
+
+public interface PrincipalCacheService {
+    User loadUserByUsername(String username);
+    void evict(String username);
+}
@@ -0,0 +1,14 @@
+package courses.concordia.service;
+
+import java.time.Duration;
+
+public interface RateLimitService {
+    Decision tryAcquire(String policy, String key, int limit, Duration window);
+
+    /**
+     * @param allowed    Whether the request may proceed.
+     * @param retryAfter How long the client should wait before retrying, zero if allowed.
+     */
+    record Decision(boolean allowed, Duration retryAfter) {
+    }
+}
@@ -0,0 +1,8 @@
+package courses.concordia.service;
+
+import courses.concordia.model.ReviewEvent;
+
+public interface ReviewEventService {
+    void publish(ReviewEvent event);
+    void drain();
+}
@@ -0,0 +1,9 @@
+package courses.concordia.service;
+
+import courses.concordia.dto.model.course.CourseReviewsDto;
+import courses.concordia.dto.model.instructor.InstructorReviewsDto;
+
+public interface ReviewOverlayService {
+    CourseReviewsDto withOverlay(CourseReviewsDto page, String userId);
+    InstructorReviewsDto withOverlay(InstructorReviewsDto page, String userId);
+}
@@ -1,8 +1,11 @@
 package courses.concordia.service;
 
 import courses.concordia.dto.model.CommentDto;
+import courses.concordia.dto.model.CommentPageDto;
+import courses.concordia.dto.model.ResourceLinkPageDto;
 import courses.concordia.dto.model.review.ReviewDto;
 import courses.concordia.dto.model.review.ReviewFilterDto;
+import courses.concordia.dto.model.review.ReviewPageDto;
 import courses.concordia.dto.response.ProcessingResult;
 import courses.concordia.model.Comment;
 import org.springframework.web.multipart.MultipartFile;
@@ -14,11 +17,14 @@ public interface ReviewService {
     void deleteReview(String id, String type, String courseId, String instructorId);
     List<ReviewDto> getUserReviews(String userId);
     List<ReviewDto> getReviewsWithFilter(int limit, int offset, ReviewFilterDto filters);
+    ReviewPageDto getReviewsWithFilter(int limit, String cursor, ReviewFilterDto filters);
     ReviewDto getReviewById(String id);
     ProcessingResult uploadReviews(MultipartFile file);
-    ProcessingResult deleteDuplicateReviews();
+    ProcessingResult deleteDuplicateReviews(boolean dryRun);
     ProcessingResult deleteReviewsWithNonExistentInstructorIds();
     ReviewDto addCommentToReview(String reviewId, CommentDto comment);
     ReviewDto deleteCommentFromReview(String reviewId, String commentId, String userId);
     ReviewDto updateCommentInReview(String reviewId, String commentId, CommentDto commentDto, String userId);
+    CommentPageDto getReviewComments(String reviewId, int page, int size);
+    ResourceLinkPageDto getReviewResourceLinks(String reviewId, int page, int size);
 }
@@ -0,0 +1,31 @@
+package courses.concordia.service;
+
+import courses.concordia.model.Instructor;
+import courses.concordia.model.Review;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public interface ReviewStatisticsService {
+    void applyCourseReviewDelta(String courseId, String eventId, ReviewSnapshot previous, ReviewSnapshot current);
+    void applyInstructorReviewDelta(String instructorId, String eventId, ReviewSnapshot previous, ReviewSnapshot current);
+    void recomputeCourseStatistics(String courseId);
+    void recomputeInstructorStatistics(String instructorId);
+    void recomputeAllCourseStatistics();
+    void recomputeAllInstructorStatistics();
+
+    /**
+     * Immutable copy of the review fields that contribute to course and instructor statistics.
+     * Taken before a review is mutated so the old contribution can be subtracted.
+     */
+    record ReviewSnapshot(String courseId, String instructorId, int difficulty, int score, Set<Instructor.Tag> tags) {
+        public static ReviewSnapshot of(Review review) {
+            int score = "course".equals(review.getType()) ? review.getExperience() : review.getRating();
+            Set<Instructor.Tag> tags = review.getTags() == null ? Set.of() : review.getTags().stream()
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toUnmodifiableSet());
+            return new ReviewSnapshot(review.getCourseId(), review.getInstructorId(), review.getDifficulty(), score, tags);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package courses.concordia.service;
+
+import courses.concordia.dto.model.search.SearchSuggestionDto;
+
+import java.util.List;
+
+public interface SearchIndexService {
+    void rebuild();
+    List<SearchSuggestionDto> suggest(String query, String type, int limit);
+}
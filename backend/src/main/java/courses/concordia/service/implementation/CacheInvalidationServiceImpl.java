@@ -0,0 +1,69 @@
+package courses.concordia.service.implementation;
+
+import courses.concordia.config.TaggedRedisCache;
+import courses.concordia.service.CacheInvalidationService;
+import courses.concordia.util.CacheTags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service implementation for evicting cache entries by the courses and instructors they reference.
+ * Entries are tagged when they are stored, so a write only drops the pages containing the touched entity
+ * instead of clearing whole caches.
+ */
+@RequiredArgsConstructor
+@Service
+public class CacheInvalidationServiceImpl implements CacheInvalidationService {
+    private final CacheManager cacheManager;
+
+    /**
+     * Evicts the entries of the given caches that contain the course.
+     *
+     * @param courseId   The ID of the course.
+     * @param cacheNames The caches to evict from.
+     */
+    @Override
+    public void evictByCourse(String courseId, String... cacheNames) {
+        if (courseId != null) {
+            evictByTag(CacheTags.course(courseId), cacheNames);
+        }
+    }
+
+    /**
+     * Evicts the entries of the given caches that contain the instructor.
+     *
+     * @param instructorId The ID of the instructor.
+     * @param cacheNames   The caches to evict from.
+     */
+    @Override
+    public void evictByInstructor(String instructorId, String... cacheNames) {
+        if (instructorId != null) {
+            evictByTag(CacheTags.instructor(instructorId), cacheNames);
+        }
+    }
+
+    /**
+     * Clears the given caches entirely, for writes that change which entries belong on a page.
+     *
+     * @param cacheNames The caches to clear.
+     */
+    @Override
+    public void evictAll(String... cacheNames) {
+        for (String cacheName : cacheNames) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private void evictByTag(String tag, String... cacheNames) {
+        for (String cacheName : cacheNames) {
+            if (cacheManager.getCache(cacheName) instanceof TaggedRedisCache cache) {
+                cache.evictTagged(tag);
+            }
+        }
+    }
+}
@@ -19,7 +19,11 @@ import courses.concordia.repository.CourseRepository;
 import courses.concordia.repository.InstructorRepository;
 import courses.concordia.repository.ReviewRepository;
 import courses.concordia.service.CourseService;
+import courses.concordia.service.ReviewStatisticsService;
+import courses.concordia.service.SearchIndexService;
 import courses.concordia.util.JsonUtils;
+import courses.concordia.util.ReviewCursor;
+import courses.concordia.util.ReviewProjection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
@@ -47,6 +51,8 @@ public class CourseServiceImpl implements CourseService {
     private final CourseRepository courseRepository;
     private final InstructorRepository instructorRepository;
     private final ReviewRepository reviewRepository;
+    private final ReviewStatisticsService reviewStatisticsService;
+    private final SearchIndexService searchIndexService;
     private final MongoTemplate mongoTemplate;
     private final ModelMapper modelMapper;
 
@@ -91,23 +97,24 @@ public class CourseServiceImpl implements CourseService {
     /**
      * Retrieves a course along with its reviews based on the course ID, with pagination.
      * The results are cached to improve performance on subsequent calls with the same ID.
+     * The page is the same for every user, the part specific to the requester is added by {@link courses.concordia.service.ReviewOverlayService}.
      *
      * @param id       The unique identifier for the course.
      * @param limit    The maximum number of reviews to return.
      * @param offset   The offset from the start of the dataset for paging.
-     * @param userId  The unique identifier of the user requesting the reviews.
      * @param sortType The sorting criteria to apply to the reviews.
      * @return A {@link CourseReviewsDto} object containing the course and its reviews.
      */
     @Cacheable(value = "courseReviewsCache", key = "{#id, 'course', #limit, #offset, #sortType.hashCode()}")
     @Override
-    public CourseReviewsDto getCourseAndReviewsByIdPaginated(String id, int limit, int offset, String userId, ReviewSortingDto sortType) {
+    public CourseReviewsDto getCourseAndReviewsByIdPaginated(String id, int limit, int offset, ReviewSortingDto sortType) {
         log.info("Retrieving course and reviews with ID {} with limit {}, offset {}, and sorting {}", id, limit, offset, sortType);
         CourseDto course = getCourseById(id);
 
         Criteria criteria = Criteria.where("courseId").is(id);
 
-        if (sortType.getSelectedInstructor() != null && !sortType.getSelectedInstructor().isBlank()) {
+        boolean filtered = sortType.getSelectedInstructor() != null && !sortType.getSelectedInstructor().isBlank();
+        if (filtered) {
             criteria = criteria.and("instructorId").is(sortType.getSelectedInstructor());
         }
 
@@ -115,42 +122,73 @@ public class CourseServiceImpl implements CourseService {
 
         if (sortType.getSortType() != null) {
             log.info("Applying sort by {} in {} order", sortType.getSortType(), sortType.isReverse() ? "DESC" : "ASC");
-            switch (sortType.getSortType()) {
-                case Difficulty:
-                    query.with(Sort.by(sortType.isReverse() ? Sort.Direction.DESC : Sort.Direction.ASC, "difficulty"));
-                    break;
-                case Rating, Experience:
-                    query.with(Sort.by(sortType.isReverse() ? Sort.Direction.DESC : Sort.Direction.ASC, "experience"));
-                    break;
-                case Likes:
-                    query.with(Sort.by(sortType.isReverse() ? Sort.Direction.DESC : Sort.Direction.ASC, "likes"));
-                    break;
-                case Recent:
-                    query.with(Sort.by(sortType.isReverse() ? Sort.Direction.DESC : Sort.Direction.ASC, "timestamp"));
-                    break;
-                default:
-                    query.with(Sort.by(Sort.Direction.DESC, "timestamp"));
-                    break;
-            }
+            query.with(Sort.by(reviewSortDirection(sortType), reviewSortField(sortType)));
         }
 
-        long totalReviews = mongoTemplate.count(query, Review.class);
+        long totalReviews = filtered ? mongoTemplate.count(query, Review.class) : course.getReviewCount();
 
         query.with(PageRequest.of(offset / limit, limit));
 
-        List<ReviewDto> reviews = mongoTemplate.find(query, Review.class)
+        List<ReviewDto> reviews = mongoTemplate.find(ReviewProjection.listing(query), Review.class)
                 .stream()
                 .map(review -> modelMapper.map(review, ReviewDto.class))
                 .collect(Collectors.toList());
 
-        boolean hasUserReviewed = userId != null && !userId.equals("null") && mongoTemplate.exists(new Query(Criteria.where("userId").is(userId).and("courseId").is(id)), Review.class);
+        return new CourseReviewsDto()
+                .setCourse(course)
+                .setReviews(reviews)
+                .setTotalReviews(totalReviews);
+    }
+
+    /**
+     * Retrieves a course along with a page of its reviews using keyset pagination.
+     * Each page seeks past the last review of the previous one, so deep pages cost the same as the first.
+     * The total comes from the maintained review count, or is counted once for the first page of a chain
+     * filtered by instructor and carried in the cursor.
+     *
+     * @param id       The unique identifier for the course.
+     * @param limit    The maximum number of reviews to return.
+     * @param cursor   The cursor returned with the previous page, or blank for the first page.
+     * @param sortType The sorting criteria to apply to the reviews.
+     * @return A {@link CourseReviewsDto} object containing the course, its reviews and the cursor of the next page.
+     */
+    @Cacheable(value = "courseReviewsCache", key = "{#id, 'course-cursor', #limit, #cursor, #sortType.hashCode()}")
+    @Override
+    public CourseReviewsDto getCourseAndReviewsByIdWithCursor(String id, int limit, String cursor, ReviewSortingDto sortType) {
+        log.info("Retrieving course and reviews with ID {} with limit {}, cursor {}, and sorting {}", id, limit, cursor, sortType);
+        CourseDto course = getCourseById(id);
+
+        Criteria criteria = Criteria.where("courseId").is(id);
+        boolean filtered = sortType.getSelectedInstructor() != null && !sortType.getSelectedInstructor().isBlank();
+        if (filtered) {
+            criteria = criteria.and("instructorId").is(sortType.getSelectedInstructor());
+        }
+
+        String sortField = reviewSortField(sortType);
+        Sort.Direction direction = reviewSortDirection(sortType);
+        long totalReviews;
+        Query query = new Query(criteria);
+        if (cursor == null || cursor.isBlank()) {
+            totalReviews = filtered ? mongoTemplate.count(query, Review.class) : course.getReviewCount();
+        } else {
+            ReviewCursor after = ReviewCursor.decode(cursor, sortField, direction);
+            totalReviews = after.total();
+            query.addCriteria(after.criteria());
+        }
+        query.with(ReviewCursor.sort(sortField, direction)).limit(limit);
+
+        List<Review> page = mongoTemplate.find(ReviewProjection.listing(query), Review.class);
+        List<ReviewDto> reviews = page.stream()
+                .map(review -> modelMapper.map(review, ReviewDto.class))
+                .collect(Collectors.toList());
+        String nextCursor = page.size() < limit ? null
+                : ReviewCursor.after(page.get(page.size() - 1), sortField, direction, totalReviews).encode();
 
         return new CourseReviewsDto()
                 .setCourse(course)
                 .setReviews(reviews)
                 .setTotalReviews(totalReviews)
-                .setHasUserReviewed(hasUserReviewed);
-
+                .setNextCursor(nextCursor);
     }
 
     /**
@@ -191,63 +229,20 @@ public class CourseServiceImpl implements CourseService {
         BulkWriteResult result = bulkOps.execute();
         log.info("Courses batch update completed. Matched: {}, Modified: {}, Upserts: {}",
                 result.getMatchedCount(), result.getModifiedCount(), result.getUpserts().size());
+
+        if (!result.getUpserts().isEmpty()) {
+            searchIndexService.rebuild();
+        }
     }
 
     /**
      * Updates the statistics for all courses in the repository.
-     * This method calculates the average difficulty and experience ratings for each course based on reviews.
+     * The average difficulty and experience ratings are computed for every course in a single aggregation over the reviews.
      */
     @Override
     public void updateCoursesStatistics() {
         log.info("Updating courses statistics");
-        List<Course> courses = courseRepository.findAll();
-
-        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Course.class);
-
-        for (Course course : courses) {
-            Query query = new Query(Criteria.where("_id").is(course.get_id()));
-            List<Review> reviews = mongoTemplate.find(new Query(Criteria.where("courseId").is(course.get_id())), Review.class);
-
-            double avgDifficulty = reviews.stream().mapToDouble(Review::getDifficulty).average().orElse(0);
-            double avgExperienceAndRating = reviews.stream().mapToDouble(review ->
-                    "course".equals(review.getType()) ? review.getExperience() : review.getRating()).average().orElse(0);
-
-            Map<Integer, Long> difficultyCount = reviews.stream()
-                    .collect(Collectors.groupingBy(Review::getDifficulty, Collectors.counting()));
-            Map<Integer, Long> experienceCount = reviews.stream()
-                    .mapToInt(r -> "course".equals(r.getType()) ? r.getExperience() : r.getRating())
-                    .boxed()
-                    .collect(Collectors.groupingBy(i -> i, Collectors.counting()));
-
-            int[] difficultyDistribution = {
-                    Math.toIntExact(difficultyCount.getOrDefault(1, 0L)),
-                    Math.toIntExact(difficultyCount.getOrDefault(2, 0L)),
-                    Math.toIntExact(difficultyCount.getOrDefault(3, 0L)),
-                    Math.toIntExact(difficultyCount.getOrDefault(4, 0L)),
-                    Math.toIntExact(difficultyCount.getOrDefault(5, 0L))
-            };
-
-            int[] experienceDistribution = {
-                    Math.toIntExact(experienceCount.getOrDefault(1, 0L)),
-                    Math.toIntExact(experienceCount.getOrDefault(2, 0L)),
-                    Math.toIntExact(experienceCount.getOrDefault(3, 0L)),
-                    Math.toIntExact(experienceCount.getOrDefault(4, 0L)),
-                    Math.toIntExact(experienceCount.getOrDefault(5, 0L))
-            };
-
-            Update update = new Update()
-                    .set("difficultyDistribution", difficultyDistribution)
-                    .set("experienceDistribution", experienceDistribution)
-                    .set("avgDifficulty", avgDifficulty)
-                    .set("avgExperience", avgExperienceAndRating)
-                    .set("reviewCount", reviews.size());
-
-            bulkOps.upsert(query, update);
-        }
-
-        BulkWriteResult result = bulkOps.execute();
-        log.info("Courses statistics batch update completed. Modified: {}, Upserts: {}",
-                result.getModifiedCount(), result.getUpserts().size());
+        reviewStatisticsService.recomputeAllCourseStatistics();
     }
 
     @Cacheable(value = "courseInstructorsCache", key = "#id")
@@ -446,6 +441,25 @@ public class CourseServiceImpl implements CourseService {
     }
 
 
+    private static String reviewSortField(ReviewSortingDto sortType) {
+        if (sortType.getSortType() == null) {
+            return "timestamp";
+        }
+        return switch (sortType.getSortType()) {
+            case Difficulty -> "difficulty";
+            case Rating, Experience -> "experience";
+            case Likes -> "likes";
+            default -> "timestamp";
+        };
+    }
+
+    private static Sort.Direction reviewSortDirection(ReviewSortingDto sortType) {
+        if (sortType.getSortType() == null) {
+            return Sort.Direction.DESC;
+        }
+        return sortType.isReverse() ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
     private RuntimeException exception(String... args) {
         return CustomExceptionFactory.throwCustomException(EntityType.COURSE, ExceptionType.ENTITY_NOT_FOUND, args);
     }
@@ -0,0 +1,342 @@
+package courses.concordia.service.implementation;
+
+import courses.concordia.config.EmailOutboxConfigProperties;
+import courses.concordia.model.EmailMessage;
+import courses.concordia.service.EmailOutboxService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static courses.concordia.model.EmailMessage.Status.*;
+
+/**
+ * Durable outbox for outgoing mail.
+ * Mails are stored in MongoDB when requested and sent later by a bounded pool of workers, so request threads never
+ * wait on template rendering or SMTP. A batch is only claimed once a worker is free to send it, with a lease owned
+ * by that claim, and is sent over one SMTP connection. Failed mails are retried with exponential backoff and
+ * dead-lettered after the last attempt; mails claimed by a worker that died are picked up again once their lease
+ * expires, and the worker that lost them records nothing more about them.
+ */
+@Service
+@Slf4j
+public class EmailOutboxServiceImpl implements EmailOutboxService {
+    private static final String UTF_8_ENCODING = "UTF-8";
+
+    private final MongoTemplate mongoTemplate;
+    private final JavaMailSender emailSender;
+    private final TemplateEngine templateEngine;
+    private final EmailOutboxConfigProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor workers;
+    // One permit per worker, held from the claim of a batch until it is sent
+    private final Semaphore slots;
+    // Runs the drains requested on enqueue; one pending request is enough since a drain takes everything due
+    private final ThreadPoolExecutor dispatcher;
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public EmailOutboxServiceImpl(MongoTemplate mongoTemplate, JavaMailSender emailSender, TemplateEngine templateEngine,
+                                  EmailOutboxConfigProperties properties, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.emailSender = emailSender;
+        this.templateEngine = templateEngine;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getWorkers()), threadFactory("email-outbox-"));
+        this.slots = new Semaphore(properties.getWorkers());
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), threadFactory("email-outbox-dispatch-"), new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Stores a mail in the outbox and wakes the workers up.
+     *
+     * @param template  The Thymeleaf template of the body.
+     * @param to        The recipient's email address.
+     * @param subject   The subject of the email.
+     * @param variables The variables of the template.
+     */
+    @Override
+    public void enqueue(String template, String to, String subject, Map<String, Object> variables) {
+        LocalDateTime now = LocalDateTime.now();
+        EmailMessage message = new EmailMessage()
+                .setTemplate(template)
+                .setTo(to)
+                .setSubject(subject)
+                .setVariables(variables)
+                .setCreatedAt(now)
+                .setNextAttemptAt(now);
+        mongoTemplate.insert(message);
+        meterRegistry.counter("email.outbox.enqueued", "template", template).increment();
+        dispatcher.execute(this::drain);
+    }
+
+    /**
+     * Claims the mails due for sending in batches and hands each batch to a free worker, until every worker is busy.
+     * Runs on a fixed delay to pick up retries and mails enqueued on other nodes.
+     */
+    @Scheduled(fixedDelayString = "#{@emailOutboxConfigProperties.pollInterval.toMillis()}")
+    @Override
+    public void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (slots.tryAcquire()) {
+                boolean handedOff = false;
+                try {
+                    List<EmailMessage> batch = claim(properties.getBatchSize());
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    workers.execute(() -> {
+                        try {
+                            deliver(batch);
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                    handedOff = true;
+                } finally {
+                    if (!handedOff) {
+                        slots.release();
+                    }
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            log.info("Email outbox workers are shutting down, claimed mails will be retried after their lease");
+        } catch (Exception e) {
+            log.error("Failed to drain the email outbox", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        dispatcher.shutdownNow();
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Leases up to {@code limit} mails that are due, or whose previous lease expired, under a new owner
+     * and counts an attempt for each.
+     */
+    private List<EmailMessage> claim(int limit) {
+        String owner = UUID.randomUUID().toString();
+        List<EmailMessage> batch = new ArrayList<>();
+        while (batch.size() < limit) {
+            LocalDateTime now = LocalDateTime.now();
+            Query query = new Query(new Criteria().orOperator(
+                    Criteria.where("status").is(PENDING).and("nextAttemptAt").lte(now),
+                    Criteria.where("status").is(SENDING).and("lockedUntil").lte(now)))
+                    .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+            Update update = new Update()
+                    .set("status", SENDING)
+                    .set("owner", owner)
+                    .set("lockedUntil", now.plus(properties.getLease()))
+                    .inc("attempts", 1);
+            EmailMessage message = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), EmailMessage.class);
+            if (message == null) {
+                break;
+            }
+            batch.add(message);
+        }
+        return batch;
+    }
+
+    /**
+     * Renders a batch, renews its lease and sends the mails still leased over a single SMTP connection,
+     * then records the outcome of each mail.
+     */
+    private void deliver(List<EmailMessage> batch) {
+        Map<MimeMessage, EmailMessage> prepared = new LinkedHashMap<>();
+        for (EmailMessage message : batch) {
+            try {
+                prepared.put(render(message), message);
+            } catch (Exception e) {
+                failed(message, e);
+            }
+        }
+        prepared.values().retainAll(renewLease(prepared.values()));
+        if (prepared.isEmpty()) {
+            return;
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            emailSender.send(prepared.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages().isEmpty() ? allFailed(prepared.keySet(), e) : e.getFailedMessages();
+        } catch (MailException e) {
+            failures = allFailed(prepared.keySet(), e);
+        } finally {
+            sample.stop(meterRegistry.timer("email.outbox.batch"));
+        }
+
+        for (Map.Entry<MimeMessage, EmailMessage> entry : prepared.entrySet()) {
+            Exception failure = failures.get(entry.getKey());
+            if (failure != null) {
+                failed(entry.getValue(), failure);
+            } else {
+                sent(entry.getValue());
+            }
+        }
+    }
+
+    private MimeMessage render(EmailMessage message) throws MessagingException {
+        MimeMessage mimeMessage = emailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, true, UTF_8_ENCODING);
+
+        Context context = new Context();
+        if (message.getVariables() != null) {
+            context.setVariables(message.getVariables());
+        }
+
+        String htmlContent = templateEngine.process(message.getTemplate(), context);
+        helper.setFrom(properties.getFrom());
+        helper.setTo(message.getTo());
+        helper.setSubject(message.getSubject());
+        helper.setText(htmlContent, true);
+        return mimeMessage;
+    }
+
+    /**
+     * Extends the lease of the mails about to be sent.
+     *
+     * @return The mails whose lease this worker still holds, the others were claimed again and are left alone.
+     */
+    private List<EmailMessage> renewLease(Collection<EmailMessage> messages) {
+        if (messages.isEmpty()) {
+            return List.of();
+        }
+        String owner = messages.iterator().next().getOwner();
+        List<String> ids = messages.stream().map(EmailMessage::get_id).toList();
+        Query owned = new Query(Criteria.where("_id").in(ids).and("owner").is(owner).and("status").is(SENDING));
+        long renewed = mongoTemplate.updateMulti(owned, new Update().set("lockedUntil", LocalDateTime.now().plus(properties.getLease())),
+                EmailMessage.class).getMatchedCount();
+        if (renewed == messages.size()) {
+            return new ArrayList<>(messages);
+        }
+
+        owned.fields().include("_id");
+        Set<String> stillOwned = new HashSet<>();
+        mongoTemplate.find(owned, EmailMessage.class).forEach(message -> stillOwned.add(message.get_id()));
+        List<EmailMessage> kept = new ArrayList<>();
+        for (EmailMessage message : messages) {
+            if (stillOwned.contains(message.get_id())) {
+                kept.add(message);
+            } else {
+                log.warn("Lease on {} mail to {} was taken over, leaving it to the new owner", message.getTemplate(), message.getTo());
+                count(message, "lease_lost");
+            }
+        }
+        return kept;
+    }
+
+    private void sent(EmailMessage message) {
+        Update update = new Update()
+                .set("status", SENT)
+                .set("sentAt", LocalDateTime.now())
+                .unset("lockedUntil")
+                .unset("owner")
+                .unset("lastError");
+        if (!updateOwned(message, update)) {
+            log.warn("Lease on {} mail to {} was taken over while it was sent, it may be sent again", message.getTemplate(), message.getTo());
+            count(message, "lease_lost");
+            return;
+        }
+        count(message, "sent");
+    }
+
+    private void failed(EmailMessage message, Exception e) {
+        Update update = new Update()
+                .unset("lockedUntil")
+                .unset("owner")
+                .set("lastError", String.valueOf(e.getMessage()));
+        boolean dead = message.getAttempts() >= properties.getMaxAttempts();
+        Duration backoff = backoff(message.getAttempts());
+        if (dead) {
+            update.set("status", DEAD);
+        } else {
+            update.set("status", PENDING).set("nextAttemptAt", LocalDateTime.now().plus(backoff));
+        }
+        if (!updateOwned(message, update)) {
+            log.warn("Lease on {} mail to {} was taken over before its failure was recorded: {}", message.getTemplate(), message.getTo(), e.getMessage());
+            count(message, "lease_lost");
+            return;
+        }
+        if (dead) {
+            log.error("Dead-lettering {} mail to {} after {} attempts", message.getTemplate(), message.getTo(), message.getAttempts(), e);
+            count(message, "dead");
+        } else {
+            log.warn("Failed to send {} mail to {}, retrying in {}: {}", message.getTemplate(), message.getTo(), backoff, e.getMessage());
+            count(message, "retry");
+        }
+    }
+
+    /**
+     * Updates the mail only while this worker still holds its lease.
+     *
+     * @return Whether the lease was still held.
+     */
+    private boolean updateOwned(EmailMessage message, Update update) {
+        Query query = new Query(Criteria.where("_id").is(message.get_id())
+                .and("owner").is(message.getOwner())
+                .and("status").is(SENDING));
+        return mongoTemplate.updateFirst(query, update, EmailMessage.class).getMatchedCount() > 0;
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : backoff;
+    }
+
+    private void count(EmailMessage message, String result) {
+        meterRegistry.counter("email.outbox.messages", "template", message.getTemplate(), "result", result).increment();
+    }
+
+    private static Map<Object, Exception> allFailed(Collection<MimeMessage> messages, Exception e) {
+        Map<Object, Exception> failures = new IdentityHashMap<>();
+        messages.forEach(message -> failures.put(message, e));
+        return failures;
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,80 +1,48 @@
 package courses.concordia.service.implementation;
 
+import courses.concordia.service.EmailOutboxService;
 import courses.concordia.service.EmailService;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Composes the application mails and places them in the {@link EmailOutboxService}, which renders and sends them
+ * in the background. None of these methods wait on SMTP.
+ */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    private final JavaMailSender emailSender;
-    private final TemplateEngine templateEngine;
+    private final EmailOutboxService emailOutboxService;
     public static final String NEW_USER_ACCOUNT_VERIFICATION = "New User Account Verification";
     public static final String NEW_VERIFICATION_TOKEN = "New Verification Code";
     public static final String RESET_PASSWORD_TOKEN = "Reset Password";
     public static final String RESET_PASSWORD_CONFIRMATION = "Password Reset Confirmation";
 
-    public static final String UTF_8_ENCODING = "UTF-8";
-
     @Override
     public void sendFailureMailMessage(String name, String to, String errorMessage) {
-        try {
-            MimeMessage message = emailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, UTF_8_ENCODING);
-
-            Context context = new Context();
-            context.setVariable("name", name);
-            context.setVariable("errorMessage", errorMessage);
-
-            String htmlContent = templateEngine.process("rmpScrapingFailure", context);
-            helper.setFrom("cdpl4ter@gmail.com");
-            helper.setTo(to);
-            helper.setSubject("RMP Scraping Failure - " + LocalDate.now());
-            helper.setText(htmlContent, true);
-
-            emailSender.send(message);
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
-            throw new RuntimeException(e.getMessage());
-        }    }
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", name);
+        variables.put("errorMessage", errorMessage);
+        emailOutboxService.enqueue("rmpScrapingFailure", to, "RMP Scraping Failure - " + LocalDate.now(), variables);
+    }
 
     @Override
     public void sendSuccessMailMessage(String name, String to, String startTime, String endTime, int recordCount) {
-        try {
-            MimeMessage message = emailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, UTF_8_ENCODING);
-
-            Context context = new Context();
-            context.setVariable("name", name);
-            context.setVariable("startTime", startTime);
-            context.setVariable("endTime", endTime);
-            context.setVariable("recordCount", recordCount);
-
-            String htmlContent = templateEngine.process("rmpScrapingSuccess", context);
-            helper.setFrom("cdpl4ter@gmail.com");
-            helper.setTo(to);
-            helper.setSubject("RMP Scraping Success - " + LocalDate.now());
-            helper.setText(htmlContent, true);
-
-            emailSender.send(message);
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
-            throw new RuntimeException(e.getMessage());
-        }
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", name);
+        variables.put("startTime", startTime);
+        variables.put("endTime", endTime);
+        variables.put("recordCount", recordCount);
+        emailOutboxService.enqueue("rmpScrapingSuccess", to, "RMP Scraping Success - " + LocalDate.now(), variables);
     }
 
     /**
@@ -85,7 +53,6 @@ public class EmailServiceImpl implements EmailService {
      * @param token The verification token to be included in the email.
      */
     @Override
-    @Async
     public void sendSimpleMailMessage(String name, String to, String token) {
         sendHtmlEmail(name, to, token, NEW_USER_ACCOUNT_VERIFICATION, "newUserVerification");
     }
@@ -126,7 +93,7 @@ public class EmailServiceImpl implements EmailService {
     }
 
     /**
-     * Helper method to send an HTML email using Thymeleaf template engine.
+     * Helper method to queue an HTML email rendered from a Thymeleaf template.
      *
      * @param name         The name of the recipient.
      * @param to           The recipient's email address.
@@ -135,25 +102,10 @@ public class EmailServiceImpl implements EmailService {
      * @param templateName The name of the Thymeleaf template to be used.
      */
     private void sendHtmlEmail(String name, String to, String token, String subject, String templateName) {
-        try {
-            MimeMessage message = emailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, UTF_8_ENCODING);
-
-            Context context = new Context();
-            context.setVariable("name", name);
-            context.setVariable("token", token);
-
-            String htmlContent = templateEngine.process(templateName, context);
-            helper.setFrom("cdpl4ter@gmail.com");
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
-
-            emailSender.send(message);
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
-            throw new RuntimeException(e.getMessage());
-        }
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", name);
+        variables.put("token", token);
+        emailOutboxService.enqueue(templateName, to, subject, variables);
     }
 
     @Override
@@ -167,32 +119,17 @@ public class EmailServiceImpl implements EmailService {
             int totalSchedules,
             int updatedCourses,
             Map<String, Integer> retentionReasons) {
-        try {
-            MimeMessage message = emailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, UTF_8_ENCODING);
-
-            Context context = new Context();
-            context.setVariable("name", name);
-            context.setVariable("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-            context.setVariable("startTime", startTime);
-            context.setVariable("endTime", endTime);
-            context.setVariable("duration", formatDuration(duration));
-            context.setVariable("totalCourses", totalCourses);
-            context.setVariable("totalSchedules", totalSchedules);
-            context.setVariable("updatedCourses", updatedCourses);
-            context.setVariable("retentionReasons", retentionReasons);
-
-            String htmlContent = templateEngine.process("enrollmentUpdateReport", context);
-            helper.setFrom("cdpl4ter@gmail.com");
-            helper.setTo(to);
-            helper.setSubject("Course Enrollment Update Report - " + LocalDate.now());
-            helper.setText(htmlContent, true);
-
-            emailSender.send(message);
-        } catch (Exception e) {
-            log.error("Failed to send enrollment update report", e);
-            throw new RuntimeException(e.getMessage());
-        }
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", name);
+        variables.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        variables.put("startTime", startTime);
+        variables.put("endTime", endTime);
+        variables.put("duration", formatDuration(duration));
+        variables.put("totalCourses", totalCourses);
+        variables.put("totalSchedules", totalSchedules);
+        variables.put("updatedCourses", updatedCourses);
+        variables.put("retentionReasons", retentionReasons);
+        emailOutboxService.enqueue("enrollmentUpdateReport", to, "Course Enrollment Update Report - " + LocalDate.now(), variables);
     }
 
     private String formatDuration(long milliseconds) {
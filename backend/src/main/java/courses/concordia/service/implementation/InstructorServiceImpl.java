@@ -14,7 +14,11 @@ import courses.concordia.model.Instructor;
 import courses.concordia.model.Review;
 import courses.concordia.repository.InstructorRepository;
 import courses.concordia.service.InstructorService;
+import courses.concordia.service.ReviewStatisticsService;
+import courses.concordia.service.SearchIndexService;
 import courses.concordia.util.JsonUtils;
+import courses.concordia.util.ReviewCursor;
+import courses.concordia.util.ReviewProjection;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
@@ -24,14 +28,13 @@ import org.springframework.data.domain.*;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
@@ -39,6 +42,8 @@ import java.util.stream.Collectors;
 @Service
 public class InstructorServiceImpl implements InstructorService {
     private final InstructorRepository instructorRepository;
+    private final ReviewStatisticsService reviewStatisticsService;
+    private final SearchIndexService searchIndexService;
     private final MongoTemplate mongoTemplate;
     private final ModelMapper modelMapper;
 
@@ -83,23 +88,24 @@ public class InstructorServiceImpl implements InstructorService {
     /**
      * Retrieves an instructor along with its reviews based on his id, with pagination.
      * The results are cached to improve performance on subsequent calls with the same id.
+     * The page is the same for every user, the part specific to the requester is added by {@link courses.concordia.service.ReviewOverlayService}.
      *
      * @param id       The unique identifier for the instructor.
      * @param limit    The maximum number of reviews to return.
      * @param offset   The offset from the start of the dataset for paging.
-     * @param userId  The unique identifier of the user requesting the reviews.
      * @param sortType The sorting criteria to apply to the reviews.
      * @return A {@link InstructorReviewsDto} object containing the instructor and its reviews.
      */
     @Cacheable(value = "instructorReviewsCache", key = "{#id, 'instructor', #limit, #offset, #sortType.hashCode()}")
     @Override
-    public InstructorReviewsDto getInstructorAndReviewsByIdPaginated(String id, int limit, int offset, String userId, ReviewSortingDto sortType) {
+    public InstructorReviewsDto getInstructorAndReviewsByIdPaginated(String id, int limit, int offset, ReviewSortingDto sortType) {
         log.info("Retrieving instructor and reviews with id {} with pagination: limit={}, offset={}, sortType={}", id, limit, offset, sortType);
         InstructorDto instructor = getInstructorById(id);
 
         Criteria criteria = Criteria.where("instructorId").is(id);
 
-        if (sortType.getSelectedCourse() != null && !sortType.getSelectedCourse().isBlank()) {
+        boolean filtered = sortType.getSelectedCourse() != null && !sortType.getSelectedCourse().isBlank();
+        if (filtered) {
             criteria = criteria.and("courseId").is(sortType.getSelectedCourse());
         }
 
@@ -107,119 +113,83 @@ public class InstructorServiceImpl implements InstructorService {
 
         if (sortType.getSortType() != null) {
             log.info("Applying sort by {} in {} order", sortType.getSortType(), sortType.isReverse() ? "DESC" : "ASC");
-            switch (sortType.getSortType()) {
-                case Difficulty:
-                    query.with(Sort.by(sortType.isReverse() ? Sort.Direction.DESC : Sort.Direction.ASC, "difficulty"));
-                    break;
-                case Rating, Experience:
-                    query.with(Sort.by(sortType.isReverse() ? Sort.Direction.DESC : Sort.Direction.ASC, "rating"));
-                    break;
-                case Likes:
-                    query.with(Sort.by(sortType.isReverse() ? Sort.Direction.DESC : Sort.Direction.ASC, "likes"));
-                    break;
-                case Recent:
-                    query.with(Sort.by(sortType.isReverse() ? Sort.Direction.DESC : Sort.Direction.ASC, "timestamp"));
-                    break;
-                default:
-                    query.with(Sort.by(Sort.Direction.DESC, "timestamp"));
-                    break;
-            }
+            query.with(Sort.by(reviewSortDirection(sortType), reviewSortField(sortType)));
         }
 
-        long totalReviews = mongoTemplate.count(query, Review.class);
+        long totalReviews = filtered ? mongoTemplate.count(query, Review.class) : instructor.getReviewCount();
 
         query.with(PageRequest.of(offset / limit, limit));
 
-        List<ReviewDto> reviews = mongoTemplate.find(query, Review.class)
+        List<ReviewDto> reviews = mongoTemplate.find(ReviewProjection.listing(query), Review.class)
                 .stream()
                 .map(review -> modelMapper.map(review, ReviewDto.class))
                 .collect(Collectors.toList());
 
-        boolean hasUserReviewed = userId != null && !userId.equals("null") && mongoTemplate.exists(new Query(Criteria.where("userId").is(userId).and("instructorId").is(id)), Review.class);
-
         return new InstructorReviewsDto()
                 .setInstructor(instructor)
                 .setReviews(reviews)
-                .setTotalReviews(totalReviews)
-                .setHasUserReviewed(hasUserReviewed);
+                .setTotalReviews(totalReviews);
     }
 
     /**
-     * Updates the statistics for all instructors in the repository.
-     * This method calculates the average difficulty and rating ratings for each instructor based on reviews.
+     * Retrieves an instructor along with a page of its reviews using keyset pagination.
+     * Each page seeks past the last review of the previous one, so deep pages cost the same as the first.
+     * The total comes from the maintained review count, or is counted once for the first page of a chain
+     * filtered by course and carried in the cursor.
+     *
+     * @param id       The unique identifier for the instructor.
+     * @param limit    The maximum number of reviews to return.
+     * @param cursor   The cursor returned with the previous page, or blank for the first page.
+     * @param sortType The sorting criteria to apply to the reviews.
+     * @return A {@link InstructorReviewsDto} object containing the instructor, its reviews and the cursor of the next page.
      */
+    @Cacheable(value = "instructorReviewsCache", key = "{#id, 'instructor-cursor', #limit, #cursor, #sortType.hashCode()}")
     @Override
-    public void updateInstructorsStatistics() {
-        log.info("Updating Instructors statistics");
-
-        List<Instructor> instructors = instructorRepository.findAll();
-        List<Instructor> updatedInstructors = new ArrayList<>();
-
-        for (Instructor instructor : instructors) {
-            Query query = new Query(Criteria.where("instructorId").is(instructor.get_id()));
-            List<Review> reviews = mongoTemplate.find(query, Review.class);
-
-            double avgDifficulty = reviews.stream().mapToDouble(Review::getDifficulty).average().orElse(0.0);
-            double avgExperienceAndRating = reviews.stream()
-                    .mapToDouble(review -> "course".equals(review.getType()) ? review.getExperience() : review.getRating())
-                    .average().orElse(0.0);
-
-            Set<Instructor.Tag> tags = reviews.stream()
-                    .map(Review::getTags)
-                    .flatMap(Set::stream)
-                    .collect(Collectors.toSet());
-
-            Set<Instructor.Course> courses = reviews.stream()
-                    .filter(review -> review.getCourseId() != null && !review.getCourseId().isBlank())
-                    .map(review -> {
-                        String courseId = review.getCourseId();
-                        String schoolId = review.getSchoolId();
-
-                        if (courseId.startsWith("CEWPMOD") || courseId.startsWith("CEBDMOD")
-                                || courseId.startsWith("CEENMOD") || courseId.startsWith("CEBUMOD")) {
-                            int splitIndex = courseId.indexOf("MOD");
-                            return new Instructor.Course(courseId.substring(0, splitIndex), courseId.substring(splitIndex), schoolId);
-                        }
-
-                        Matcher matcher = Pattern.compile("(\\D*)(\\d.*)").matcher(courseId);
-                        return matcher.matches()
-                                ? new Instructor.Course(matcher.group(1), matcher.group(2), schoolId)
-                                : null;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toSet());
-
-            Map<Integer, Long> difficultyCount = reviews.stream()
-                    .collect(Collectors.groupingBy(Review::getDifficulty, Collectors.counting()));
-
-            int[] difficultyDistribution = new int[5];
-            for (int i = 1; i <= 5; i++) {
-                difficultyDistribution[i - 1] = Math.toIntExact(difficultyCount.getOrDefault(i, 0L));
-            }
+    public InstructorReviewsDto getInstructorAndReviewsByIdWithCursor(String id, int limit, String cursor, ReviewSortingDto sortType) {
+        log.info("Retrieving instructor and reviews with id {} with limit {}, cursor {}, and sorting {}", id, limit, cursor, sortType);
+        InstructorDto instructor = getInstructorById(id);
 
-            Map<Integer, Long> ratingCount = reviews.stream()
-                    .mapToInt(review -> "course".equals(review.getType()) ? review.getExperience() : review.getRating())
-                    .boxed()
-                    .collect(Collectors.groupingBy(i -> i, Collectors.counting()));
+        Criteria criteria = Criteria.where("instructorId").is(id);
+        boolean filtered = sortType.getSelectedCourse() != null && !sortType.getSelectedCourse().isBlank();
+        if (filtered) {
+            criteria = criteria.and("courseId").is(sortType.getSelectedCourse());
+        }
 
-            int[] ratingDistribution = new int[5];
-            for (int i = 1; i <= 5; i++) {
-                ratingDistribution[i - 1] = Math.toIntExact(ratingCount.getOrDefault(i, 0L));
-            }
+        String sortField = reviewSortField(sortType);
+        Sort.Direction direction = reviewSortDirection(sortType);
+        long totalReviews;
+        Query query = new Query(criteria);
+        if (cursor == null || cursor.isBlank()) {
+            totalReviews = filtered ? mongoTemplate.count(query, Review.class) : instructor.getReviewCount();
+        } else {
+            ReviewCursor after = ReviewCursor.decode(cursor, sortField, direction);
+            totalReviews = after.total();
+            query.addCriteria(after.criteria());
+        }
+        query.with(ReviewCursor.sort(sortField, direction)).limit(limit);
 
-            instructor.setDifficultyDistribution(difficultyDistribution);
-            instructor.setRatingDistribution(ratingDistribution);
-            instructor.setTags(tags);
-            instructor.addCourses(courses);
-            instructor.setAvgRating(avgExperienceAndRating);
-            instructor.setAvgDifficulty(avgDifficulty);
-            instructor.setReviewCount(reviews.size());
+        List<Review> page = mongoTemplate.find(ReviewProjection.listing(query), Review.class);
+        List<ReviewDto> reviews = page.stream()
+                .map(review -> modelMapper.map(review, ReviewDto.class))
+                .collect(Collectors.toList());
+        String nextCursor = page.size() < limit ? null
+                : ReviewCursor.after(page.get(page.size() - 1), sortField, direction, totalReviews).encode();
 
-            updatedInstructors.add(instructor);
-        }
+        return new InstructorReviewsDto()
+                .setInstructor(instructor)
+                .setReviews(reviews)
+                .setTotalReviews(totalReviews)
+                .setNextCursor(nextCursor);
+    }
 
-        instructorRepository.saveAll(updatedInstructors);
-        log.info("Instructors statistics updated for {} instructors", updatedInstructors.size());
+    /**
+     * Updates the statistics for all instructors in the repository.
+     * The average difficulty, rating, tags and courses are computed for every instructor in a single aggregation over the reviews.
+     */
+    @Override
+    public void updateInstructorsStatistics() {
+        log.info("Updating Instructors statistics");
+        reviewStatisticsService.recomputeAllInstructorStatistics();
     }
 
     @Override
@@ -239,13 +209,14 @@ public class InstructorServiceImpl implements InstructorService {
                     result.incrementAlreadyExists();
                     // Update existing instructor
                     if (instructor.getCourses() != null && !existingInstructor.getCourses().containsAll(instructor.getCourses())) {
-                        existingInstructor.addCourses(instructor.getCourses());
-                        instructorRepository.save(existingInstructor);
+                        // Only the courses are added, the statistics are maintained by the review writes
+                        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(existingInstructor.get_id())),
+                                new Update().addToSet("courses").each(instructor.getCourses().toArray()), Instructor.class);
                         result.incrementUpdated();
                     }
                 } else {
                     // New Instructor, add it
-                    instructorRepository.save(instructor);
+                    instructorRepository.insert(instructor);
                     result.incrementAdded();
                 }
 
@@ -265,6 +236,10 @@ public class InstructorServiceImpl implements InstructorService {
             log.info("There were errors during processing: {}", result.getErrors());
         }
 
+        if (result.getAddedCount() > 0) {
+            searchIndexService.rebuild();
+        }
+
         return result;
     }
 
@@ -428,6 +403,25 @@ public class InstructorServiceImpl implements InstructorService {
         }
     }
 
+    private static String reviewSortField(ReviewSortingDto sortType) {
+        if (sortType.getSortType() == null) {
+            return "timestamp";
+        }
+        return switch (sortType.getSortType()) {
+            case Difficulty -> "difficulty";
+            case Rating, Experience -> "rating";
+            case Likes -> "likes";
+            default -> "timestamp";
+        };
+    }
+
+    private static Sort.Direction reviewSortDirection(ReviewSortingDto sortType) {
+        if (sortType.getSortType() == null) {
+            return Sort.Direction.DESC;
+        }
+        return sortType.isReverse() ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
     private RuntimeException exception(String... args) {
         return CustomExceptionFactory.throwCustomException(EntityType.INSTRUCTOR, ExceptionType.ENTITY_NOT_FOUND, args);
     }
@@ -0,0 +1,244 @@
+package courses.concordia.service.implementation;
+
+import courses.concordia.config.IntegrityScanConfigProperties;
+import courses.concordia.dto.model.integrity.IntegrityFindingDto;
+import courses.concordia.exception.CustomExceptionFactory;
+import courses.concordia.exception.EntityType;
+import courses.concordia.exception.ExceptionType;
+import courses.concordia.model.*;
+import courses.concordia.service.CacheInvalidationService;
+import courses.concordia.service.IntegrityScanService;
+import courses.concordia.service.ReviewStatisticsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static courses.concordia.util.CacheTags.REVIEW_WRITE_CACHES;
+
+/**
+ * Finds documents whose reference points at a document that no longer exists, and deletes them.
+ * Each relation is an anti-join run by MongoDB: a {@code $lookup} of at most one referenced document per source
+ * document, keeping the ones that found nothing. Only the ids of the orphans are streamed back, and they are deleted
+ * in batches with a pause in between, so a scan uses bounded memory and can run against production.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class IntegrityScanServiceImpl implements IntegrityScanService {
+    private static final String REFERENCE = "reference";
+    private static final String[] REVIEW_CACHES = Stream.concat(Arrays.stream(REVIEW_WRITE_CACHES), Stream.of("homeStatsCache"))
+            .toArray(String[]::new);
+
+    /**
+     * The relations that are checked, in the order they are scanned. Reviews come first so that a single scan
+     * also removes what referenced the reviews it deleted.
+     */
+    private static final Map<String, Relation> RELATIONS = relations(
+            new Relation(REVIEW_INSTRUCTOR, Review.class, Criteria.where("type").is("instructor"),
+                    lookup("instructors", "instructorId", "_id")),
+            new Relation(COURSE_INTERACTION_REVIEW, Interaction.class, Criteria.where("type").is("course"),
+                    lookup("reviews", "userId", "userId", "courseId", "course")),
+            new Relation(INSTRUCTOR_INTERACTION_REVIEW, Interaction.class, Criteria.where("type").is("instructor"),
+                    lookup("reviews", "userId", "userId", "instructorId", "instructor")),
+            new Relation(NOTIFICATION_REVIEW, Notification.class, null,
+                    lookup("reviews", "reviewId", "_id")),
+            new Relation(SUBSCRIPTION_COURSE, Subscription.class, null,
+                    lookup("courses", "courseId", "_id")),
+            new Relation(COMMENT_REVIEW, Comment.class, null,
+                    lookup("reviews", "_id", "comments._id")),
+            new Relation(RESOURCE_LINK_REVIEW, ResourceLink.class, null,
+                    lookup("reviews", "_id", "resourceLinks._id"))
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final ReviewStatisticsService reviewStatisticsService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final IntegrityScanConfigProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * @return The names of the relations that can be scanned.
+     */
+    @Override
+    public Set<String> relations() {
+        return RELATIONS.keySet();
+    }
+
+    /**
+     * Scans the given relations for orphans and deletes them unless this is a dry run.
+     * Only one scan runs at a time on a node.
+     *
+     * @param relations The names of the relations to scan, or all of them when empty.
+     * @param dryRun    If true, orphans are only counted and sampled.
+     * @return The findings of each scanned relation.
+     */
+    @Override
+    public List<IntegrityFindingDto> scan(Collection<String> relations, boolean dryRun) {
+        List<Relation> selected = select(relations);
+        if (!running.compareAndSet(false, true)) {
+            throw CustomExceptionFactory.throwCustomException(EntityType.REVIEW, ExceptionType.CUSTOM_EXCEPTION,
+                    "An integrity scan is already running");
+        }
+        try {
+            List<IntegrityFindingDto> findings = new ArrayList<>();
+            for (Relation relation : selected) {
+                findings.add(scan(relation, dryRun));
+            }
+
+            boolean reviewsDeleted = findings.stream()
+                    .anyMatch(finding -> finding.getDeletedCount() > 0
+                            && RELATIONS.get(finding.getRelation()).source() == Review.class);
+            if (reviewsDeleted) {
+                reviewStatisticsService.recomputeAllCourseStatistics();
+                reviewStatisticsService.recomputeAllInstructorStatistics();
+                cacheInvalidationService.evictAll(REVIEW_CACHES);
+            }
+            return findings;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private IntegrityFindingDto scan(Relation relation, boolean dryRun) {
+        String collection = mongoTemplate.getCollectionName(relation.source());
+        IntegrityFindingDto finding = new IntegrityFindingDto()
+                .setRelation(relation.name())
+                .setCollection(collection);
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (relation.scope() != null) {
+            stages.add(Aggregation.match(relation.scope()));
+        }
+        stages.add(Aggregation.stage(new Document("$lookup", relation.lookup())));
+        stages.add(Aggregation.match(Criteria.where(REFERENCE).size(0)));
+        stages.add(Aggregation.project("_id"));
+        Aggregation aggregation = Aggregation.newAggregation(stages)
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        List<Object> batch = new ArrayList<>(properties.getBatchSize());
+        try (Stream<Document> orphans = mongoTemplate.aggregateStream(aggregation, collection, Document.class)) {
+            Iterator<Document> iterator = orphans.iterator();
+            while (iterator.hasNext()) {
+                Object id = iterator.next().get("_id");
+                finding.setOrphanCount(finding.getOrphanCount() + 1);
+                if (finding.getSampleIds().size() < properties.getSampleSize()) {
+                    finding.getSampleIds().add(String.valueOf(id));
+                }
+                if (dryRun) {
+                    continue;
+                }
+                batch.add(id);
+                if (batch.size() >= properties.getBatchSize()) {
+                    finding.setDeletedCount(finding.getDeletedCount() + delete(collection, batch));
+                    batch.clear();
+                    if (!pause()) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            finding.setDeletedCount(finding.getDeletedCount() + delete(collection, batch));
+        }
+
+        meterRegistry.counter("integrity.orphans", "relation", relation.name(), "result", "found")
+                .increment(finding.getOrphanCount());
+        meterRegistry.counter("integrity.orphans", "relation", relation.name(), "result", "deleted")
+                .increment(finding.getDeletedCount());
+        log.info("Integrity scan of {}: {} orphans found, {} deleted{}", relation.name(),
+                finding.getOrphanCount(), finding.getDeletedCount(), dryRun ? " (dry run)" : "");
+        return finding;
+    }
+
+    private long delete(String collection, List<Object> ids) {
+        return mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), collection).getDeletedCount();
+    }
+
+    /**
+     * Leaves room for foreground traffic between two deletes.
+     *
+     * @return false if the scan was interrupted and should stop.
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.getPauseBetweenBatches().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Integrity scan interrupted, remaining orphans are left for the next scan");
+            return false;
+        }
+    }
+
+    private List<Relation> select(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return List.copyOf(RELATIONS.values());
+        }
+        for (String name : names) {
+            if (!RELATIONS.containsKey(name)) {
+                throw CustomExceptionFactory.throwCustomException(EntityType.REVIEW, ExceptionType.CUSTOM_EXCEPTION,
+                        "Unknown integrity relation: " + name);
+            }
+        }
+        return RELATIONS.values().stream()
+                .filter(relation -> names.contains(relation.name()))
+                .toList();
+    }
+
+    /**
+     * Looks up at most one document of {@code from} whose {@code foreignField} equals the {@code localField}
+     * of the source document.
+     */
+    private static Document lookup(String from, String localField, String foreignField) {
+        return new Document("from", from)
+                .append("localField", localField)
+                .append("foreignField", foreignField)
+                .append("pipeline", List.of(
+                        new Document("$limit", 1),
+                        new Document("$project", new Document("_id", 1))))
+                .append("as", REFERENCE);
+    }
+
+    /**
+     * Same as {@link #lookup(String, String, String)}, also requiring the referenced review to be of the given
+     * type and to have the same value for {@code field}.
+     */
+    private static Document lookup(String from, String localField, String foreignField, String field, String type) {
+        Document lookup = lookup(from, localField, foreignField);
+        lookup.append("let", new Document("value", "$" + field));
+        lookup.put("pipeline", List.of(
+                new Document("$match", new Document("$expr", new Document("$and", List.of(
+                        new Document("$eq", List.of("$" + field, "$$value")),
+                        new Document("$eq", List.of("$type", type)))))),
+                new Document("$limit", 1),
+                new Document("$project", new Document("_id", 1))));
+        return lookup;
+    }
+
+    private static Map<String, Relation> relations(Relation... relations) {
+        Map<String, Relation> byName = new LinkedHashMap<>();
+        for (Relation relation : relations) {
+            byName.put(relation.name(), relation);
+        }
+        return Collections.unmodifiableMap(byName);
+    }
+
+    /**
+     * A reference from the documents of {@code source} matching {@code scope} to another collection.
+     */
+    private record Relation(String name, Class<?> source, Criteria scope, Document lookup) {
+    }
+}
@@ -1,35 +1,83 @@
 package courses.concordia.service.implementation;
 
+import courses.concordia.config.MongoIndexManager;
 import courses.concordia.dto.mapper.InteractionMapper;
 import courses.concordia.dto.model.interaction.InteractionDto;
+import courses.concordia.dto.model.interaction.InteractionLookupDto;
 import courses.concordia.exception.CustomExceptionFactory;
 import courses.concordia.exception.EntityType;
 import courses.concordia.exception.ExceptionType;
 import courses.concordia.model.Interaction;
-import courses.concordia.model.Review;
 import courses.concordia.repository.InteractionRepository;
+import courses.concordia.service.CacheInvalidationService;
 import courses.concordia.service.InteractionService;
+import courses.concordia.service.LikeCounterService;
+import courses.concordia.service.LikeCounterService.VoteTarget;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Caching;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static courses.concordia.util.CacheTags.REVIEW_PAGE_CACHES;
 
 @RequiredArgsConstructor
 @Slf4j
 @Service
 public class InteractionServiceImpl implements InteractionService {
     private final InteractionRepository interactionRepository;
+    private final CacheInvalidationService cacheInvalidationService;
     private final MongoTemplate mongoTemplate;
+    private final LikeCounterService likeCounterService;
+    private static final int MAX_LOOKUP_REVIEWS = 100;
+
+    /**
+     * Removes the duplicate votes of a user on a review, left by concurrent writes before votes were unique,
+     * keeping the latest one. Runs before the unique indexes are built, and only until they are.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void removeDuplicateInteractions() {
+        removeDuplicateInteractions("course", "courseId");
+        removeDuplicateInteractions("instructor", "instructorId");
+    }
+
+    private void removeDuplicateInteractions(String type, String scopeField) {
+        if (MongoIndexManager.isUniqueIndexBuilt(mongoTemplate, Interaction.class, scopeField + "_userId_referrer_type")) {
+            return;
+        }
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("type").is(type)),
+                Aggregation.sort(Sort.Direction.DESC, "_id"),
+                Aggregation.group(scopeField, "userId", "referrer").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        long removed = 0;
+        try (Stream<Document> groups = mongoTemplate.aggregateStream(duplicates, Interaction.class, Document.class)) {
+            for (Iterator<Document> it = groups.iterator(); it.hasNext(); ) {
+                List<Object> ids = it.next().getList("ids", Object.class);
+                removed += mongoTemplate.remove(new Query(Criteria.where("_id").in(ids.subList(1, ids.size()))), Interaction.class)
+                        .getDeletedCount();
+            }
+        }
+        if (removed > 0) {
+            log.info("Removed {} duplicate {} review interactions", removed, type);
+        }
+    }
 
     /**
      * Fetches all interactions a user has for a specific course or instructor.
@@ -58,9 +106,8 @@ public class InteractionServiceImpl implements InteractionService {
      * @return A list of {@link InteractionDto} objects.
      */
     private List<InteractionDto> getUserInteractionsForCourse(String courseId, String referrer, String type) {
-        return interactionRepository.findByCourseIdAndReferrerAndType(courseId, referrer, type).stream()
-                .map(InteractionMapper::toDto)
-                .collect(Collectors.toList());
+        return withPendingVotes(interactionRepository.findByCourseIdAndReferrerAndType(courseId, referrer, type), referrer,
+                likeCounterService.pendingVotes(referrer), target -> type.equals(target.type()) && courseId.equals(target.courseId()));
     }
 
     /**
@@ -72,153 +119,178 @@ public class InteractionServiceImpl implements InteractionService {
      * @return A list of {@link InteractionDto} objects.
      */
     private List<InteractionDto> getUserInteractionsForInstructor(String instructorId, String referrer, String type) {
-        return interactionRepository.findByInstructorIdAndReferrerAndType(instructorId, referrer, type).stream()
-                .map(InteractionMapper::toDto)
-                .collect(Collectors.toList());
+        return withPendingVotes(interactionRepository.findByInstructorIdAndReferrerAndType(instructorId, referrer, type), referrer,
+                likeCounterService.pendingVotes(referrer), target -> type.equals(target.type()) && instructorId.equals(target.instructorId()));
     }
 
     /**
-     * Adjusts the likes count for a review based on user interaction changes.
+     * Fetches the interactions a user has with the reviews of some authors on a course or instructor, such as the
+     * reviews of a page, in one indexed query bounded by the number of authors.
      *
-     * @param courseId    The ID of the course.
-     * @param userId      The ID of the user.
-     * @param likesChange The amount to adjust the likes by.
+     * @param id        The ID of the course or instructor.
+     * @param referrer  The referrer identifier.
+     * @param type      The type of the interaction.
+     * @param authorIds The authors of the reviews.
+     * @return A list of {@link InteractionDto} objects.
      */
-    private void adjustReviewLikes(String courseId, String instructorId, String userId, int likesChange, String ReviewType) {
-        Query reviewQuery = new Query();
-        if (ReviewType.equals("instructor")) {
-            reviewQuery = new Query(Criteria.where("instructorId").is(instructorId).and("userId").is(userId).and("type").is("instructor"));
-        } else if (ReviewType.equals("course")) {
-            reviewQuery = new Query(Criteria.where("courseId").is(courseId).and("userId").is(userId).and("type").is("course"));
+    @Override
+    public List<InteractionDto> getUserInteractions(String id, String referrer, String type, Collection<String> authorIds) {
+        if (!isReviewType(type) || authorIds.isEmpty()) {
+            return Collections.emptyList();
         }
-        Update update = new Update().inc("likes", likesChange);
-        mongoTemplate.updateFirst(reviewQuery, update, Review.class);
+        boolean course = "course".equals(type);
+        Query query = new Query(Criteria.where(course ? "courseId" : "instructorId").is(id)
+                .and("userId").in(authorIds)
+                .and("referrer").is(referrer)
+                .and("type").is(type))
+                .limit(authorIds.size());
+        return withPendingVotes(mongoTemplate.find(query, Interaction.class), referrer, likeCounterService.pendingVotes(referrer),
+                target -> type.equals(target.type()) && id.equals(course ? target.courseId() : target.instructorId())
+                        && authorIds.contains(target.authorId()));
     }
 
     /**
-     * Adds or updates a user interaction for a course, adjusting review likes as necessary.
+     * Overlays the votes of the user not yet flushed to MongoDB on the stored interactions.
      *
-     * @param interactionDto The interaction data transfer object.
-     * @return An updated or new {@link InteractionDto}.
+     * @param stored   The stored interactions of the user.
+     * @param referrer The user.
+     * @param pending  The unflushed votes of the user.
+     * @param scope    The reviews the interactions were fetched for.
+     * @return The current interactions of the user.
      */
-    @Caching(evict = {
-            @CacheEvict(value = "courseReviewsCache", key = "{#interactionDto.courseId, #interactionDto.type}", condition = "#interactionDto.type.equals('course')"),
-            @CacheEvict(value = "instructorReviewsCache", key = "{#interactionDto.instructorId, #interactionDto.type}", condition = "#interactionDto.type.equals('instructor')"),
-            @CacheEvict(value = "coursesCacheWithFilters", allEntries = true, condition = "#interactionDto.type.equals('course')"),
-            @CacheEvict(value = "instructorsCacheWithFilters", allEntries = true, condition = "#interactionDto.type.equals('instructor')"),
-            @CacheEvict(value = "reviewsCacheWithFilters", allEntries = true)
-    })
-    @Override
-    public InteractionDto addOrUpdateInteraction(InteractionDto interactionDto) {
-        // Check if interaction already exists
-        Optional<Interaction> existingInteraction = Optional.empty();
-        if(interactionDto.getType().equals("course")) {
-            existingInteraction = interactionRepository.findByCourseIdAndUserIdAndReferrerAndType(
-                    interactionDto.getCourseId(), interactionDto.getUserId(), interactionDto.getReferrer(), "course");
-        } else if(interactionDto.getType().equals("instructor")) {
-            existingInteraction = interactionRepository.findByInstructorIdAndUserIdAndReferrerAndType(
-                    interactionDto.getInstructorId(), interactionDto.getUserId(), interactionDto.getReferrer(), "instructor");
-        }
-
-        int likesChange = 0;
-        Interaction interaction;
+    private List<InteractionDto> withPendingVotes(List<Interaction> stored, String referrer, Map<VoteTarget, Integer> pending,
+                                                  Predicate<VoteTarget> scope) {
+        Map<VoteTarget, InteractionDto> interactions = new LinkedHashMap<>();
+        stored.forEach(interaction -> interactions.put(VoteTarget.of(interaction), InteractionMapper.toDto(interaction)));
 
-        if (existingInteraction.isPresent()) {
-            interaction = existingInteraction.get();
-            Interaction.InteractionKind currentKind = interaction.getKind();
-            Interaction.InteractionKind newKind = Interaction.InteractionKind.fromValue(interactionDto.getKind());
+        pending.forEach((target, vote) -> {
+            if (!scope.test(target)) {
+                return;
+            }
+            if (vote == 0) {
+                interactions.remove(target);
+            } else {
+                interactions.put(target, new InteractionDto()
+                        .setKind((vote > 0 ? Interaction.InteractionKind.LIKE : Interaction.InteractionKind.DISLIKE).toValue())
+                        .setType(target.type())
+                        .setCourseId(target.courseId())
+                        .setInstructorId(target.instructorId())
+                        .setUserId(target.authorId())
+                        .setReferrer(referrer));
+            }
+        });
+        return new ArrayList<>(interactions.values());
+    }
 
-            if (!currentKind.equals(newKind)) {
-                // Logic to adjust likes based on the change
-                if (currentKind == Interaction.InteractionKind.LIKE && newKind == Interaction.InteractionKind.DISLIKE) {
-                    likesChange = -2; // Switching from like to dislike
-                } else if (currentKind == Interaction.InteractionKind.DISLIKE && newKind == Interaction.InteractionKind.LIKE) {
-                    likesChange = 2; // Switching from dislike to like
-                }
+    /**
+     * Fetches the interactions of a user with the reviews of a page, in one query on the reviews listed rather than
+     * over all the reviews of the course or instructor. At most {@value #MAX_LOOKUP_REVIEWS} reviews may be looked up
+     * at once, so the response never grows past a page.
+     *
+     * @param lookup The user and the reviews on the page.
+     * @return A list of {@link InteractionDto} objects, at most one per review.
+     */
+    @Override
+    public List<InteractionDto> lookupInteractions(InteractionLookupDto lookup) {
+        String type = lookup.getType();
+        if (!isReviewType(type) || lookup.getReferrer() == null || lookup.getReviews() == null) {
+            throw exception(EntityType.INTERACTION, ExceptionType.CUSTOM_EXCEPTION, "Invalid interaction lookup");
+        }
+        Set<VoteTarget> targets = new LinkedHashSet<>();
+        lookup.getReviews().forEach(review -> targets.add(
+                new VoteTarget(type, review.getCourseId(), review.getInstructorId(), review.getUserId())));
+        if (targets.size() > MAX_LOOKUP_REVIEWS) {
+            throw exception(EntityType.INTERACTION, ExceptionType.CUSTOM_EXCEPTION,
+                    "At most " + MAX_LOOKUP_REVIEWS + " reviews can be looked up at once");
+        }
+        if (targets.isEmpty()) {
+            return Collections.emptyList();
+        }
 
-                interaction.setKind(newKind); // Update the kind of interaction
-            }
-        } else {
-            // Create new interaction
-            interaction = new Interaction()
-                    .setKind(Interaction.InteractionKind.fromValue(interactionDto.getKind()))
-                    .setType(interactionDto.getType())
-                    .setCourseId(interactionDto.getCourseId())
-                    .setInstructorId(interactionDto.getInstructorId())
-                    .setUserId(interactionDto.getUserId())
-                    .setReferrer(interactionDto.getReferrer());
-
-            // Determine likesChange for new interaction
-            likesChange = interaction.getKind() == Interaction.InteractionKind.LIKE ? 1 : -1;
+        boolean course = "course".equals(type);
+        Set<String> scopeIds = new HashSet<>();
+        Set<String> authorIds = new HashSet<>();
+        targets.forEach(target -> {
+            scopeIds.add(course ? target.courseId() : target.instructorId());
+            authorIds.add(target.authorId());
+        });
+        if (scopeIds.size() != 1 || scopeIds.contains(null)) {
+            throw exception(EntityType.INTERACTION, ExceptionType.CUSTOM_EXCEPTION,
+                    "The reviews looked up must belong to a single " + type);
         }
 
-        interaction = interactionRepository.save(interaction);
+        Query query = new Query(Criteria.where(course ? "courseId" : "instructorId").is(scopeIds.iterator().next())
+                .and("userId").in(authorIds)
+                .and("referrer").is(lookup.getReferrer())
+                .and("type").is(type))
+                .limit(targets.size());
+        return withPendingVotes(mongoTemplate.find(query, Interaction.class), lookup.getReferrer(),
+                likeCounterService.pendingVotes(lookup.getReferrer(), new ArrayList<>(targets)), targets::contains);
+    }
 
-        // Update likes count on the review only if there is a change
-        if (likesChange != 0) {
-            adjustReviewLikes(interactionDto.getCourseId(), interactionDto.getInstructorId(), interactionDto.getUserId(), likesChange, interactionDto.getType());
+    /**
+     * Adds or updates a user interaction for a course. The vote is recorded by the like counter and written
+     * to MongoDB, with the likes of the review, by its next flush.
+     *
+     * @param interactionDto The interaction data transfer object.
+     * @return The interaction, with the current likes of the review.
+     */
+    @Override
+    public InteractionDto addOrUpdateInteraction(InteractionDto interactionDto) {
+        Interaction.InteractionKind kind = Interaction.InteractionKind.fromValue(interactionDto.getKind());
+        if (kind == null || !isReviewType(interactionDto.getType())) {
+            throw exception(EntityType.INTERACTION, ExceptionType.CUSTOM_EXCEPTION, "Invalid interaction");
         }
 
-        return InteractionMapper.toDto(interaction);
+        int likes = likeCounterService.vote(targetOf(interactionDto), interactionDto.getReferrer(), kind);
+        return new InteractionDto()
+                .setKind(kind.toValue())
+                .setType(interactionDto.getType())
+                .setCourseId(interactionDto.getCourseId())
+                .setInstructorId(interactionDto.getInstructorId())
+                .setUserId(interactionDto.getUserId())
+                .setReferrer(interactionDto.getReferrer())
+                .setLikes(likes);
     }
 
     /**
-     * Deletes a specific interaction for a user based on the course and referrer, adjusting review likes accordingly.
+     * Deletes a specific interaction for a user based on the course and referrer. The removal is recorded by
+     * the like counter and written to MongoDB, with the likes of the review, by its next flush.
      *
      *  @param interactionDto The interaction data transfer object.
      */
-    @Caching(evict = {
-            @CacheEvict(value = "courseReviewsCache", key = "{#interactionDto.courseId, #interactionDto.type}", condition = "#interactionDto.type.equals('course')"),
-            @CacheEvict(value = "instructorReviewsCache", key = "{#interactionDto.instructorId, #interactionDto.type}", condition = "#interactionDto.type.equals('instructor')"),
-            @CacheEvict(value = "coursesCacheWithFilters", allEntries = true, condition = "#interactionDto.type.equals('course')"),
-            @CacheEvict(value = "instructorsCacheWithFilters", allEntries = true, condition = "#interactionDto.type.equals('instructor')"),
-            @CacheEvict(value = "reviewsCacheWithFilters", allEntries = true)
-    })
     @Override
     public void deleteInteraction(InteractionDto interactionDto) {
-        Query query = new Query();
-        if(interactionDto.getType().equals("course")) {
-            query = new Query(Criteria.where("courseId").is(interactionDto.getCourseId())
-                    .and("userId").is(interactionDto.getUserId())
-                    .and("referrer").is(interactionDto.getReferrer())
-                    .and("type").is("course"));
-        } else if(interactionDto.getType().equals("instructor")) {
-            query = new Query(Criteria.where("instructorId").is(interactionDto.getInstructorId())
-                    .and("userId").is(interactionDto.getUserId())
-                    .and("referrer").is(interactionDto.getReferrer())
-                    .and("type").is("instructor"));
+        if (!isReviewType(interactionDto.getType())) {
+            return;
         }
+        likeCounterService.vote(targetOf(interactionDto), interactionDto.getReferrer(), null);
+    }
 
-        Interaction interaction = mongoTemplate.findAndRemove(query, Interaction.class);
-        if (interaction != null) {
-            adjustReviewLikes(interaction.getCourseId(), interaction.getInstructorId(), interactionDto.getUserId(), interaction.getKind() == Interaction.InteractionKind.LIKE ? -1 : 1, interactionDto.getType());
-        }
+    private static boolean isReviewType(String type) {
+        return "course".equals(type) || "instructor".equals(type);
+    }
+
+    private static VoteTarget targetOf(InteractionDto interactionDto) {
+        return new VoteTarget(interactionDto.getType(), interactionDto.getCourseId(),
+                interactionDto.getInstructorId(), interactionDto.getUserId());
     }
 
     /**
-     * Deletes all interactions for a user based on the course.
+     * Deletes all interactions with the review of a user. Takes the fields of the review rather than its id,
+     * since it runs after the review was deleted.
      *
-     * @param id The ID of the review.
-     * @param userId   The ID of the user.
-     * @param type The type of the interaction.
+     * @param courseId     The course of the review.
+     * @param instructorId The instructor of the review.
+     * @param userId       The ID of the user.
+     * @param type         The type of the review.
      */
-    @Caching(evict = {
-            @CacheEvict(value = "courseReviewsCache", key = "{#id, #type}"),
-            @CacheEvict(value = "instructorReviewsCache", key = "{#id, #type}"),
-            @CacheEvict(value = "coursesCacheWithFilters", allEntries = true, condition = "#type.equals('course')"),
-            @CacheEvict(value = "instructorsCacheWithFilters", allEntries = true, condition = "#type.equals('instructor')"),
-            @CacheEvict(value = "reviewsCacheWithFilters", allEntries = true)
-    })
     @Override
-    public void deleteInteractions(String id, String userId, String type) {
-        Review review = mongoTemplate.findById(id, Review.class);
-        if (review == null) {
-            return;
-        }
-
-        Query query = new Query(Criteria.where("instructorId").is(review.getInstructorId()).and("courseId").is(review.getCourseId()).and("userId").is(userId).and("type").is(review.getType()));
+    public void deleteInteractions(String courseId, String instructorId, String userId, String type) {
+        Query query = new Query(Criteria.where("instructorId").is(instructorId).and("courseId").is(courseId).and("userId").is(userId).and("type").is(type));
         mongoTemplate.remove(query, Interaction.class);
-
+        likeCounterService.forget(new VoteTarget(type, courseId, instructorId, userId));
+        evictCachedReviewPages(courseId, instructorId);
     }
 
     /**
@@ -229,9 +301,18 @@ public class InteractionServiceImpl implements InteractionService {
      */
     @Override
     public List<InteractionDto> getUserInteractions(String referrer) {
-        return interactionRepository.findByReferrer(referrer).stream()
-                .map(InteractionMapper::toDto)
-                .collect(Collectors.toList());
+        return withPendingVotes(interactionRepository.findByReferrer(referrer), referrer, likeCounterService.pendingVotes(referrer), target -> true);
+    }
+
+    /**
+     * Evicts the cached review pages showing the likes of the reviews of the course or instructor.
+     *
+     * @param courseId     The ID of the course.
+     * @param instructorId The ID of the instructor.
+     */
+    private void evictCachedReviewPages(String courseId, String instructorId) {
+        cacheInvalidationService.evictByCourse(courseId, REVIEW_PAGE_CACHES);
+        cacheInvalidationService.evictByInstructor(instructorId, REVIEW_PAGE_CACHES);
     }
 
     private RuntimeException exception(EntityType entityType, ExceptionType exceptionType, String... args) {
@@ -3,6 +3,8 @@ package courses.concordia.service.implementation;
 import courses.concordia.config.JwtConfigProperties;
 import courses.concordia.config.RtConfigProperties;
 import courses.concordia.config.TokenType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import courses.concordia.service.JwtService;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
@@ -11,10 +13,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
 import java.util.function.Function;
 
 @Service
@@ -24,6 +28,13 @@ public class JwtServiceImpl implements JwtService {
     private final RtConfigProperties rtConfigProperties;
     private final Key signInKey;
     private final Key refreshKey;
+    // Parsers are immutable and thread-safe, so one is built per token type
+    private final Map<TokenType, JwtParser> parsers = new EnumMap<>(TokenType.class);
+    // Recently verified tokens by type and SHA-256 of the token, sparing the signature check and claims parsing
+    private final Cache<String, VerifiedToken> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
 
     /**
      * Initializes the service with JWT and RT (Refresh Token) configuration properties.
@@ -36,6 +47,32 @@ public class JwtServiceImpl implements JwtService {
         this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtConfigProperties.getSecret()));
         this.rtConfigProperties = rtConfigProperties;
         this.refreshKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(rtConfigProperties.getSecret()));
+        this.parsers.put(TokenType.ACCESS_TOKEN, Jwts.parserBuilder().setSigningKey(signInKey).build());
+        this.parsers.put(TokenType.REFRESH_TOKEN, Jwts.parserBuilder().setSigningKey(refreshKey).build());
+    }
+
+    /**
+     * Verifies the signature and expiration of a token once, returning the claims needed to authenticate it.
+     * Tokens verified recently are served from a bounded cache.
+     *
+     * @param token     The JWT token.
+     * @param tokenType The type of the token (ACCESS or REFRESH).
+     * @return The verified claims of the token.
+     * @throws JwtException if the token is malformed, has an invalid signature or has expired.
+     */
+    @Override
+    public VerifiedToken verify(String token, TokenType tokenType) throws JwtException {
+        String cacheKey = tokenType.name() + ":" + sha256(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(cacheKey);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+
+        // An expired cached entry falls through to the parser, which raises the expiration
+        Claims claims = extractAllClaims(token, tokenType);
+        VerifiedToken verified = new VerifiedToken(tokenType, claims.getSubject(), claims.getIssuedAt(), claims.getExpiration());
+        verifiedTokens.put(cacheKey, verified);
+        return verified;
     }
 
     /**
@@ -58,7 +95,7 @@ public class JwtServiceImpl implements JwtService {
      */
     @Override
     public String extractUsername(String token, TokenType tokenType) {
-        return extractClaim(token, Claims::getSubject, tokenType);
+        return verify(token, tokenType).subject();
     }
 
     /**
@@ -123,9 +160,7 @@ public class JwtServiceImpl implements JwtService {
      * @return true if the token is valid; false otherwise.
      */
     public boolean isTokenValid(String token, UserDetails userDetails, TokenType tokenType) {
-        final String username = extractUsername(token,tokenType);
-        return (username.equals(userDetails.getUsername())) &&
-                !isTokenExpired(token, tokenType);
+        return verify(token, tokenType).isValidFor(userDetails);
     }
 
    /**
@@ -136,7 +171,7 @@ public class JwtServiceImpl implements JwtService {
      * @return The expiration date extracted from the token.
      */
     public Date extractExpiration(String token, TokenType tokenType) {
-        return extractClaim(token, Claims::getExpiration, tokenType);
+        return verify(token, tokenType).expiration();
     }
 
 
@@ -154,9 +189,7 @@ public class JwtServiceImpl implements JwtService {
     // Helper method to extract all claims from a token
     private Claims extractAllClaims(String token, TokenType tokenType) throws JwtException{
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(tokenType == TokenType.ACCESS_TOKEN ? signInKey : refreshKey)
-                    .build()
+            return parsers.get(tokenType)
                     .parseClaimsJws(token)
                     .getBody();
         } catch (ExpiredJwtException e) {
@@ -167,4 +200,13 @@ public class JwtServiceImpl implements JwtService {
             throw e;
         }
     }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
@@ -0,0 +1,370 @@
+package courses.concordia.service.implementation;
+
+import courses.concordia.config.LikeCounterConfigProperties;
+import courses.concordia.model.Interaction;
+import courses.concordia.model.Review;
+import courses.concordia.service.CacheInvalidationService;
+import courses.concordia.service.LikeCounterService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+import static courses.concordia.util.CacheTags.REVIEW_PAGE_CACHES;
+
+/**
+ * Write-behind counter of the likes and dislikes of reviews.
+ * Each vote is a single atomic script in Redis updating the votes of the review, its running total, the set of
+ * votes to persist and the voter's unpersisted votes. The votes and totals are flushed to MongoDB in periodic
+ * bulk writes, which evict the cached review pages once per flush instead of once per vote.
+ * <p>
+ * A flush renames the set of votes to persist before reading it, and deletes it only once MongoDB was written.
+ * A flush interrupted by a crash is replayed by the next one; since it writes the current vote of each voter and
+ * the absolute total of each review, replaying it is harmless.
+ */
+@Service
+@Slf4j
+public class LikeCounterServiceImpl implements LikeCounterService {
+    private static final String VOTES_PREFIX = "likes:votes:";
+    private static final String VOTER_PREFIX = "likes:voter:";
+    private static final String DIRTY = "likes:dirty";
+    private static final String FLUSHING = "likes:flushing";
+    private static final String FLUSH_LOCK = "likes:flush-lock";
+    // Likes of the review not backed by an interaction, such as imported ones
+    private static final String BASE = "__base";
+    private static final String SUM = "__sum";
+    private static final String MEMBER_SEPARATOR = "\n";
+
+    /**
+     * Records a vote of 1, -1 or 0 (removed). Returns the total likes of the review after the vote,
+     * or nil when the votes of the review are not loaded.
+     */
+    private static final RedisScript<Long> VOTE = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], '__base') == 0 then
+                return nil
+            end
+            local old = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0')
+            local new = tonumber(ARGV[2])
+            if old ~= new then
+                if new == 0 then
+                    redis.call('HDEL', KEYS[1], ARGV[1])
+                else
+                    redis.call('HSET', KEYS[1], ARGV[1], new)
+                end
+                redis.call('HINCRBY', KEYS[1], '__sum', new - old)
+                redis.call('SADD', KEYS[2], ARGV[3] .. '\\n' .. ARGV[1])
+                redis.call('HSET', KEYS[3], ARGV[3], new)
+                redis.call('EXPIRE', KEYS[3], ARGV[4])
+            end
+            redis.call('EXPIRE', KEYS[1], ARGV[4])
+            return tonumber(redis.call('HGET', KEYS[1], '__base')) + tonumber(redis.call('HGET', KEYS[1], '__sum'))
+            """, Long.class);
+
+    /**
+     * Loads the votes of a review unless another node already did.
+     */
+    private static final RedisScript<Long> LOAD = new DefaultRedisScript<>("""
+            if redis.call('HEXISTS', KEYS[1], '__base') == 1 then
+                return 0
+            end
+            for i = 4, #ARGV, 2 do
+                redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            redis.call('HSET', KEYS[1], '__base', ARGV[2], '__sum', ARGV[3])
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    /**
+     * Moves the votes to persist aside, unless a previous flush left some behind. Returns 1 if there is anything to flush.
+     */
+    private static final RedisScript<Long> CLAIM = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[2]) == 1 then
+                return 1
+            end
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return 0
+            end
+            redis.call('RENAME', KEYS[1], KEYS[2])
+            return 1
+            """, Long.class);
+
+    /**
+     * Deletes a field or key only if it still holds the given value.
+     */
+    private static final RedisScript<Long> COMPARE_AND_DELETE_FIELD = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then
+                return redis.call('HDEL', KEYS[1], ARGV[1])
+            end
+            return 0
+            """, Long.class);
+    /**
+     * Deletes the votes of a review and returns the fields it held, so the voters can be cleaned up.
+     * Votes cast after the deletion find the review unloaded and leave the voters alone.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAKE_VOTES = new DefaultRedisScript<>("""
+            local fields = redis.call('HKEYS', KEYS[1])
+            redis.call('DEL', KEYS[1])
+            return fields
+            """, List.class);
+    private static final RedisScript<Long> COMPARE_AND_DELETE = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final LikeCounterConfigProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public LikeCounterServiceImpl(StringRedisTemplate stringRedisTemplate, MongoTemplate mongoTemplate,
+                                  CacheInvalidationService cacheInvalidationService,
+                                  LikeCounterConfigProperties properties, MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Records the vote of a user on a review.
+     *
+     * @param target The review voted on.
+     * @param voter  The user voting.
+     * @param kind   The vote, or null to remove it.
+     * @return The likes of the review after the vote.
+     */
+    @Override
+    public int vote(VoteTarget target, String voter, Interaction.InteractionKind kind) {
+        String value = String.valueOf(kind == null ? 0 : kind == Interaction.InteractionKind.LIKE ? 1 : -1);
+        List<String> keys = List.of(VOTES_PREFIX + target.key(), DIRTY, VOTER_PREFIX + voter);
+        String ttl = String.valueOf(properties.getVotesTtl().toSeconds());
+
+        Long likes = stringRedisTemplate.execute(VOTE, keys, voter, value, target.key(), ttl);
+        if (likes == null) {
+            load(target);
+            likes = stringRedisTemplate.execute(VOTE, keys, voter, value, target.key(), ttl);
+        }
+        meterRegistry.counter("likes.votes", "kind", kind == null ? "removed" : kind.getValue()).increment();
+        return likes == null ? 0 : likes.intValue();
+    }
+
+    /**
+     * Returns the votes of a user not yet written to MongoDB, which take precedence over the stored interactions.
+     *
+     * @param voter The user.
+     * @return The vote on each review: 1 for a like, -1 for a dislike and 0 for a removed vote.
+     */
+    @Override
+    public Map<VoteTarget, Integer> pendingVotes(String voter) {
+        Map<VoteTarget, Integer> votes = new HashMap<>();
+        stringRedisTemplate.<String, String>opsForHash().entries(VOTER_PREFIX + voter)
+                .forEach((key, value) -> votes.put(VoteTarget.parse(key), Integer.parseInt(value)));
+        return votes;
+    }
+
+    /**
+     * Returns the votes of a user not yet written to MongoDB on the given reviews only.
+     *
+     * @param voter   The user.
+     * @param targets The reviews.
+     * @return The vote on each of the reviews the user has an unwritten vote on.
+     */
+    @Override
+    public Map<VoteTarget, Integer> pendingVotes(String voter, List<VoteTarget> targets) {
+        Map<VoteTarget, Integer> votes = new HashMap<>();
+        if (targets.isEmpty()) {
+            return votes;
+        }
+        List<String> values = stringRedisTemplate.<String, String>opsForHash()
+                .multiGet(VOTER_PREFIX + voter, targets.stream().map(VoteTarget::key).toList());
+        for (int i = 0; i < targets.size(); i++) {
+            if (values.get(i) != null) {
+                votes.put(targets.get(i), Integer.parseInt(values.get(i)));
+            }
+        }
+        return votes;
+    }
+
+    /**
+     * Drops the votes of a deleted review, so that a later review with the same identity starts from scratch.
+     *
+     * @param target The deleted review.
+     */
+    @Override
+    public void forget(VoteTarget target) {
+        List<?> fields = stringRedisTemplate.execute(TAKE_VOTES, List.of(VOTES_PREFIX + target.key()));
+        if (fields == null) {
+            return;
+        }
+        List<String> voters = fields.stream()
+                .map(String::valueOf)
+                .filter(field -> !BASE.equals(field) && !SUM.equals(field))
+                .toList();
+        if (voters.isEmpty()) {
+            return;
+        }
+        // Every voter also lists the vote by review, which would otherwise outlive the review
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            voters.forEach(voter -> redis.hDel(VOTER_PREFIX + voter, target.key()));
+            return null;
+        });
+    }
+
+    /**
+     * Writes the votes cast since the last flush, and the totals of the reviews they were cast on, to MongoDB.
+     */
+    @Scheduled(fixedDelayString = "#{@likeCounterConfigProperties.flushInterval.toMillis()}")
+    @Override
+    public void flush() {
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(FLUSH_LOCK, nodeId, properties.getFlushLease());
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Long claimed = stringRedisTemplate.execute(CLAIM, List.of(DIRTY, FLUSHING));
+            if (claimed == null || claimed == 0) {
+                return;
+            }
+
+            List<String> chunk = new ArrayList<>(properties.getFlushBatchSize());
+            try (Cursor<String> members = stringRedisTemplate.opsForSet().scan(FLUSHING,
+                    ScanOptions.scanOptions().count(properties.getFlushBatchSize()).build())) {
+                while (members.hasNext()) {
+                    chunk.add(members.next());
+                    if (chunk.size() >= properties.getFlushBatchSize()) {
+                        persist(chunk);
+                        chunk.clear();
+                    }
+                }
+            }
+            if (!chunk.isEmpty()) {
+                persist(chunk);
+            }
+            stringRedisTemplate.delete(FLUSHING);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush likes, the votes will be flushed again", e);
+        } finally {
+            sample.stop(meterRegistry.timer("likes.flush"));
+            stringRedisTemplate.execute(COMPARE_AND_DELETE, List.of(FLUSH_LOCK), nodeId);
+        }
+    }
+
+    /**
+     * Writes the current vote of each voter of the chunk and the totals of their reviews in two bulk writes.
+     */
+    private void persist(List<String> members) {
+        Map<String, Set<String>> votersByTarget = new HashMap<>();
+        for (String member : members) {
+            int separator = member.lastIndexOf(MEMBER_SEPARATOR);
+            votersByTarget.computeIfAbsent(member.substring(0, separator), key -> new HashSet<>())
+                    .add(member.substring(separator + 1));
+        }
+
+        BulkOperations interactions = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Interaction.class);
+        BulkOperations reviews = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class);
+        // The vote written for each voter, cleared from the voter's pending votes once persisted
+        Map<String, String> persisted = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : votersByTarget.entrySet()) {
+            VoteTarget target = VoteTarget.parse(entry.getKey());
+            List<String> voters = new ArrayList<>(entry.getValue());
+            List<Object> fields = new ArrayList<>(voters);
+            fields.add(BASE);
+            fields.add(SUM);
+            List<Object> values = stringRedisTemplate.opsForHash().multiGet(VOTES_PREFIX + entry.getKey(), fields);
+
+            for (int i = 0; i < voters.size(); i++) {
+                String voter = voters.get(i);
+                String value = (String) values.get(i);
+                Query query = new Query(target.reviewCriteria().and("referrer").is(voter));
+                if (value == null) {
+                    interactions.remove(query);
+                } else {
+                    Interaction.InteractionKind kind = "1".equals(value)
+                            ? Interaction.InteractionKind.LIKE : Interaction.InteractionKind.DISLIKE;
+                    interactions.upsert(query, new Update()
+                            .set("kind", kind)
+                            .set("courseId", target.courseId())
+                            .set("instructorId", target.instructorId()));
+                }
+                persisted.put(voter + MEMBER_SEPARATOR + entry.getKey(), value == null ? "0" : value);
+            }
+
+            Object base = values.get(voters.size());
+            Object sum = values.get(voters.size() + 1);
+            // Votes of a review deleted in the meantime leave its (missing) document alone
+            if (base != null && sum != null) {
+                int likes = Integer.parseInt((String) base) + Integer.parseInt((String) sum);
+                reviews.updateOne(new Query(target.reviewCriteria()), new Update().set("likes", likes));
+            }
+        }
+        interactions.execute();
+        reviews.execute();
+
+        persisted.forEach((voterAndTarget, value) -> {
+            int separator = voterAndTarget.indexOf(MEMBER_SEPARATOR);
+            stringRedisTemplate.execute(COMPARE_AND_DELETE_FIELD,
+                    List.of(VOTER_PREFIX + voterAndTarget.substring(0, separator)),
+                    voterAndTarget.substring(separator + 1), value);
+        });
+
+        Set<String> courseIds = new HashSet<>();
+        Set<String> instructorIds = new HashSet<>();
+        votersByTarget.keySet().stream().map(VoteTarget::parse).forEach(target -> {
+            if (target.courseId() != null) courseIds.add(target.courseId());
+            if (target.instructorId() != null) instructorIds.add(target.instructorId());
+        });
+        courseIds.forEach(courseId -> cacheInvalidationService.evictByCourse(courseId, REVIEW_PAGE_CACHES));
+        instructorIds.forEach(instructorId -> cacheInvalidationService.evictByInstructor(instructorId, REVIEW_PAGE_CACHES));
+        meterRegistry.counter("likes.flushed").increment(members.size());
+    }
+
+    /**
+     * Loads the stored votes and likes of a review into Redis.
+     */
+    private void load(VoteTarget target) {
+        Query reviewQuery = new Query(target.reviewCriteria());
+        reviewQuery.fields().include("likes");
+        Review review = mongoTemplate.findOne(reviewQuery, Review.class);
+
+        Query interactionQuery = new Query(target.reviewCriteria());
+        interactionQuery.fields().include("referrer", "kind");
+        List<String> args = new ArrayList<>();
+        int sum = 0;
+        for (Interaction interaction : mongoTemplate.find(interactionQuery, Interaction.class)) {
+            int value = interaction.getKind() == Interaction.InteractionKind.LIKE ? 1 : -1;
+            args.add(interaction.getReferrer());
+            args.add(String.valueOf(value));
+            sum += value;
+        }
+        int base = (review == null ? 0 : review.getLikes()) - sum;
+
+        List<String> argv = new ArrayList<>(List.of(String.valueOf(properties.getVotesTtl().toSeconds()),
+                String.valueOf(base), String.valueOf(sum)));
+        argv.addAll(args);
+        stringRedisTemplate.execute(LOAD, List.of(VOTES_PREFIX + target.key()), argv.toArray());
+    }
+}
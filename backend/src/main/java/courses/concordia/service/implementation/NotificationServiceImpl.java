@@ -1,69 +1,251 @@
 package courses.concordia.service.implementation;
 
+import com.mongodb.bulk.BulkWriteResult;
+import courses.concordia.config.MongoIndexManager;
+import courses.concordia.config.NotificationConfigProperties;
 import courses.concordia.dto.mapper.NotificationMapper;
 import courses.concordia.dto.model.notification.NotificationDto;
+import courses.concordia.dto.model.notification.NotificationEventDto;
 import courses.concordia.dto.model.review.ReviewDto;
 import courses.concordia.model.Notification;
+import courses.concordia.model.NotificationInbox;
 import courses.concordia.model.Review;
 import courses.concordia.model.Subscription;
-import courses.concordia.repository.NotificationRepository;
-import courses.concordia.repository.SubscriptionRepository;
 import courses.concordia.service.NotificationService;
+import courses.concordia.service.NotificationStreamService;
+import courses.concordia.util.ReviewProjection;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.MergeOperation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Keeps the notification inbox of each user.
+ * A notification references the review it is about, which is read when the inbox is, so fan-out and edits cost the
+ * same whatever the size of the review. Inboxes are capped to the newest notifications and expire old ones. The total
+ * and unread counters of each inbox are maintained alongside every write, so the unread count is a single read.
+ * New notifications and unread count changes are pushed to the streams of the users concerned.
+ */
 @RequiredArgsConstructor
 @Slf4j
 @Service
 public class NotificationServiceImpl implements NotificationService {
-    private final NotificationRepository notificationRepository;
-    private final SubscriptionRepository subscriptionRepository;
     private final MongoTemplate mongoTemplate;
-    private final ModelMapper modelMapper;
+    private final NotificationConfigProperties properties;
+    private final NotificationStreamService notificationStreamService;
+    private final MeterRegistry meterRegistry;
 
     /**
-     * Fetches all notifications for a given user, sorted by the timestamp of the associated reviews in descending order.
+     * Replaces the review copies embedded in notifications written before they referenced reviews, builds
+     * the counters of the inboxes the first time they are needed, and removes the duplicate notifications of
+     * a user about the same review before the index making them unique is built.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void migrateNotifications() {
+        AggregationUpdate reference = AggregationUpdate.update()
+                .set("reviewId").toValue("$review._id")
+                .set("courseId").toValue("$review.courseId")
+                .set("creatorId").toValue("$review.userId")
+                .set("notifiedAt").toValue(ConditionalOperators.ifNull("review.timestamp").then("$$NOW"))
+                .unset("review");
+        long migrated = mongoTemplate.updateMulti(new Query(Criteria.where("review").exists(true)), reference, Notification.class)
+                .getModifiedCount();
+        if (migrated > 0) {
+            log.info("Replaced the embedded review of {} notifications with a reference", migrated);
+        }
+
+        if (mongoTemplate.estimatedCount(NotificationInbox.class) == 0 && mongoTemplate.exists(new Query(), Notification.class)) {
+            Aggregation counters = Aggregation.newAggregation(
+                    Aggregation.group("userId").count().as("total").sum(unread()).as("unread"),
+                    Aggregation.merge().intoCollection(mongoTemplate.getCollectionName(NotificationInbox.class))
+                            .whenMatched(MergeOperation.WhenDocumentsMatch.replaceDocument())
+                            .build());
+            mongoTemplate.aggregate(counters, Notification.class, Document.class);
+            log.info("Built the notification inbox counters");
+        }
+
+        if (!MongoIndexManager.isUniqueIndexBuilt(mongoTemplate, Notification.class, "userId_reviewId")) {
+            removeDuplicateNotifications();
+        }
+    }
+
+    /**
+     * Keeps the latest notification of each user about a review and removes the others, updating the counters.
+     */
+    private void removeDuplicateNotifications() {
+        Aggregation duplicates = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("reviewId").exists(true)),
+                Aggregation.sort(Sort.by(Sort.Direction.DESC, "notifiedAt", "_id")),
+                Aggregation.group("userId", "reviewId").push("_id").as("ids").count().as("count"),
+                Aggregation.match(Criteria.where("count").gt(1))
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        int removed = 0;
+        try (Stream<Document> groups = mongoTemplate.aggregateStream(duplicates, Notification.class, Document.class)) {
+            for (Iterator<Document> it = groups.iterator(); it.hasNext(); ) {
+                List<Object> ids = it.next().getList("ids", Object.class);
+                removed += remove(new Query(Criteria.where("_id").in(ids.subList(1, ids.size())))).values().stream()
+                        .mapToInt(delta -> -delta.total())
+                        .sum();
+            }
+        }
+        if (removed > 0) {
+            log.info("Removed {} duplicate notifications", removed);
+        }
+    }
+
+    /**
+     * Fetches a page of the notifications of a user, newest first.
      *
      * @param userId The ID of the user whose notifications are being fetched.
-     * @return A list of NotificationDto objects for the user.
+     * @param page   The zero-based page number.
+     * @param size   The page size, capped to the configured maximum.
+     * @return A list of NotificationDto objects for the user, with the reviews they are about.
+     */
+    @Override
+    public List<NotificationDto> getNotifications(String userId, int page, int size) {
+        log.info("Fetching notifications for user ID: {}, page {}", userId, page);
+        int pageSize = Math.max(1, Math.min(size, properties.getMaxPageSize()));
+        Query query = new Query(Criteria.where("userId").is(userId))
+                .with(Sort.by(Sort.Direction.DESC, "notifiedAt", "_id"))
+                .skip((long) Math.max(page, 0) * pageSize)
+                .limit(pageSize);
+        List<Notification> notifications = mongoTemplate.find(query, Notification.class);
+        if (notifications.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<String> reviewIds = notifications.stream().map(Notification::getReviewId).collect(Collectors.toSet());
+        Map<String, Review> reviews = mongoTemplate.find(ReviewProjection.listing(new Query(Criteria.where("_id").in(reviewIds))), Review.class)
+                .stream()
+                .collect(Collectors.toMap(Review::get_id, Function.identity()));
+        // Notifications of a review deleted in the meantime are removed by the review event
+        return notifications.stream()
+                .filter(notification -> reviews.containsKey(notification.getReviewId()))
+                .map(notification -> NotificationMapper.toDto(notification, reviews.get(notification.getReviewId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the number of unseen notifications of a user from the counters of the inbox.
+     *
+     * @param userId The ID of the user.
+     * @return The number of unseen notifications.
      */
     @Override
-    public List<NotificationDto> getNotifications(String userId) {
-        log.info("Fetching notifications for user ID: {}", userId);
-        List<Notification> notifications = notificationRepository.findAllByUserId(userId);
-        notifications.sort((a, b) -> b.getReview().getTimestamp().compareTo(a.getReview().getTimestamp()));
-        return notifications.stream().map(NotificationMapper::toDto).collect(Collectors.toList());
+    public int getUnreadCount(String userId) {
+        NotificationInbox inbox = mongoTemplate.findById(userId, NotificationInbox.class);
+        return inbox == null ? 0 : Math.max(0, inbox.getUnread());
     }
 
     /**
      * Creates notifications for all subscribers of a course when a new review is posted,
-     * except for the user who posted the review.
+     * except for the user who posted the review. A subscriber already notified of the review is left as is,
+     * so that the fan-out can be retried.
+     * Subscribers are streamed from the courseId_userId index in batches, each notified with one bulk write,
+     * so the memory used does not grow with the number of subscribers.
      *
      * @param reviewDto The review based on which notifications are created.
      */
     @Override
     public void addNotifications(ReviewDto reviewDto) {
-        List<Subscription> subscriptions = subscriptionRepository.findByCourseId(reviewDto.getCourseId());
-        List<Notification> notifications = subscriptions.stream()
-                .filter(subscription -> !subscription.getUserId().equals(reviewDto.getUserId()))
-                .map(subscription -> new Notification()
-                        .setReview(modelMapper.map(reviewDto, Review.class))
-                        .setUserId(subscription.getUserId())
-                        .setSeen(false))
-                .collect(Collectors.toList());
+        int batchSize = properties.getFanoutBatchSize();
+        Query subscribers = new Query(Criteria.where("courseId").is(reviewDto.getCourseId()).and("userId").ne(reviewDto.getUserId()))
+                .cursorBatchSize(batchSize);
+        subscribers.fields().include("userId").exclude("_id");
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int subscriberCount = 0;
+        int notified = 0;
+        Set<String> batch = new LinkedHashSet<>();
+        try (Stream<Document> stream = mongoTemplate.stream(subscribers, Document.class, mongoTemplate.getCollectionName(Subscription.class))) {
+            Iterator<Document> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                String userId = iterator.next().getString("userId");
+                if (userId != null) {
+                    batch.add(userId);
+                    subscriberCount++;
+                }
+                if (batch.size() == batchSize || (!iterator.hasNext() && !batch.isEmpty())) {
+                    notified += notify(reviewDto, new ArrayList<>(batch), now);
+                    batch.clear();
+                }
+            }
+        } finally {
+            sample.stop(meterRegistry.timer("notifications.fanout"));
+        }
+        meterRegistry.summary("notifications.fanout.subscribers").record(subscriberCount);
+        meterRegistry.counter("notifications.fanout.notified").increment(notified);
+        if (subscriberCount > 0) {
+            log.info("Notified {} of {} subscribers of course {} of review {}", notified, subscriberCount,
+                    reviewDto.getCourseId(), reviewDto.get_id());
+        }
+    }
 
-        if (!notifications.isEmpty()) {
-            notificationRepository.saveAll(notifications);
+    /**
+     * Notifies a batch of subscribers of a review with one bulk write, then updates their inboxes.
+     *
+     * @param reviewDto  The review.
+     * @param recipients The subscribers.
+     * @param now        The time of the notification.
+     * @return The number of subscribers notified, leaving out those already notified of the review.
+     */
+    private int notify(ReviewDto reviewDto, List<String> recipients, LocalDateTime now) {
+        BulkOperations notifications = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class);
+        for (String recipient : recipients) {
+            notifications.upsert(new Query(Criteria.where("userId").is(recipient).and("reviewId").is(reviewDto.get_id())),
+                    new Update()
+                            .setOnInsert("courseId", reviewDto.getCourseId())
+                            .setOnInsert("creatorId", reviewDto.getUserId())
+                            .setOnInsert("seen", false)
+                            .setOnInsert("notifiedAt", now));
         }
+        BulkWriteResult result = notifications.execute();
+
+        Map<String, Delta> added = new HashMap<>();
+        List<Notification> pushed = new ArrayList<>();
+        result.getUpserts().forEach(upsert -> {
+            String recipient = recipients.get(upsert.getIndex());
+            added.put(recipient, new Delta(1, 1));
+            pushed.add(new Notification()
+                    .set_id(upsert.getId().asObjectId().getValue().toHexString())
+                    .setUserId(recipient)
+                    .setReviewId(reviewDto.get_id())
+                    .setCourseId(reviewDto.getCourseId())
+                    .setCreatorId(reviewDto.getUserId())
+                    .setNotifiedAt(now));
+        });
+        applyDeltas(added);
+        trim(added.keySet());
+        push(pushed);
+        return added.size();
     }
 
     /**
@@ -78,26 +260,41 @@ public class NotificationServiceImpl implements NotificationService {
     public void deleteNotification(String creatorId, String userId, String courseId) {
         if(creatorId == null && userId == null) return;
 
-        Criteria criteria = Criteria.where("review.courseId").is(courseId);
+        Criteria criteria = Criteria.where("courseId").is(courseId);
         if (userId != null) criteria = criteria.and("userId").is(userId);
-        if (creatorId != null) criteria = criteria.and("review.userId").is(creatorId);
+        if (creatorId != null) criteria = criteria.and("creatorId").is(creatorId);
 
-        Query query = new Query(criteria);
-        mongoTemplate.remove(query, Notification.class);
+        Map<String, Delta> removed = remove(new Query(criteria));
+        pushUnread(removed.keySet());
     }
 
     /**
-     * Updates notifications based on a new review for a specific course by a specific creator.
+     * Marks the notifications of an edited review as unseen again and moves them to the top of the inboxes.
+     * The notifications reference the review, so its new content is not copied.
      *
      * @param creatorId The ID of the creator of the review.
      * @param courseId  The ID of the course for which the review is written.
-     * @param reviewDto The new review data to update the notification with.
+     * @param reviewDto The edited review.
      */
     @Override
     public void updateNotifications(String creatorId, String courseId, ReviewDto reviewDto) {
-        Query query = new Query(Criteria.where("review.userId").is(creatorId).and("review.courseId").is(courseId));
-        Update update = new Update().set("review", modelMapper.map(reviewDto, Review.class)).set("seen", false);
-        mongoTemplate.updateMulti(query, update, Notification.class);
+        Query ofReview = new Query(ofReview(creatorId, courseId, reviewDto));
+        ofReview.fields().include("userId").include("reviewId").include("courseId").include("creatorId").include("seen");
+        List<Notification> notified = mongoTemplate.find(ofReview, Notification.class);
+        if (notified.isEmpty()) {
+            return;
+        }
+        Map<String, Delta> unseenAgain = new HashMap<>();
+        notified.stream()
+                .filter(Notification::isSeen)
+                .forEach(notification -> unseenAgain.merge(notification.getUserId(), new Delta(0, 1), Delta::plus));
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        Update update = new Update().set("seen", false).set("notifiedAt", now);
+        mongoTemplate.updateMulti(new Query(ofReview(creatorId, courseId, reviewDto)), update, Notification.class);
+        applyDeltas(unseenAgain);
+        notified.forEach(notification -> notification.setSeen(false).setNotifiedAt(now));
+        push(notified);
     }
 
     /**
@@ -110,8 +307,172 @@ public class NotificationServiceImpl implements NotificationService {
      */
     @Override
     public void updateNotification(String userId, String courseId, String creatorId, boolean seen) {
-        Query query = new Query(Criteria.where("userId").is(userId).and("review.courseId").is(courseId).and("review.userId").is(creatorId));
+        Query query = new Query(Criteria.where("userId").is(userId).and("courseId").is(courseId).and("creatorId").is(creatorId)
+                .and("seen").is(!seen));
         Update update = new Update().set("seen", seen);
-        mongoTemplate.updateFirst(query, update, Notification.class);
+        if (mongoTemplate.updateFirst(query, update, Notification.class).getModifiedCount() > 0) {
+            applyDeltas(Map.of(userId, new Delta(0, seen ? -1 : 1)));
+            pushUnread(List.of(userId));
+        }
+    }
+
+    /**
+     * Removes the notifications older than the retention, in batches.
+     */
+    @Scheduled(fixedDelayString = "#{@notificationConfigProperties.purgeInterval.toMillis()}")
+    @Override
+    public void purgeExpiredNotifications() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+        int purged = 0;
+        int removed;
+        do {
+            removed = remove(new Query(Criteria.where("notifiedAt").lt(cutoff)).limit(properties.getPurgeBatchSize())).values().stream()
+                    .mapToInt(delta -> -delta.total())
+                    .sum();
+            purged += removed;
+        } while (removed == properties.getPurgeBatchSize());
+        if (purged > 0) {
+            log.info("Purged {} notifications older than {}", purged, properties.getRetention());
+        }
+    }
+
+    /**
+     * Drops the oldest notifications of the given users beyond the cap of an inbox.
+     *
+     * @param userIds The users who just received notifications.
+     */
+    private void trim(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        int cap = properties.getMaxPerUser();
+        Query full = new Query(Criteria.where("_id").in(userIds).and("total").gt(cap));
+        for (NotificationInbox inbox : mongoTemplate.find(full, NotificationInbox.class)) {
+            remove(new Query(Criteria.where("userId").is(inbox.get_id()))
+                    .with(Sort.by(Sort.Direction.ASC, "notifiedAt", "_id"))
+                    .limit(inbox.getTotal() - cap));
+        }
+    }
+
+    /**
+     * Removes the notifications matched by a query and updates the counters of their inboxes.
+     * When another node removed some of them concurrently, the counters of the users involved are recounted instead.
+     *
+     * @param query The notifications to remove.
+     * @return The change to the counters of each inbox.
+     */
+    private Map<String, Delta> remove(Query query) {
+        query.fields().include("userId").include("seen");
+        List<Notification> notifications = mongoTemplate.find(query, Notification.class);
+        if (notifications.isEmpty()) {
+            return Map.of();
+        }
+
+        List<String> ids = notifications.stream().map(Notification::get_id).toList();
+        long deleted = mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), Notification.class).getDeletedCount();
+
+        Map<String, Delta> removed = new HashMap<>();
+        notifications.forEach(notification ->
+                removed.merge(notification.getUserId(), new Delta(-1, notification.isSeen() ? 0 : -1), Delta::plus));
+        if (deleted == notifications.size()) {
+            applyDeltas(removed);
+        } else {
+            recount(removed.keySet());
+        }
+        return removed;
+    }
+
+    /**
+     * Pushes notifications to the streams of their users, with the unread count of each user.
+     */
+    private void push(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> unread = unreadCounts(notifications.stream().map(Notification::getUserId).collect(Collectors.toSet()));
+        notificationStreamService.publish(notifications.stream()
+                .map(notification -> new NotificationEventDto()
+                        .setUserId(notification.getUserId())
+                        .setType(NotificationEventDto.NOTIFICATION)
+                        .setNotification(NotificationMapper.toDto(notification, null))
+                        .setUnread(unread.getOrDefault(notification.getUserId(), 0)))
+                .toList());
+    }
+
+    /**
+     * Pushes the unread counts of users to their streams.
+     */
+    private void pushUnread(Collection<String> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> unread = unreadCounts(userIds);
+        notificationStreamService.publish(userIds.stream()
+                .map(userId -> new NotificationEventDto()
+                        .setUserId(userId)
+                        .setType(NotificationEventDto.UNREAD)
+                        .setUnread(unread.getOrDefault(userId, 0)))
+                .toList());
+    }
+
+    private Map<String, Integer> unreadCounts(Collection<String> userIds) {
+        Query query = new Query(Criteria.where("_id").in(userIds));
+        query.fields().include("unread");
+        return mongoTemplate.find(query, NotificationInbox.class).stream()
+                .collect(Collectors.toMap(NotificationInbox::get_id, inbox -> Math.max(0, inbox.getUnread())));
+    }
+
+    /**
+     * Adds the given deltas to the counters of the inboxes, in one bulk write.
+     */
+    private void applyDeltas(Map<String, Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        BulkOperations inboxes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationInbox.class);
+        deltas.forEach((userId, delta) -> inboxes.upsert(new Query(Criteria.where("_id").is(userId)),
+                new Update().inc("total", delta.total()).inc("unread", delta.unread())));
+        inboxes.execute();
+    }
+
+    /**
+     * Recomputes the counters of the inboxes of the given users from their notifications.
+     */
+    private void recount(Collection<String> userIds) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").in(userIds)),
+                Aggregation.group("userId").count().as("total").sum(unread()).as("unread"));
+        Map<String, Document> counts = mongoTemplate.aggregate(aggregation, Notification.class, Document.class)
+                .getMappedResults()
+                .stream()
+                .collect(Collectors.toMap(count -> count.getString("_id"), Function.identity()));
+
+        BulkOperations inboxes = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NotificationInbox.class);
+        for (String userId : userIds) {
+            Document count = counts.get(userId);
+            inboxes.upsert(new Query(Criteria.where("_id").is(userId)), new Update()
+                    .set("total", count == null ? 0 : count.getInteger("total"))
+                    .set("unread", count == null ? 0 : count.getInteger("unread")));
+        }
+        inboxes.execute();
+    }
+
+    private static Criteria ofReview(String creatorId, String courseId, ReviewDto reviewDto) {
+        return reviewDto.get_id() != null
+                ? Criteria.where("reviewId").is(reviewDto.get_id())
+                : Criteria.where("creatorId").is(creatorId).and("courseId").is(courseId);
+    }
+
+    private static ConditionalOperators.Cond unread() {
+        return ConditionalOperators.when(Criteria.where("seen").is(true)).then(0).otherwise(1);
+    }
+
+    /**
+     * A change to the counters of an inbox.
+     */
+    private record Delta(int total, int unread) {
+        Delta plus(Delta other) {
+            return new Delta(total + other.total, unread + other.unread);
+        }
     }
 }
@@ -0,0 +1,247 @@
+package courses.concordia.service.implementation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import courses.concordia.config.NotificationConfigProperties;
+import courses.concordia.dto.mapper.NotificationMapper;
+import courses.concordia.dto.model.notification.NotificationDto;
+import courses.concordia.dto.model.notification.NotificationEventDto;
+import courses.concordia.model.Notification;
+import courses.concordia.model.NotificationInbox;
+import courses.concordia.service.NotificationStreamService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes notification events to the users connected to this node over Server-Sent Events.
+ * Connections are served asynchronously by the servlet container, so an idle connection holds no thread; events
+ * are written by a small pool of senders. Events are published on a Redis channel and every node delivers them to
+ * the connections it holds. Notification events carry the position of the notification in the inbox as their id,
+ * so a client reconnecting with the id of the last event it received is sent the notifications it missed.
+ */
+@Service
+@Slf4j
+public class NotificationStreamServiceImpl implements NotificationStreamService {
+    private static final String EVENT_ID_SEPARATOR = "_";
+
+    private final MongoTemplate mongoTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final NotificationConfigProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Set<SseEmitter>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final ThreadPoolExecutor senders;
+
+    public NotificationStreamServiceImpl(MongoTemplate mongoTemplate, StringRedisTemplate stringRedisTemplate,
+                                         RedisMessageListenerContainer listenerContainer, ObjectMapper objectMapper,
+                                         NotificationConfigProperties properties, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        int senderCount = properties.getStream().getSenders();
+        // Events that do not fit are dropped, the clients catch up with the next event or when reconnecting
+        this.senders = new ThreadPoolExecutor(senderCount, senderCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getStream().getMaxConnections()), threadFactory(),
+                (task, executor) -> meterRegistry.counter("notifications.stream.events", "result", "dropped").increment());
+        meterRegistry.gauge("notifications.stream.connections", connectionCount);
+    }
+
+    @PostConstruct
+    public void listen() {
+        listenerContainer.addMessageListener((message, pattern) -> deliver(message.getBody()),
+                new ChannelTopic(properties.getStream().getChannel()));
+    }
+
+    /**
+     * Opens the notification stream of a user. The stream starts with the notifications missed since the given
+     * event, if any, followed by the current unread count.
+     *
+     * @param userId      The ID of the user.
+     * @param lastEventId The id of the last event received before reconnecting, or null.
+     * @return The stream, or empty when this node holds as many connections as it accepts.
+     */
+    @Override
+    public Optional<SseEmitter> subscribe(String userId, String lastEventId) {
+        if (connectionCount.incrementAndGet() > properties.getStream().getMaxConnections()) {
+            connectionCount.decrementAndGet();
+            meterRegistry.counter("notifications.stream.rejected").increment();
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = new SseEmitter(properties.getStream().getTimeout().toMillis());
+        connections.compute(userId, (key, emitters) -> {
+            Set<SseEmitter> userEmitters = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            userEmitters.add(emitter);
+            return userEmitters;
+        });
+        emitter.onCompletion(() -> disconnect(userId, emitter));
+        emitter.onTimeout(() -> disconnect(userId, emitter));
+        emitter.onError(e -> disconnect(userId, emitter));
+
+        try {
+            int unread = unreadCount(userId);
+            for (Notification missed : missedNotifications(userId, lastEventId)) {
+                emitter.send(toSse(new NotificationEventDto()
+                        .setType(NotificationEventDto.NOTIFICATION)
+                        .setNotification(NotificationMapper.toDto(missed, null))
+                        .setUnread(unread)));
+            }
+            emitter.send(toSse(new NotificationEventDto().setType(NotificationEventDto.UNREAD).setUnread(unread)));
+        } catch (IOException e) {
+            disconnect(userId, emitter);
+        }
+        return Optional.of(emitter);
+    }
+
+    /**
+     * Publishes events to the nodes holding the connections of their users. Failures are logged, since the
+     * clients catch up when they reconnect.
+     *
+     * @param events The events, each addressed to one user.
+     */
+    @Override
+    public void publish(List<NotificationEventDto> events) {
+        int batchSize = properties.getStream().getPublishBatchSize();
+        for (int from = 0; from < events.size(); from += batchSize) {
+            List<NotificationEventDto> batch = events.subList(from, Math.min(from + batchSize, events.size()));
+            try {
+                stringRedisTemplate.convertAndSend(properties.getStream().getChannel(), objectMapper.writeValueAsString(batch));
+            } catch (JsonProcessingException | RuntimeException e) {
+                log.warn("Failed to publish {} notification events", batch.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Keeps idle connections open through proxies, and detects the ones closed by clients.
+     * The writes go through the senders, so a slow client never holds up the scheduler thread.
+     */
+    @Scheduled(fixedDelayString = "#{@notificationConfigProperties.stream.heartbeatInterval.toMillis()}")
+    public void heartbeat() {
+        connections.forEach((userId, emitters) -> senders.execute(() -> emitters.forEach(emitter -> {
+            try {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                disconnect(userId, emitter);
+            }
+        })));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        connections.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    /**
+     * Hands the events of a published message addressed to users connected to this node to the senders.
+     */
+    private void deliver(byte[] message) {
+        List<NotificationEventDto> events;
+        try {
+            events = objectMapper.readValue(message, new TypeReference<>() {});
+        } catch (IOException e) {
+            log.warn("Ignoring malformed notification events", e);
+            return;
+        }
+        for (NotificationEventDto event : events) {
+            Set<SseEmitter> emitters = connections.get(event.getUserId());
+            if (emitters != null) {
+                senders.execute(() -> send(event, emitters));
+            }
+        }
+    }
+
+    private void send(NotificationEventDto event, Set<SseEmitter> emitters) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(toSse(event));
+                meterRegistry.counter("notifications.stream.events", "result", "sent").increment();
+            } catch (IOException | IllegalStateException e) {
+                disconnect(event.getUserId(), emitter);
+            }
+        }
+    }
+
+    private void disconnect(String userId, SseEmitter emitter) {
+        connections.computeIfPresent(userId, (key, emitters) -> {
+            if (emitters.remove(emitter)) {
+                connectionCount.decrementAndGet();
+            }
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    /**
+     * Finds the notifications of a user after the one a previous event was about, oldest first.
+     */
+    private List<Notification> missedNotifications(String userId, String lastEventId) {
+        if (lastEventId == null || !lastEventId.contains(EVENT_ID_SEPARATOR)) {
+            return List.of();
+        }
+        LocalDateTime notifiedAt;
+        String id = lastEventId.substring(lastEventId.indexOf(EVENT_ID_SEPARATOR) + 1);
+        try {
+            notifiedAt = LocalDateTime.parse(lastEventId.substring(0, lastEventId.indexOf(EVENT_ID_SEPARATOR)));
+        } catch (DateTimeParseException e) {
+            return List.of();
+        }
+        Query query = new Query(Criteria.where("userId").is(userId).orOperator(
+                Criteria.where("notifiedAt").gt(notifiedAt),
+                Criteria.where("notifiedAt").is(notifiedAt).and("_id").gt(id)))
+                .with(Sort.by(Sort.Direction.ASC, "notifiedAt", "_id"))
+                .limit(properties.getMaxPerUser());
+        return mongoTemplate.find(query, Notification.class);
+    }
+
+    private int unreadCount(String userId) {
+        NotificationInbox inbox = mongoTemplate.findById(userId, NotificationInbox.class);
+        return inbox == null ? 0 : Math.max(0, inbox.getUnread());
+    }
+
+    private SseEmitter.SseEventBuilder toSse(NotificationEventDto event) {
+        SseEmitter.SseEventBuilder builder = SseEmitter.event()
+                .name(event.getType())
+                .data(event, MediaType.APPLICATION_JSON);
+        NotificationDto notification = event.getNotification();
+        if (notification != null && notification.getNotifiedAt() != null) {
+            builder.id(notification.getNotifiedAt() + EVENT_ID_SEPARATOR + notification.get_id());
+        }
+        return builder;
+    }
+
+    private static ThreadFactory threadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "notification-stream-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
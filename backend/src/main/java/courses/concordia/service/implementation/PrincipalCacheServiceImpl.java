@@ -0,0 +1,98 @@
+package courses.concordia.service.implementation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import courses.concordia.config.PrincipalCacheConfigProperties;
+import courses.concordia.model.User;
+import courses.concordia.repository.UserRepository;
+import courses.concordia.service.PrincipalCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the principal of authenticated requests from a node-local cache keyed by username,
+ * so that a logged-in user does not cost a MongoDB lookup per request.
+ * Entries are evicted on every node when the user changes, and expire after a short time in any case.
+ */
+@Service
+@Slf4j
+public class PrincipalCacheServiceImpl implements PrincipalCacheService {
+    private final UserRepository userRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final PrincipalCacheConfigProperties properties;
+    private final Cache<String, User> principals;
+    private final Timer hits;
+    private final Timer misses;
+
+    public PrincipalCacheServiceImpl(UserRepository userRepository, StringRedisTemplate stringRedisTemplate,
+                                     RedisMessageListenerContainer listenerContainer,
+                                     PrincipalCacheConfigProperties properties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.properties = properties;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+        this.hits = Timer.builder("auth.principal.resolve").tag("result", "hit").register(meterRegistry);
+        this.misses = Timer.builder("auth.principal.resolve").tag("result", "miss").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener((message, pattern) ->
+                        principals.invalidate(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(properties.getChannel()));
+    }
+
+    /**
+     * Loads the user with the given username, from the cache when possible.
+     *
+     * @param username The username of the authenticated user.
+     * @return The user.
+     * @throws UsernameNotFoundException if no user has this username.
+     */
+    @Override
+    public User loadUserByUsername(String username) {
+        long start = System.nanoTime();
+        User cached = principals.getIfPresent(username);
+        if (cached != null) {
+            hits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        principals.put(username, user);
+        misses.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return user;
+    }
+
+    /**
+     * Drops the cached user on this node and broadcasts the eviction to the others.
+     *
+     * @param username The username whose principal changed.
+     */
+    @Override
+    public void evict(String username) {
+        principals.invalidate(username);
+        try {
+            stringRedisTemplate.convertAndSend(properties.getChannel(), username);
+        } catch (RuntimeException e) {
+            log.warn("Failed to broadcast principal eviction of {}, other nodes will refresh it within {}",
+                    username, properties.getTtl(), e);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package courses.concordia.service.implementation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import courses.concordia.config.RateLimitConfigProperties;
+import courses.concordia.service.RateLimitService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sliding-window rate limiter shared by all nodes through Redis.
+ * Each key is a sorted set of the timestamps of the requests admitted within the window, trimmed and checked
+ * atomically by a Lua script using the Redis clock. When Redis is unreachable, requests are limited per node
+ * by a bounded in-process window so the limiter neither fails open nor grows without bound.
+ */
+@Service
+@Slf4j
+public class RateLimitServiceImpl implements RateLimitService {
+    private static final String KEY_PREFIX = "rate-limit:";
+
+    /**
+     * Returns 0 when the request is admitted, otherwise the milliseconds until the oldest admitted request
+     * leaves the window.
+     */
+    private static final RedisScript<Long> SLIDING_WINDOW = new DefaultRedisScript<>("""
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local window = tonumber(ARGV[1])
+            local limit = tonumber(ARGV[2])
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+            if redis.call('ZCARD', KEYS[1]) < limit then
+                redis.call('ZADD', KEYS[1], now, now .. ':' .. ARGV[3])
+                redis.call('PEXPIRE', KEYS[1], window)
+                return 0
+            end
+            local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+            return math.max(1, tonumber(oldest[2]) + window - now)
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, Deque<Long>> localWindows;
+
+    public RateLimitServiceImpl(StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry,
+                                RateLimitConfigProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        Duration longestWindow = properties.getPolicies().stream()
+                .map(RateLimitConfigProperties.Policy::getWindow)
+                .max(Duration::compareTo)
+                .orElse(Duration.ofMinutes(1));
+        this.localWindows = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxKeys())
+                .expireAfterAccess(longestWindow)
+                .build();
+    }
+
+    /**
+     * Admits a request if fewer than {@code limit} requests were admitted for the key within the window.
+     *
+     * @param policy The name of the policy, used for the Redis key and the metrics.
+     * @param key    The client the limit applies to, a username or an address.
+     * @param limit  The number of requests admitted per window.
+     * @param window The length of the sliding window.
+     * @return Whether the request is admitted, and when to retry otherwise.
+     */
+    @Override
+    public Decision tryAcquire(String policy, String key, int limit, Duration window) {
+        String source = "redis";
+        long retryAfterMillis;
+        try {
+            Long result = stringRedisTemplate.execute(SLIDING_WINDOW, List.of(KEY_PREFIX + policy + ":" + key),
+                    String.valueOf(window.toMillis()), String.valueOf(limit), UUID.randomUUID().toString());
+            retryAfterMillis = result != null ? result : 0;
+        } catch (RuntimeException e) {
+            log.warn("Rate limiter falling back to local window for policy {}: {}", policy, e.getMessage());
+            source = "local";
+            retryAfterMillis = tryAcquireLocally(policy + ":" + key, limit, window.toMillis());
+        }
+
+        boolean allowed = retryAfterMillis == 0;
+        meterRegistry.counter("ratelimit.requests",
+                "policy", policy, "result", allowed ? "allowed" : "throttled", "source", source).increment();
+        return new Decision(allowed, Duration.ofMillis(retryAfterMillis));
+    }
+
+    private long tryAcquireLocally(String key, int limit, long windowMillis) {
+        Deque<Long> timestamps = localWindows.get(key, k -> new ArrayDeque<>());
+        synchronized (timestamps) {
+            long now = System.currentTimeMillis();
+            while (!timestamps.isEmpty() && timestamps.peekFirst() <= now - windowMillis) {
+                timestamps.pollFirst();
+            }
+            if (timestamps.size() < limit) {
+                timestamps.addLast(now);
+                return 0;
+            }
+            return Math.max(1, timestamps.peekFirst() + windowMillis - now);
+        }
+    }
+}
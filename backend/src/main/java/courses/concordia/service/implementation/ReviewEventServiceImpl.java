@@ -0,0 +1,403 @@
+package courses.concordia.service.implementation;
+
+import courses.concordia.config.ReviewEventConfigProperties;
+import courses.concordia.dto.mapper.ReviewMapper;
+import courses.concordia.model.Review;
+import courses.concordia.model.ReviewEvent;
+import courses.concordia.model.ReviewEvent.Step;
+import courses.concordia.service.*;
+import courses.concordia.service.ReviewStatisticsService.ReviewSnapshot;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static courses.concordia.model.ReviewEvent.Status.*;
+import static courses.concordia.util.CacheTags.REVIEW_WRITE_CACHES;
+
+/**
+ * Applies the side effects of review writes in the background: statistics maintenance, cache invalidation,
+ * notification fan-out and interaction cleanup. Review writes store an event with the review and return;
+ * a bounded pool of workers claims events with a lease and retries failed ones with exponential backoff.
+ * An event is only claimed once a worker is free to start it, and its lease is renewed before every side effect,
+ * so a lease never runs out while the event waits. Events of the same review are processed in the order they
+ * were written, since only the oldest unfinished event of a review can be claimed.
+ */
+@Service
+@Slf4j
+public class ReviewEventServiceImpl implements ReviewEventService {
+    // Due events looked at per claim, some may be waiting for an earlier event of the same review
+    private static final int CLAIM_CANDIDATES = 10;
+
+    private final MongoTemplate mongoTemplate;
+    private final ReviewStatisticsService reviewStatisticsService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final NotificationService notificationService;
+    private final InteractionService interactionService;
+    private final ReviewEventConfigProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor workers;
+    // One permit per worker, held from the claim of an event until it is processed
+    private final Semaphore slots;
+    // Runs the drains requested on publish; one pending request is enough since a drain takes everything due
+    private final ThreadPoolExecutor dispatcher;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+
+    public ReviewEventServiceImpl(MongoTemplate mongoTemplate, ReviewStatisticsService reviewStatisticsService,
+                                  CacheInvalidationService cacheInvalidationService, NotificationService notificationService,
+                                  InteractionService interactionService, ReviewEventConfigProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.reviewStatisticsService = reviewStatisticsService;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.notificationService = notificationService;
+        this.interactionService = interactionService;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getWorkers()), threadFactory("review-events-"));
+        this.slots = new Semaphore(properties.getWorkers());
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), threadFactory("review-events-dispatch-"), new ThreadPoolExecutor.DiscardPolicy());
+        Gauge.builder("review.events.oldest.pending", oldestPendingAgeMillis, AtomicLong::get)
+                .description("Age of the oldest event waiting to be processed")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stores an event, as part of the transaction of the review write when there is one.
+     * The workers are woken up once the transaction commits, or by the next poll.
+     *
+     * @param event The event of the review write.
+     */
+    @Override
+    public void publish(ReviewEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        mongoTemplate.insert(event
+                .setCreatedAt(now)
+                .setNextAttemptAt(now));
+        meterRegistry.counter("review.events.published", "type", event.getType().name()).increment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatcher.execute(ReviewEventServiceImpl.this::drain);
+                }
+            });
+        } else {
+            dispatcher.execute(this::drain);
+        }
+    }
+
+    /**
+     * Claims the events due for processing one at a time and hands each to a free worker, until every worker is busy.
+     * Runs on a fixed delay to pick up retries and events published on other nodes.
+     */
+    @Scheduled(fixedDelayString = "#{@reviewEventConfigProperties.pollInterval.toMillis()}")
+    @Override
+    public void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            recordOldestPendingAge();
+            while (slots.tryAcquire()) {
+                boolean handedOff = false;
+                try {
+                    ReviewEvent event = claim();
+                    if (event == null) {
+                        break;
+                    }
+                    workers.execute(() -> {
+                        try {
+                            process(event);
+                        } finally {
+                            slots.release();
+                        }
+                    });
+                    handedOff = true;
+                } finally {
+                    if (!handedOff) {
+                        slots.release();
+                    }
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            log.info("Review event workers are shutting down, claimed events will be retried after their lease");
+        } catch (Exception e) {
+            log.error("Failed to drain the review events", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        dispatcher.shutdownNow();
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Leases the oldest event that is due, or whose previous lease expired, under a new owner and counts an attempt.
+     * An event is skipped while an earlier event of the same review is unfinished.
+     *
+     * @return The claimed event, or null if none is due.
+     */
+    private ReviewEvent claim() {
+        LocalDateTime now = LocalDateTime.now();
+        Query candidates = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(PROCESSING).and("lockedUntil").lte(now)))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(CLAIM_CANDIDATES);
+        candidates.fields().include("_id", "reviewId", "status");
+
+        for (ReviewEvent candidate : mongoTemplate.find(candidates, ReviewEvent.class)) {
+            if (hasUnfinishedPredecessor(candidate)) {
+                continue;
+            }
+            // The claim repeats the due condition, so only one claimer wins the event
+            Criteria due = Criteria.where("_id").is(candidate.get_id()).and("status").is(candidate.getStatus());
+            Query query = new Query(candidate.getStatus() == PENDING ? due.and("nextAttemptAt").lte(now) : due.and("lockedUntil").lte(now));
+            Update update = new Update()
+                    .set("status", PROCESSING)
+                    .set("owner", UUID.randomUUID().toString())
+                    .set("lockedUntil", now.plus(properties.getLease()))
+                    .inc("attempts", 1);
+            ReviewEvent claimed = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), ReviewEvent.class);
+            if (claimed != null) {
+                return claimed;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasUnfinishedPredecessor(ReviewEvent event) {
+        return mongoTemplate.exists(new Query(Criteria.where("reviewId").is(event.getReviewId())
+                .and("_id").lt(event.get_id())
+                .and("status").in(PENDING, PROCESSING)), ReviewEvent.class);
+    }
+
+    private void recordOldestPendingAge() {
+        Query query = new Query(Criteria.where("status").in(PENDING, PROCESSING))
+                .with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.fields().include("createdAt");
+        ReviewEvent oldest = mongoTemplate.findOne(query, ReviewEvent.class);
+        oldestPendingAgeMillis.set(oldest == null ? 0
+                : Math.max(0, Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toMillis()));
+    }
+
+    /**
+     * Applies the side effects of an event that were not applied by a previous attempt, then records the outcome.
+     */
+    private void process(ReviewEvent event) {
+        try {
+            switch (event.getType()) {
+                case UPSERTED -> {
+                    step(event, Step.STATISTICS, () -> applyStatisticsDelta(event.get_id(), event.getPrevious(), event.getCurrent()));
+                    step(event, Step.CACHES, () -> evictCachedReviewPages(event.isCreated(), event.getPrevious(), event.getCurrent()));
+                    step(event, Step.NOTIFICATIONS, () -> {
+                        // A review deleted in the meantime no longer notifies anyone
+                        Review review = mongoTemplate.findById(event.getReviewId(), Review.class);
+                        if (review == null) {
+                            return;
+                        }
+                        if (event.isCreated()) {
+                            notificationService.addNotifications(ReviewMapper.toDto(review));
+                        } else {
+                            notificationService.updateNotifications(review.getUserId(), review.getCourseId(), ReviewMapper.toDto(review));
+                        }
+                    });
+                }
+                case DELETED -> {
+                    ReviewSnapshot previous = event.getPrevious();
+                    step(event, Step.STATISTICS, () -> applyStatisticsDelta(event.get_id(), previous, null));
+                    step(event, Step.CACHES, () -> evictCachedReviewPages(true, previous));
+                    step(event, Step.INTERACTIONS, () -> interactionService.deleteInteractions(
+                            previous.courseId(), previous.instructorId(), event.getUserId(), event.getReviewType()));
+                    step(event, Step.NOTIFICATIONS, () -> notificationService.deleteNotification(
+                            event.getUserId(), null, previous.courseId()));
+                }
+            }
+            done(event);
+        } catch (LeaseLostException e) {
+            log.warn("Lease on {} event of review {} was taken over, leaving it to the new owner", event.getType(), event.getReviewId());
+            count(event, "lease_lost");
+        } catch (Exception e) {
+            failed(event, e);
+        }
+    }
+
+    /**
+     * Renews the lease of the event, then applies a side effect unless a previous attempt already completed it.
+     * The side effects are safe to repeat when a worker stops between applying one and recording it.
+     */
+    private void step(ReviewEvent event, Step step, Runnable action) {
+        if (event.getCompletedSteps().contains(step)) {
+            return;
+        }
+        if (!updateOwned(event, new Update().set("lockedUntil", LocalDateTime.now().plus(properties.getLease())))) {
+            throw new LeaseLostException();
+        }
+        action.run();
+        event.getCompletedSteps().add(step);
+        updateOwned(event, new Update().addToSet("completedSteps", step));
+    }
+
+    /**
+     * Updates the event only while this worker still holds its lease.
+     *
+     * @return Whether the lease was still held.
+     */
+    private boolean updateOwned(ReviewEvent event, Update update) {
+        Query query = new Query(Criteria.where("_id").is(event.get_id())
+                .and("owner").is(event.getOwner())
+                .and("status").is(PROCESSING));
+        return mongoTemplate.updateFirst(query, update, ReviewEvent.class).getMatchedCount() > 0;
+    }
+
+    private void done(ReviewEvent event) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .set("status", DONE)
+                .set("processedAt", now)
+                .unset("lockedUntil")
+                .unset("owner")
+                .unset("lastError");
+        if (!updateOwned(event, update)) {
+            log.warn("Lease on {} event of review {} was taken over before it was marked done", event.getType(), event.getReviewId());
+            count(event, "lease_lost");
+            return;
+        }
+        meterRegistry.timer("review.events.lag", "type", event.getType().name())
+                .record(Duration.between(event.getCreatedAt(), now));
+        count(event, "done");
+    }
+
+    private void failed(ReviewEvent event, Exception e) {
+        Update update = new Update()
+                .unset("lockedUntil")
+                .unset("owner")
+                .set("lastError", String.valueOf(e.getMessage()));
+        boolean dead = event.getAttempts() >= properties.getMaxAttempts();
+        Duration backoff = backoff(event.getAttempts());
+        if (dead) {
+            update.set("status", DEAD);
+        } else {
+            update.set("status", PENDING).set("nextAttemptAt", LocalDateTime.now().plus(backoff));
+        }
+        if (!updateOwned(event, update)) {
+            log.warn("Lease on {} event of review {} was taken over before its failure was recorded: {}", event.getType(), event.getReviewId(), e.getMessage());
+            count(event, "lease_lost");
+            return;
+        }
+        if (dead) {
+            log.error("Dead-lettering {} event of review {} after {} attempts", event.getType(), event.getReviewId(), event.getAttempts(), e);
+            count(event, "dead");
+        } else {
+            log.warn("Failed to process {} event of review {}, retrying in {}: {}", event.getType(), event.getReviewId(), backoff, e.getMessage());
+            count(event, "retry");
+        }
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = properties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return backoff.compareTo(properties.getMaxBackoff()) > 0 ? properties.getMaxBackoff() : backoff;
+    }
+
+    private void count(ReviewEvent event, String result) {
+        meterRegistry.counter("review.events.processed", "type", event.getType().name(), "result", result).increment();
+    }
+
+    /**
+     * Applies the change from the previous to the current version of a review to the statistics of
+     * every course and instructor it references. When a write moves the review to another course or
+     * instructor, the old one loses its contribution and the new one gains it.
+     *
+     * @param eventId  The ID of the event, a course or instructor that already applied it is left unchanged.
+     * @param previous The review before the write, or null if it was added.
+     * @param current  The review after the write, or null if it was deleted.
+     */
+    private void applyStatisticsDelta(String eventId, ReviewSnapshot previous, ReviewSnapshot current) {
+        String previousCourseId = previous == null ? null : previous.courseId();
+        String currentCourseId = current == null ? null : current.courseId();
+        if (Objects.equals(previousCourseId, currentCourseId)) {
+            if (currentCourseId != null) reviewStatisticsService.applyCourseReviewDelta(currentCourseId, eventId, previous, current);
+        } else {
+            if (previousCourseId != null) reviewStatisticsService.applyCourseReviewDelta(previousCourseId, eventId, previous, null);
+            if (currentCourseId != null) reviewStatisticsService.applyCourseReviewDelta(currentCourseId, eventId, null, current);
+        }
+
+        String previousInstructorId = previous == null ? null : previous.instructorId();
+        String currentInstructorId = current == null ? null : current.instructorId();
+        if (Objects.equals(previousInstructorId, currentInstructorId)) {
+            if (currentInstructorId != null) reviewStatisticsService.applyInstructorReviewDelta(currentInstructorId, eventId, previous, current);
+        } else {
+            if (previousInstructorId != null) reviewStatisticsService.applyInstructorReviewDelta(previousInstructorId, eventId, previous, null);
+            if (currentInstructorId != null) reviewStatisticsService.applyInstructorReviewDelta(currentInstructorId, eventId, null, current);
+        }
+    }
+
+    /**
+     * Evicts the cached pages containing the courses and instructors of the written review.
+     * Adding or removing a review shifts every page of the global review list, so that cache is cleared.
+     *
+     * @param membershipChanged Whether a review was added or removed rather than edited.
+     * @param snapshots         The versions of the review before and after the write.
+     */
+    private void evictCachedReviewPages(boolean membershipChanged, ReviewSnapshot... snapshots) {
+        for (ReviewSnapshot snapshot : snapshots) {
+            if (snapshot != null) {
+                cacheInvalidationService.evictByCourse(snapshot.courseId(), REVIEW_WRITE_CACHES);
+                cacheInvalidationService.evictByInstructor(snapshot.instructorId(), REVIEW_WRITE_CACHES);
+            }
+        }
+        if (membershipChanged) {
+            cacheInvalidationService.evictAll("reviewsCacheWithFilters");
+        }
+    }
+
+    /**
+     * Thrown when the lease of an event expired and another worker claimed it.
+     */
+    private static class LeaseLostException extends RuntimeException {
+        LeaseLostException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package courses.concordia.service.implementation;
+
+import courses.concordia.dto.model.course.CourseReviewsDto;
+import courses.concordia.dto.model.instructor.InstructorReviewsDto;
+import courses.concordia.dto.model.review.ReviewDto;
+import courses.concordia.dto.model.review.ReviewOverlayDto;
+import courses.concordia.model.Review;
+import courses.concordia.service.InteractionService;
+import courses.concordia.service.ReviewOverlayService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Adds the part specific to the requesting user to the cached course and instructor review pages, which are shared
+ * by all users: whether and where the user reviewed, and the user's votes on the reviews of the page.
+ * The overlay costs one lookup of the user's review and one query for the user's votes on the page, both indexed.
+ * Cached pages are never modified, the overlay is applied to a copy.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class ReviewOverlayServiceImpl implements ReviewOverlayService {
+    private final MongoTemplate mongoTemplate;
+    private final InteractionService interactionService;
+
+    /**
+     * Returns a copy of a course review page with the overlay of a user.
+     *
+     * @param page   The shared page.
+     * @param userId The unique identifier of the user requesting the page, or null for an anonymous user.
+     * @return The page as seen by the user.
+     */
+    @Override
+    public CourseReviewsDto withOverlay(CourseReviewsDto page, String userId) {
+        if (!isUser(userId)) {
+            return page;
+        }
+        ReviewOverlayDto overlay = overlay("course", page.getCourse().get_id(), page.getReviews(), userId);
+        return new CourseReviewsDto()
+                .setCourse(page.getCourse())
+                .setReviews(page.getReviews())
+                .setTotalReviews(page.getTotalReviews())
+                .setNextCursor(page.getNextCursor())
+                .setHasUserReviewed(overlay.isHasUserReviewed())
+                .setUserOverlay(overlay);
+    }
+
+    /**
+     * Returns a copy of an instructor review page with the overlay of a user.
+     *
+     * @param page   The shared page.
+     * @param userId The unique identifier of the user requesting the page, or null for an anonymous user.
+     * @return The page as seen by the user.
+     */
+    @Override
+    public InstructorReviewsDto withOverlay(InstructorReviewsDto page, String userId) {
+        if (!isUser(userId)) {
+            return page;
+        }
+        ReviewOverlayDto overlay = overlay("instructor", page.getInstructor().get_id(), page.getReviews(), userId);
+        return new InstructorReviewsDto()
+                .setInstructor(page.getInstructor())
+                .setReviews(page.getReviews())
+                .setTotalReviews(page.getTotalReviews())
+                .setNextCursor(page.getNextCursor())
+                .setHasUserReviewed(overlay.isHasUserReviewed())
+                .setUserOverlay(overlay);
+    }
+
+    /**
+     * Computes the overlay of a user on a page of the reviews of a course or instructor.
+     *
+     * @param type    The type of the page, course or instructor.
+     * @param id      The ID of the course or instructor.
+     * @param reviews The reviews of the page.
+     * @param userId  The unique identifier of the user.
+     * @return The overlay of the user.
+     */
+    private ReviewOverlayDto overlay(String type, String id, List<ReviewDto> reviews, String userId) {
+        String scopeField = type + "Id";
+        Query ownReview = new Query(Criteria.where("userId").is(userId).and(scopeField).is(id));
+        ownReview.fields().include("_id");
+        Review review = mongoTemplate.findOne(ownReview, Review.class);
+
+        Integer position = null;
+        Set<String> authorIds = new HashSet<>();
+        for (int i = 0; i < reviews.size(); i++) {
+            ReviewDto listed = reviews.get(i);
+            if (review != null && review.get_id().equals(listed.get_id())) {
+                position = i;
+            }
+            if (type.equals(listed.getType()) && listed.getUserId() != null) {
+                authorIds.add(listed.getUserId());
+            }
+        }
+
+        return new ReviewOverlayDto()
+                .setUserId(userId)
+                .setHasUserReviewed(review != null)
+                .setUserReviewId(review != null ? review.get_id() : null)
+                .setUserReviewPosition(position)
+                .setInteractions(interactionService.getUserInteractions(id, userId, type, authorIds));
+    }
+
+    private static boolean isUser(String userId) {
+        return userId != null && !userId.equals("null");
+    }
+}
@@ -1,72 +1,107 @@
 package courses.concordia.service.implementation;
 
-import com.google.gson.reflect.TypeToken;
+import courses.concordia.config.ReviewConfigProperties;
+import courses.concordia.config.ReviewEventConfigProperties;
 import courses.concordia.dto.mapper.ReviewMapper;
 import courses.concordia.dto.model.CommentDto;
+import courses.concordia.dto.model.CommentPageDto;
+import courses.concordia.dto.model.ResourceLinkDto;
+import courses.concordia.dto.model.ResourceLinkPageDto;
+import courses.concordia.dto.model.integrity.IntegrityFindingDto;
 import courses.concordia.dto.model.review.ReviewDto;
 import courses.concordia.dto.model.review.ReviewFilterDto;
+import courses.concordia.dto.model.review.ReviewPageDto;
 import courses.concordia.dto.response.ProcessingResult;
 import courses.concordia.exception.CustomExceptionFactory;
 import courses.concordia.exception.EntityType;
 import courses.concordia.exception.ExceptionType;
 import courses.concordia.model.*;
 import courses.concordia.repository.*;
+import courses.concordia.service.CacheInvalidationService;
+import courses.concordia.service.IntegrityScanService;
+import courses.concordia.service.ReviewEventService;
 import courses.concordia.service.ReviewService;
+import courses.concordia.service.ReviewStatisticsService;
+import courses.concordia.service.ReviewStatisticsService.ReviewSnapshot;
 import courses.concordia.service.TokenBlacklistService;
 import courses.concordia.util.JsonUtils;
-import jakarta.annotation.PostConstruct;
+import courses.concordia.util.ReviewCursor;
+import courses.concordia.util.ReviewProjection;
 import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
 import lombok.extern.slf4j.Slf4j;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.modelmapper.ModelMapper;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static courses.concordia.util.CacheTags.REVIEW_PAGE_CACHES;
+import static courses.concordia.util.CacheTags.REVIEW_WRITE_CACHES;
 
 @RequiredArgsConstructor
 @Service
 @Slf4j
 public class ReviewServiceImpl implements ReviewService {
     private final ReviewRepository reviewRepository;
-    private final CourseRepository courseRepository;
-    private final InstructorRepository instructorRepository;
-    private final CommentRepository commentRepository;
     private final ResourceLinkRepository resourceLinkRepository;
     private final TokenBlacklistService blacklistService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final IntegrityScanService integrityScanService;
+    private final ReviewEventService reviewEventService;
+    private final ReviewEventConfigProperties reviewEventConfigProperties;
+    private final ReviewConfigProperties reviewConfigProperties;
+    private final TransactionTemplate mongoTransactionTemplate;
+    private final ReviewStatisticsService reviewStatisticsService;
     private final MongoTemplate mongoTemplate;
     private final ModelMapper modelMapper;
-    private static final Map<String, Instructor.Course> courseMap = new HashMap<>();
+    private final MeterRegistry meterRegistry;
+    private static final int DELETE_BATCH_SIZE = 500;
 
-    @PostConstruct
-    public void init() {
-        try {
-            InputStream is = getClass().getResourceAsStream("/subject-catalogs.json");
-            if (is == null) {
-                throw new IllegalStateException("Resource subject-catalogs.json not found");
-            }
-            Map<String, List<String>> coursesData = JsonUtils.getData(is, new TypeToken<Map<String, List<String>>>() {
-            });
-            if (coursesData != null) {
-                coursesData.forEach((key, values) -> values.forEach(value -> {
-                    String courseKey = key + value;
-                    Instructor.Course course = new Instructor.Course(key, value, "concordia-university");
-                    courseMap.put(courseKey, course);
-                }));
-            }
-        } catch (Exception e) {
-            log.error("Failed to initialize course data", e);
-            throw new RuntimeException("Failed to initialize course data", e);
+    /**
+     * Fills in the comment and resource link counts of reviews written before the counts existed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAttachmentCounts() {
+        Query missing = new Query(new Criteria().orOperator(
+                Criteria.where("commentCount").exists(false),
+                Criteria.where("resourceLinkCount").exists(false)));
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("commentCount").toValue(ArrayOperators.Size.lengthOfArray(
+                        ConditionalOperators.ifNull("comments").then(List.of())))
+                .set("resourceLinkCount").toValue(ArrayOperators.Size.lengthOfArray(
+                        ConditionalOperators.ifNull("resourceLinks").then(List.of())));
+        long updated = mongoTemplate.updateMulti(missing, update, Review.class).getModifiedCount();
+        if (updated > 0) {
+            log.info("Backfilled comment and resource link counts of {} reviews", updated);
         }
     }
 
@@ -78,16 +113,9 @@ public class ReviewServiceImpl implements ReviewService {
      * @return The added or updated review data transfer object.
      */
     @Caching(evict = {
-            @CacheEvict(value = "courseReviewsCache", allEntries = true, condition = "#reviewDto.type.equals('course')"),
-            @CacheEvict(value = "instructorReviewsCache", allEntries = true, condition = "#reviewDto.type.equals('instructor')"),
-            @CacheEvict(value = "coursesCacheWithFilters", allEntries = true, condition = "#reviewDto.type.equals('course')"),
-            @CacheEvict(value = "instructorsCacheWithFilters", allEntries = true, condition = "#reviewDto.type.equals('instructor')"),
-            @CacheEvict(value = "reviewsCacheWithFilters", allEntries = true),
-            @CacheEvict(value = "instructorsCache", allEntries = true),
             @CacheEvict(value = "courseInstructorsCache", key = "#reviewDto.courseId"),
             @CacheEvict(value = "homeStatsCache", allEntries = true)
     })
-    @Transactional
     @Override
     public ReviewDto addOrUpdateReview(ReviewDto reviewDto) {
         checkBlacklistedUser(reviewDto.getUserId());
@@ -96,21 +124,18 @@ public class ReviewServiceImpl implements ReviewService {
         boolean isNewReview;
 
         if (reviewDto.getType() != null) {
+            Optional<Review> existingReviewOpt;
             if (reviewDto.getType().equals("instructor")) {
-                Optional<Review> existingReviewOpt = reviewRepository
+                existingReviewOpt = reviewRepository
                         .findByInstructorIdAndUserIdAndType(reviewDto.getInstructorId(), reviewDto.getUserId(), reviewDto.getType());
-                isNewReview = existingReviewOpt.isEmpty();
-                review = existingReviewOpt
-                        .map(r -> updateReviewFromDto(r, reviewDto))
-                        .orElseGet(() -> createReviewFromDto(reviewDto));
             } else {
-                Optional<Review> existingReviewOpt = reviewRepository
+                existingReviewOpt = reviewRepository
                         .findByCourseIdAndUserIdAndType(reviewDto.getCourseId(), reviewDto.getUserId(), reviewDto.getType());
-                isNewReview = existingReviewOpt.isEmpty();
-                review = existingReviewOpt
-                        .map(r -> updateReviewFromDto(r, reviewDto))
-                        .orElseGet(() -> createReviewFromDto(reviewDto));
             }
+            isNewReview = existingReviewOpt.isEmpty();
+            review = existingReviewOpt
+                    .map(r -> updateReviewFromDto(r, reviewDto))
+                    .orElseGet(() -> createReviewFromDto(reviewDto));
 
             // Handle ResourceLinks
             if (reviewDto.getResourceLinks() != null) {
@@ -162,13 +187,39 @@ public class ReviewServiceImpl implements ReviewService {
             }
 
 
-            review = reviewRepository.save(review);
-
-            if (reviewDto.getType().equals("instructor")) {
-                updateInstructorRatingCoursesAndTags(review.getInstructorId());
-            } else {
-                updateCourseExperience(review.getCourseId());
-            }
+            review.setCommentCount(review.getComments().size());
+            review.setResourceLinkCount(review.getResourceLinks().size());
+            Review toSave = review;
+            review = inTransaction(() -> {
+                Review saved;
+                ReviewSnapshot previous = null;
+                if (isNewReview) {
+                    saved = reviewRepository.insert(toSave);
+                } else {
+                    // The version replaced is returned by the write itself, so the old contribution subtracted
+                    // from the statistics is never one that a concurrent edit already overwrote
+                    Review replaced = mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(toSave.get_id())),
+                            editUpdate(toSave), Review.class);
+                    if (replaced == null) {
+                        throw exception(toSave.get_id());
+                    }
+                    previous = ReviewSnapshot.of(replaced);
+                    // The fields left out of the edit are returned as they were when it was written
+                    saved = toSave
+                            .setComments(replaced.getComments())
+                            .setCommentCount(replaced.getCommentCount())
+                            .setLikes(replaced.getLikes());
+                }
+                reviewEventService.publish(new ReviewEvent()
+                        .setType(ReviewEvent.Type.UPSERTED)
+                        .setReviewId(saved.get_id())
+                        .setReviewType(saved.getType())
+                        .setUserId(saved.getUserId())
+                        .setCreated(isNewReview)
+                        .setPrevious(previous)
+                        .setCurrent(ReviewSnapshot.of(saved)));
+                return saved;
+            });
 
             return ReviewMapper.toDto(review);
         } else {
@@ -176,6 +227,33 @@ public class ReviewServiceImpl implements ReviewService {
         }
     }
 
+    /**
+     * Builds the update applying an edit to the fields the author owns.
+     * Comments and likes are changed by their own atomic operations, so the values read before the edit are
+     * never written back over them.
+     *
+     * @param review The edited review.
+     * @return The update setting every field of the review except its comments and likes.
+     */
+    private static Update editUpdate(Review review) {
+        return new Update()
+                .set("type", review.getType())
+                .set("content", review.getContent())
+                .set("timestamp", review.getTimestamp())
+                .set("adminReviewedAt", review.getAdminReviewedAt())
+                .set("flagged", review.isFlagged())
+                .set("userId", review.getUserId())
+                .set("difficulty", review.getDifficulty())
+                .set("courseId", review.getCourseId())
+                .set("instructorId", review.getInstructorId())
+                .set("experience", review.getExperience())
+                .set("rating", review.getRating())
+                .set("tags", review.getTags())
+                .set("schoolId", review.getSchoolId())
+                .set("resourceLinks", review.getResourceLinks())
+                .set("resourceLinkCount", review.getResourceLinkCount());
+    }
+
     /**
      * Creates a Review entity from a ReviewDto.
      *
@@ -186,6 +264,7 @@ public class ReviewServiceImpl implements ReviewService {
         Review review = modelMapper.map(reviewDto, Review.class);
         // Resource links will be handled after this stage in addOrUpdateReview
         review.setResourceLinks(new ArrayList<>()); // Initialize to avoid null pointer if not set by DTO
+        review.setComments(new ArrayList<>()); // Comments are only added through the comment operations
         return review; // Not saving here, will be saved in addOrUpdateReview after resource links handling
     }
 
@@ -203,8 +282,11 @@ public class ReviewServiceImpl implements ReviewService {
     private Review updateReviewFromDto(Review existingReview, ReviewDto reviewDto) {
         // Preserve existing resource links, they will be explicitly managed
         List<ResourceLink> currentResourceLinks = new ArrayList<>(existingReview.getResourceLinks());
+        // Preserve existing comments, a review from a listing only carries the latest one
+        List<Comment> currentComments = new ArrayList<>(existingReview.getComments());
         modelMapper.map(reviewDto, existingReview);
         existingReview.setResourceLinks(currentResourceLinks); // Restore after mapping
+        existingReview.setComments(currentComments);
         if (reviewDto.getTags().isEmpty())
             existingReview.setTags(Collections.emptySet()); // By default, ModelMapper does not map empty collections
         // Not saving here, will be saved in addOrUpdateReview after resource links handling
@@ -217,29 +299,28 @@ public class ReviewServiceImpl implements ReviewService {
      * @param id The ID of the review.
      */
     @Caching(evict = {
-            @CacheEvict(value = "courseReviewsCache", allEntries = true, condition = "#type.equals('course')"),
-            @CacheEvict(value = "instructorReviewsCache", allEntries = true, condition = "#type.equals('instructor')"),
-            @CacheEvict(value = "coursesCacheWithFilters", allEntries = true),
-            @CacheEvict(value = "instructorsCacheWithFilters", allEntries = true),
-            @CacheEvict(value = "reviewsCacheWithFilters", allEntries = true),
-            @CacheEvict(value = "instructorsCache", allEntries = true),
             @CacheEvict(value = "courseInstructorsCache", key = "#courseId"),
             @CacheEvict(value = "homeStatsCache", allEntries = true)
     })
-    @Transactional
     @Override
     public void deleteReview(String id, String type, String courseId, String instructorId) {
-        Optional<Review> review = reviewRepository.findById(id);
-        if (review.isEmpty() || review.get().getType() == null) {
-            throw exception(id);
-        } else {
-            if (review.get().getType().equals("instructor")) {
-                reviewRepository.deleteById(id);
-                updateInstructorRatingCoursesAndTags(review.get().getInstructorId());
-            } else {
-                reviewRepository.deleteById(id);
-                updateCourseExperience(review.get().getCourseId());
+        // The removed version is returned by the delete itself, so only the delete that actually removed the
+        // review publishes its event, with the contribution it had when it was removed
+        Review deleted = inTransaction(() -> {
+            Review removed = mongoTemplate.findAndRemove(
+                    new Query(Criteria.where("_id").is(id).and("type").ne(null)), Review.class);
+            if (removed != null) {
+                reviewEventService.publish(new ReviewEvent()
+                        .setType(ReviewEvent.Type.DELETED)
+                        .setReviewId(id)
+                        .setReviewType(removed.getType())
+                        .setUserId(removed.getUserId())
+                        .setPrevious(ReviewSnapshot.of(removed)));
             }
+            return removed;
+        });
+        if (deleted == null) {
+            throw exception(id);
         }
     }
 
@@ -253,7 +334,7 @@ public class ReviewServiceImpl implements ReviewService {
     public List<ReviewDto> getUserReviews(String userId) {
         log.info("Retrieving reviews for user with ID {}", userId);
         Query query = new Query(Criteria.where("userId").is(userId)).with(Sort.by(Sort.Direction.DESC, "timestamp"));
-        return mongoTemplate.find(query, Review.class)
+        return mongoTemplate.find(ReviewProjection.listing(query), Review.class)
                 .stream()
                 .map(review -> modelMapper.map(review, ReviewDto.class))
                 .collect(Collectors.toList());
@@ -272,13 +353,42 @@ public class ReviewServiceImpl implements ReviewService {
     public List<ReviewDto> getReviewsWithFilter(int limit, int offset, ReviewFilterDto filters) {
         log.info("Retrieving reviews with limit {}, offset {}, and filters {}", limit, offset, filters);
         Pageable pageable = PageRequest.of(offset / limit, limit);
-        Page<Review> page = findFilteredReviews(filters, pageable);
-        return page.getContent()
+        return findFilteredReviews(filters, pageable)
                 .stream()
                 .map(review -> modelMapper.map(review, ReviewDto.class))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Retrieves reviews based on filtering criteria using keyset pagination.
+     * Each page seeks past the last review of the previous one instead of skipping the earlier pages.
+     *
+     * @param limit   The maximum number of reviews to return.
+     * @param cursor  The cursor returned with the previous page, or blank for the first page.
+     * @param filters The filtering criteria for reviews.
+     * @return A {@link ReviewPageDto} with the reviews and the cursor of the next page, null on the last page.
+     */
+    @Cacheable(value = "reviewsCacheWithFilters", key = "{'cursor', #limit, #cursor, #filters.hashCode()}")
+    @Override
+    public ReviewPageDto getReviewsWithFilter(int limit, String cursor, ReviewFilterDto filters) {
+        log.info("Retrieving reviews with limit {}, cursor {}, and filters {}", limit, cursor, filters);
+        String sortField = filterSortField(filters);
+        Query query = new Query();
+        if (cursor != null && !cursor.isBlank()) {
+            query.addCriteria(ReviewCursor.decode(cursor, sortField, Sort.Direction.DESC).criteria());
+        }
+        query.with(ReviewCursor.sort(sortField, Sort.Direction.DESC)).limit(limit);
+
+        List<Review> page = mongoTemplate.find(ReviewProjection.listing(query), Review.class);
+        String nextCursor = page.size() < limit ? null
+                : ReviewCursor.after(page.get(page.size() - 1), sortField, Sort.Direction.DESC, 0).encode();
+        return new ReviewPageDto()
+                .setReviews(page.stream()
+                        .map(review -> modelMapper.map(review, ReviewDto.class))
+                        .collect(Collectors.toList()))
+                .setNextCursor(nextCursor);
+    }
+
     /**
      * Retrieves a review given its id.
      *
@@ -298,6 +408,11 @@ public class ReviewServiceImpl implements ReviewService {
 
     /**
      * Uploads reviews from a file.
+     * The file is decoded incrementally and reviews are written in unordered chunks, so memory stays bounded by
+     * the chunk size and each chunk costs one duplicate lookup and one bulk insert. A review is a duplicate if
+     * one with the same timestamp, instructor and course already exists, in the database or earlier in the file.
+     * Uploaded reviews publish no events, so the statistics of the courses and instructors they reference are
+     * recomputed once the file is written.
      *
      * @param file The file containing reviews.
      * @return A ProcessingResult object containing the result of the review upload.
@@ -306,42 +421,54 @@ public class ReviewServiceImpl implements ReviewService {
     @CacheEvict(value = "homeStatsCache", allEntries = true)
     public ProcessingResult uploadReviews(MultipartFile file) {
         log.info("Starting to upload reviews from file: {}", file.getOriginalFilename());
-        List<ReviewDto> reviewDtos = processReviewFile(file);
+        long start = System.nanoTime();
 
         ProcessingResult result = new ProcessingResult();
+        Set<String> instructorIds = new HashSet<>(mongoTemplate.findDistinct(new Query(), "_id", Instructor.class, String.class));
+        Set<String> seenKeys = new HashSet<>();
+        Set<String> courseIds = new HashSet<>();
+        Set<String> reviewedInstructorIds = new HashSet<>();
+        int chunkSize = reviewConfigProperties.getUpload().getChunkSize();
+        List<Review> chunk = new ArrayList<>(chunkSize);
 
-        for (ReviewDto dto : reviewDtos) {
-            if (dto.getContent() == null || dto.getContent().isBlank() || !dto.getContent().matches(".*[a-zA-Z].*") || dto.getContent().matches("^[a-zA-Z0-9]{1,3}$")) {
-                result.incrementFailed();
-                result.addError("Review content is empty");
-                continue;
-            }
-            try {
-                Review review = modelMapper.map(dto, Review.class);
-
-                if (reviewRepository.existsByTimestampAndInstructorIdAndCourseId(review.getTimestamp(), review.getInstructorId(), review.getCourseId())) {
+        try (InputStream inputStream = file.getInputStream()) {
+            JsonUtils.streamArray(inputStream, ReviewDto.class, dto -> {
+                Review review = toUploadedReview(dto, instructorIds, result);
+                if (review == null) {
+                    return;
+                }
+                if (!seenKeys.add(naturalKey(review))) {
                     result.incrementAlreadyExists();
-                } else {
-                    // New review, add it
-                    if (instructorRepository.existsById(review.getInstructorId())) {
-                        reviewRepository.save(review);
-                        result.incrementAdded();
-                    } else {
-                        result.incrementFailed();
-                        result.addError("Instructor with ID " + review.getInstructorId() + " does not exist");
-                    }
+                    return;
+                }
+                chunk.add(review);
+                if (chunk.size() >= chunkSize) {
+                    insertUploadedChunk(chunk, result, courseIds, reviewedInstructorIds);
+                    chunk.clear();
                 }
+            });
+        } catch (IOException e) {
+            String errorMsg = "Failed to process review file: " + file.getOriginalFilename();
+            log.error(errorMsg, e);
+            throw new RuntimeException(errorMsg, e);
+        }
+        insertUploadedChunk(chunk, result, courseIds, reviewedInstructorIds);
 
-            } catch (Exception e) {
-                String errorMsg = String.format("Failed to process review (instructorId=%s, courseId=%s, timestamp=%s, userId=%s): %s",
-                        dto.getInstructorId(), dto.getCourseId(), dto.getTimestamp(), dto.getUserId(), e.getMessage());
-                log.error(errorMsg, e);
-                result.addError(errorMsg);
-                result.incrementFailed();
-            }
+        if (result.getAddedCount() > 0) {
+            courseIds.forEach(reviewStatisticsService::recomputeCourseStatistics);
+            reviewedInstructorIds.forEach(reviewStatisticsService::recomputeInstructorStatistics);
+            cacheInvalidationService.evictAll(REVIEW_WRITE_CACHES);
         }
 
-        log.info("Reviews processing completed. Added: {}, AlreadyExist: {}, Failed: {}",
+        double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-3);
+        int processed = result.getAddedCount() + result.getAlreadyExistsCount() + result.getFailedCount();
+        meterRegistry.counter("reviews.upload.rows", "result", "added").increment(result.getAddedCount());
+        meterRegistry.counter("reviews.upload.rows", "result", "exists").increment(result.getAlreadyExistsCount());
+        meterRegistry.counter("reviews.upload.rows", "result", "failed").increment(result.getFailedCount());
+        meterRegistry.timer("reviews.upload").record(Duration.ofNanos(System.nanoTime() - start));
+
+        log.info("Reviews processing completed in {} s ({} reviews/s). Added: {}, AlreadyExist: {}, Failed: {}",
+                String.format("%.1f", seconds), Math.round(processed / seconds),
                 result.getAddedCount(), result.getAlreadyExistsCount(), result.getFailedCount());
 
         if (!result.getErrors().isEmpty()) {
@@ -351,247 +478,237 @@ public class ReviewServiceImpl implements ReviewService {
         return result;
     }
 
-    private List<ReviewDto> processReviewFile(MultipartFile file) {
-        try (InputStream inputStream = file.getInputStream()) {
-            return JsonUtils.getData(inputStream, new TypeToken<List<ReviewDto>>() {
-            });
-        } catch (IOException e) {
-            String errorMsg = "Failed to process review file: " + file.getOriginalFilename();
+    /**
+     * Validates an uploaded review, recording the failure and returning null if it cannot be imported.
+     */
+    private Review toUploadedReview(ReviewDto dto, Set<String> instructorIds, ProcessingResult result) {
+        if (dto.getContent() == null || dto.getContent().isBlank() || !dto.getContent().matches(".*[a-zA-Z].*") || dto.getContent().matches("^[a-zA-Z0-9]{1,3}$")) {
+            result.incrementFailed();
+            result.addError("Review content is empty");
+            return null;
+        }
+        try {
+            Review review = modelMapper.map(dto, Review.class);
+            if (!instructorIds.contains(review.getInstructorId())) {
+                result.incrementFailed();
+                result.addError("Instructor with ID " + review.getInstructorId() + " does not exist");
+                return null;
+            }
+            review.setCommentCount(review.getComments().size());
+            review.setResourceLinkCount(review.getResourceLinks().size());
+            return review;
+        } catch (Exception e) {
+            String errorMsg = String.format("Failed to process review (instructorId=%s, courseId=%s, timestamp=%s, userId=%s): %s",
+                    dto.getInstructorId(), dto.getCourseId(), dto.getTimestamp(), dto.getUserId(), e.getMessage());
             log.error(errorMsg, e);
-            throw new RuntimeException(errorMsg, e);
+            result.addError(errorMsg);
+            result.incrementFailed();
+            return null;
         }
     }
 
+    /**
+     * Inserts the reviews of a chunk that do not exist yet, with one lookup for the existing ones and one unordered bulk insert.
+     */
+    private void insertUploadedChunk(List<Review> chunk, ProcessingResult result, Set<String> courseIds, Set<String> instructorIds) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        Query existingQuery = new Query(Criteria.where("timestamp").in(chunk.stream().map(Review::getTimestamp).filter(Objects::nonNull).distinct().toList())
+                .and("instructorId").in(chunk.stream().map(Review::getInstructorId).distinct().toList()));
+        existingQuery.fields().include("timestamp", "instructorId", "courseId");
+        Set<String> existingKeys = mongoTemplate.find(existingQuery, Review.class).stream()
+                .map(this::naturalKey)
+                .collect(Collectors.toSet());
+
+        List<Review> toInsert = new ArrayList<>(chunk.size());
+        for (Review review : chunk) {
+            if (existingKeys.contains(naturalKey(review))) {
+                result.incrementAlreadyExists();
+            } else {
+                toInsert.add(review);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return;
+        }
+        toInsert.forEach(review -> {
+            if (review.getCourseId() != null) courseIds.add(review.getCourseId());
+            if (review.getInstructorId() != null) instructorIds.add(review.getInstructorId());
+        });
+
+        try {
+            int inserted = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Review.class)
+                    .insert(toInsert)
+                    .execute()
+                    .getInsertedCount();
+            for (int i = 0; i < inserted; i++) {
+                result.incrementAdded();
+            }
+        } catch (BulkOperationException e) {
+            int inserted = e.getResult().getInsertedCount();
+            for (int i = 0; i < inserted; i++) {
+                result.incrementAdded();
+            }
+            e.getErrors().forEach(error -> {
+                result.incrementFailed();
+                result.addError("Failed to insert review: " + error.getMessage());
+            });
+            log.error("Bulk insert of {} reviews partially failed: {} inserted, {} failed", toInsert.size(), inserted, e.getErrors().size());
+        }
+    }
+
+    private String naturalKey(Review review) {
+        return String.join("|",
+                Objects.toString(review.getTimestamp(), ""),
+                Objects.toString(review.getInstructorId(), ""),
+                Objects.toString(review.getCourseId(), ""));
+    }
+
     /**
      * Finds and deletes duplicate reviews. A "duplicate" is defined as multiple reviews with
-     * the same (courseId, content, timestamp). Keeps exactly one review per group,
-     * deletes the rest.
+     * the same (courseId, content, timestamp). Keeps exactly one review per group, the one with
+     * the longest instructor id, and deletes the rest.
+     * Groups are computed by an aggregation on the server and streamed back, and the losers are deleted
+     * in batches, so memory use does not grow with the number of reviews.
      *
-     * @return a ProcessingResult containing information about how many duplicates were deleted
+     * @param dryRun If true, only counts the reviews that would be deleted.
+     * @return a ProcessingResult containing information about how many duplicates were (or would be) deleted
      */
     @Override
     @CacheEvict(value = "homeStatsCache", allEntries = true)
-    public ProcessingResult deleteDuplicateReviews() {
+    public ProcessingResult deleteDuplicateReviews(boolean dryRun) {
         ProcessingResult result = new ProcessingResult();
 
-        List<Review> allReviews = reviewRepository.findAll();
-
-        Map<String, List<Review>> grouped = new HashMap<>();
-
-        for (Review review : allReviews) {
-            String key = String.join(
-                    "_",
-                    Objects.toString(review.getCourseId(), ""),
-                    Objects.toString(review.getContent(), ""),
-                    Objects.toString(review.getTimestamp(), "")
-            );
-            grouped.computeIfAbsent(key, k -> new ArrayList<>()).add(review);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.project("courseId", "content", "timestamp")
+                        .and(StringOperators.valueOf(
+                                ConditionalOperators.ifNull("instructorId").then("")).lengthCP()).as("instructorIdLength"),
+                Aggregation.group("courseId", "content", "timestamp")
+                        .count().as("count")
+                        .push(new Document("id", "$_id").append("instructorIdLength", "$instructorIdLength")).as("reviews"),
+                Aggregation.match(Criteria.where("count").gt(1)),
+                Aggregation.project("reviews")
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        List<String> batch = new ArrayList<>(DELETE_BATCH_SIZE);
+        try (Stream<Document> groups = mongoTemplate.aggregateStream(aggregation, mongoTemplate.getCollectionName(Review.class), Document.class)) {
+            groups.forEach(group -> {
+                List<Document> reviews = new ArrayList<>(group.getList("reviews", Document.class));
+                reviews.sort(Comparator.comparingInt((Document review) -> review.getInteger("instructorIdLength", 0)).reversed());
+                for (Document loser : reviews.subList(1, reviews.size())) {
+                    result.incrementDeleted();
+                    if (!dryRun) {
+                        batch.add(loser.get("id").toString());
+                        if (batch.size() >= DELETE_BATCH_SIZE) {
+                            deleteReviewsById(batch);
+                            batch.clear();
+                        }
+                    }
+                }
+            });
         }
-
-        List<Review> duplicates = new ArrayList<>();
-        for (List<Review> group : grouped.values()) {
-            if (group.size() > 1) {
-                group.sort((r1, r2) -> Integer.compare(r2.getInstructorId().length(), r1.getInstructorId().length()));
-                duplicates.addAll(group.subList(1, group.size()));
-            }
+        if (!batch.isEmpty()) {
+            deleteReviewsById(batch);
         }
 
-        if (!duplicates.isEmpty()) {
-            reviewRepository.deleteAll(duplicates);
-            result.setDeletedCount(duplicates.size());
+        if (dryRun) {
+            log.info("Dry run: {} duplicate reviews would be deleted.", result.getDeletedCount());
+            return result;
         }
 
-        log.info("Deleted {} duplicate reviews.", duplicates.size());
+        if (result.getDeletedCount() > 0) {
+            reviewStatisticsService.recomputeAllCourseStatistics();
+            reviewStatisticsService.recomputeAllInstructorStatistics();
+            cacheInvalidationService.evictAll(REVIEW_WRITE_CACHES);
+        }
+        log.info("Deleted {} duplicate reviews.", result.getDeletedCount());
 
         return result;
     }
 
+    private void deleteReviewsById(List<String> ids) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), Review.class);
+    }
+
     /**
      * Deletes all reviews of type "instructor" which reference a non-existent instructorId.
+     * The orphans are found and deleted by the integrity scan, without loading the instructors or reviews.
      *
      * @return a ProcessingResult containing info about how many reviews were deleted
      */
     @Override
-    @CacheEvict(value = "homeStatsCache", allEntries = true)
     public ProcessingResult deleteReviewsWithNonExistentInstructorIds() {
         ProcessingResult result = new ProcessingResult();
-
-        Set<String> validInstructorIds = instructorRepository.findAll()
-                .stream()
-                .map(Instructor::get_id)
-                .collect(Collectors.toSet());
-
-        List<Review> instructorReviews = reviewRepository.findAllByType("instructor");
-
-        List<Review> invalidInstructorReviews = instructorReviews.stream()
-                .filter(review -> {
-                    String instructorId = review.getInstructorId();
-                    // If instructorId is null or not found in the validInstructorIds set
-                    return instructorId == null || !validInstructorIds.contains(instructorId);
-                })
-                .collect(Collectors.toList());
-
-        if (!invalidInstructorReviews.isEmpty()) {
-            reviewRepository.deleteAll(invalidInstructorReviews);
-            log.info("Deleted {} reviews referencing non-existent instructors.", invalidInstructorReviews.size());
-            result.setDeletedCount(invalidInstructorReviews.size());
-        } else {
-            log.info("No reviews referencing non-existent instructors found.");
-        }
-
+        long deleted = integrityScanService.scan(List.of(IntegrityScanService.REVIEW_INSTRUCTOR), false).stream()
+                .mapToLong(IntegrityFindingDto::getDeletedCount)
+                .sum();
+        result.setDeletedCount((int) deleted);
         return result;
     }
 
 
     /**
      * Finds reviews based on filtering criteria with pagination support.
+     * No total is counted since the listing does not return one.
      *
      * @param filters  The filtering criteria for reviews.
      * @param pageable The pagination information.
-     * @return A page of Review objects that match the filtering criteria.
+     * @return The reviews of the page that match the filtering criteria.
      */
-    private Page<Review> findFilteredReviews(ReviewFilterDto filters, Pageable pageable) {
+    private List<Review> findFilteredReviews(ReviewFilterDto filters, Pageable pageable) {
         Query query = new Query().with(pageable);
-        // Handle sorting
-        applySorting(filters, query);
+        String sortField = filterSortField(filters);
+        log.info("Applying sort by {}", sortField);
+        query.with(Sort.by(Sort.Direction.DESC, sortField));
 
-        long count = mongoTemplate.count(query, Review.class);
-        List<Review> reviews = mongoTemplate.find(query, Review.class);
+        List<Review> reviews = mongoTemplate.find(ReviewProjection.listing(query), Review.class);
 
-        log.info("Found {} courses matching filter criteria", reviews.size());
+        log.info("Found {} reviews matching filter criteria", reviews.size());
 
-        return new PageImpl<>(reviews, pageable, count);
+        return reviews;
     }
 
     /**
-     * Applies sorting to the query based on the provided filter criteria.
+     * Resolves the field the filtered reviews are sorted by, in descending order.
      * If no sorting criteria is specified, the default sorting is by date.
      *
      * @param filter The filter criteria for reviews.
-     * @param query  The query to which sorting will be applied.
+     * @return The review field to sort by.
      */
-    private void applySorting(ReviewFilterDto filter, Query query) {
-        System.out.println("Applying sorting " + filter);
-        if (filter.getSortBy() != null) {
-            ReviewFilterDto.ReviewSortType sortType = filter.getSortBy();
-            String sortField = "timestamp"; // Default sorting by date
-
-            switch (sortType) {
-                case Experience:
-                    sortField = "experience";
-                    break;
-                case Likes: // Assuming you have a corresponding enum value for this
-                    sortField = "likes";
-                    break;
-                case Date: // Explicit case for clarity, even though it's the default
-                default:
-                    // The default sortField is already set to "timestamp"
-                    break;
-            }
-
-            log.info("Applying sort by {}", sortField);
-            query.with(Sort.by(Sort.Direction.DESC, sortField));
-        } else {
-            log.info("No sort type specified, defaulting to sort by date");
-            query.with(Sort.by(Sort.Direction.DESC, "timestamp"));
+    private static String filterSortField(ReviewFilterDto filter) {
+        if (filter.getSortBy() == null) {
+            return "timestamp";
         }
+        return switch (filter.getSortBy()) {
+            case Experience -> "experience";
+            case Likes -> "likes";
+            default -> "timestamp";
+        };
     }
 
     /**
-     * Updates the average experience and difficulty for a course based on its reviews.
+     * Runs a review write together with the publication of its event, in one transaction when enabled.
      *
-     * @param courseId The ID of the course.
+     * @param write The write, which publishes the event.
+     * @return The result of the write.
      */
-    private void updateCourseExperience(String courseId) {
-        List<Review> reviews = reviewRepository.findAllByCourseId(courseId);
-        double avgExperienceAndRating = reviews.stream().mapToDouble(r -> {
-            if (r.getType().equals("course")) {
-                return r.getExperience();
-            } else {
-                return r.getRating();
-            }
-        }).average().orElse(0);
-        double avgDifficulty = reviews.stream().mapToInt(Review::getDifficulty).average().orElse(0.0);
-        int reviewsCount = reviews.size();
-        Course course = courseRepository.findById(courseId).orElse(null);
-        if (course != null) {
-            int[][] distributions = getDistributions(reviews);
-            course.setDifficultyDistribution(distributions[0]);
-            course.setExperienceDistribution(distributions[1]);
-            course.setAvgExperience(avgExperienceAndRating);
-            course.setAvgDifficulty(avgDifficulty);
-            course.setReviewCount(reviewsCount);
-            courseRepository.save(course);
+    private <T> T inTransaction(Supplier<T> write) {
+        if (!reviewEventConfigProperties.isTransactional()) {
+            return write.get();
         }
+        return mongoTransactionTemplate.execute(status -> write.get());
     }
 
     /**
-     * Updates the average rating, difficulty and tags for a prof based on its reviews.
+     * Evicts the cached review pages showing the comments of the review.
      *
-     * @param instructorId The ID of the instructor.
+     * @param review The review whose comments changed.
      */
-    private void updateInstructorRatingCoursesAndTags(String instructorId) {
-        List<Review> reviews = reviewRepository.findAllByInstructorId(instructorId);
-        double avgExperienceAndRating = reviews.stream().mapToDouble(r -> {
-            if (r.getType().equals("course")) {
-                return r.getExperience();
-            } else {
-                return r.getRating();
-            }
-        }).average().orElse(0);
-        double avgDifficulty = reviews.stream().mapToInt(Review::getDifficulty).average().orElse(0.0);
-        int reviewsCount = reviews.size();
-        Set<Instructor.Tag> tags = reviews.stream().flatMap(r -> r.getTags().stream()).collect(Collectors.toSet());
-        Set<Instructor.Course> courses = reviews.stream()
-                .map(r -> courseMap.get(r.getCourseId()))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toSet());
-        Instructor instructor = instructorRepository.findById(instructorId).orElse(null);
-        if (instructor != null) {
-            int[][] distributions = getDistributions(reviews);
-            instructor.setDifficultyDistribution(distributions[0]);
-            instructor.setRatingDistribution(distributions[1]);
-            instructor.setTags(tags);
-            instructor.getCourses().addAll(courses);
-            instructor.setAvgRating(avgExperienceAndRating);
-            instructor.setAvgDifficulty(avgDifficulty);
-            instructor.setReviewCount(reviewsCount);
-            instructorRepository.save(instructor);
-        }
-    }
-
-    private int[][] getDistributions(List<Review> reviews) {
-        Map<Integer, Long> difficultyCount = reviews.stream()
-                .collect(Collectors.groupingBy(Review::getDifficulty, Collectors.counting()));
-
-        int[] difficultyDistribution = {
-                Math.toIntExact(difficultyCount.getOrDefault(1, 0L)),
-                Math.toIntExact(difficultyCount.getOrDefault(2, 0L)),
-                Math.toIntExact(difficultyCount.getOrDefault(3, 0L)),
-                Math.toIntExact(difficultyCount.getOrDefault(4, 0L)),
-                Math.toIntExact(difficultyCount.getOrDefault(5, 0L))
-        };
-
-        Map<Integer, Long> experienceAndRatingCount = reviews.stream()
-                .mapToInt(review -> {
-                    if (review.getType().equals("course")) {
-                        return review.getExperience();
-                    } else {
-                        return review.getRating();
-                    }
-                })
-                .boxed()
-                .collect(Collectors.groupingBy(i -> i, Collectors.counting()));
-
-        int[] experienceAndRatingDistribution = {
-                Math.toIntExact(experienceAndRatingCount.getOrDefault(1, 0L)),
-                Math.toIntExact(experienceAndRatingCount.getOrDefault(2, 0L)),
-                Math.toIntExact(experienceAndRatingCount.getOrDefault(3, 0L)),
-                Math.toIntExact(experienceAndRatingCount.getOrDefault(4, 0L)),
-                Math.toIntExact(experienceAndRatingCount.getOrDefault(5, 0L))
-        };
-
-        return new int[][]{difficultyDistribution, experienceAndRatingDistribution};
+    private void evictCachedCommentPages(Review review) {
+        cacheInvalidationService.evictByCourse(review.getCourseId(), REVIEW_PAGE_CACHES);
+        cacheInvalidationService.evictByInstructor(review.getInstructorId(), REVIEW_PAGE_CACHES);
     }
 
     /**
@@ -613,127 +730,169 @@ public class ReviewServiceImpl implements ReviewService {
         return CustomExceptionFactory.throwCustomException(EntityType.REVIEW, ExceptionType.CUSTOM_EXCEPTION, args);
     }
 
-    @Caching(evict = {
-            @CacheEvict(value = "courseReviewsCache", allEntries = true),
-            @CacheEvict(value = "instructorReviewsCache", allEntries = true),
-            @CacheEvict(value = "reviewsCacheWithFilters", allEntries = true),
-    })
-    @Transactional
+    /**
+     * Removes a comment of the user from a review with a single atomic {@code $pull}.
+     * The comment and its owner are part of the filter, so a concurrent change to other comments is never lost.
+     *
+     * @param reviewId  The ID of the review.
+     * @param commentId The ID of the comment to delete.
+     * @param userId    The ID of the user deleting the comment, who must own it.
+     * @return The review without the comment.
+     */
     public ReviewDto deleteCommentFromReview(String reviewId, String commentId, String userId) {
         log.info("Deleting comment with ID: {} from review with ID: {}", commentId, reviewId);
         checkBlacklistedUser(userId);
 
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> {
-                    log.error("Review not found with ID: {}", reviewId);
-                    return exception(reviewId);
-                });
-
-        log.info("Review found with ID: {}", reviewId);
-
-        // Validate and find the comment
-        Comment comment = review.getComments()
-                .stream()
-                .filter(c -> c.get_id().equals(commentId))
-                .findFirst()
-                .orElseThrow(() -> {
-                    log.error("Comment not found with ID: {}", commentId);
-                    return CustomExceptionFactory.throwCustomException(EntityType.COMMENT, ExceptionType.ENTITY_NOT_FOUND, commentId);
-                });
-
-        // Ensure the user owns the comment
-        if (!comment.getUserId().equals(userId)) {
-            log.error("User ID {} does not own the comment with ID: {}", userId, commentId);
-            throw CustomExceptionFactory.throwCustomException(EntityType.COMMENT, ExceptionType.CUSTOM_EXCEPTION,
-                    "User does not own this comment");
+        Criteria ownComment = Criteria.where("_id").is(commentId).and("userId").is(userId);
+        Review review = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(reviewId).and("comments").elemMatch(ownComment)),
+                new Update().pull("comments", new Query(ownComment)).inc("commentCount", -1),
+                FindAndModifyOptions.options().returnNew(true),
+                Review.class);
+        if (review == null) {
+            throw commentNotModifiable(reviewId, commentId, userId);
         }
-
-        // Remove the comment and delete it
-        review.getComments().remove(comment);
-        commentRepository.deleteById(commentId);
-        log.info("Comment with ID: {} deleted", commentId);
-
-        // Save the updated review
-        reviewRepository.save(review);
-        log.info("Review with ID: {} updated after comment deletion", reviewId);
+        log.info("Comment with ID: {} deleted from review with ID: {}", commentId, reviewId);
+        evictCachedCommentPages(review);
 
         return ReviewMapper.toDto(review);
     }
 
-    @Caching(evict = {
-            @CacheEvict(value = "courseReviewsCache", allEntries = true),
-            @CacheEvict(value = "instructorReviewsCache", allEntries = true),
-            @CacheEvict(value = "reviewsCacheWithFilters", allEntries = true),
-    })
-    @Transactional
+    /**
+     * Appends a comment to a review with a single atomic {@code $push}.
+     *
+     * @param reviewId   The ID of the review.
+     * @param commentDto The comment to add.
+     * @return The review with the comment.
+     */
     public ReviewDto addCommentToReview(String reviewId, CommentDto commentDto) {
         log.info("Adding comment to review with ID: {}", reviewId);
         checkBlacklistedUser(commentDto.getUserId());
 
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> {
-                    log.error("Review not found with ID: {}", reviewId);
-                    return exception(reviewId);
-                });
-
         Comment comment = modelMapper.map(commentDto, Comment.class);
-        Comment savedComment = commentRepository.save(comment);
-        log.info("Comment saved with ID: {}", savedComment.get_id());
-
-        review.getComments().add(savedComment);
-        reviewRepository.save(review);
-        log.info("Comment added to review with ID: {}", reviewId);
+        comment.set_id(new ObjectId().toHexString());
+
+        Review review = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(reviewId)),
+                new Update().push("comments", comment).inc("commentCount", 1),
+                FindAndModifyOptions.options().returnNew(true),
+                Review.class);
+        if (review == null) {
+            log.error("Review not found with ID: {}", reviewId);
+            throw exception(reviewId);
+        }
+        log.info("Comment with ID: {} added to review with ID: {}", comment.get_id(), reviewId);
+        evictCachedCommentPages(review);
 
         return ReviewMapper.toDto(review);
     }
 
-    @Caching(evict = {
-            @CacheEvict(value = "courseReviewsCache", allEntries = true),
-            @CacheEvict(value = "instructorReviewsCache", allEntries = true),
-            @CacheEvict(value = "reviewsCacheWithFilters", allEntries = true),
-    })
-    @Transactional
+    /**
+     * Changes the content of a comment of the user with a single atomic positional {@code $set}.
+     * The original timestamp is kept.
+     *
+     * @param reviewId   The ID of the review.
+     * @param commentId  The ID of the comment to update.
+     * @param commentDto The comment holding the new content.
+     * @param userId     The ID of the user updating the comment, who must own it.
+     * @return The review with the updated comment.
+     */
     public ReviewDto updateCommentInReview(String reviewId, String commentId, CommentDto commentDto, String userId) {
         log.info("Updating comment with ID: {} in review with ID: {}", commentId, reviewId);
         checkBlacklistedUser(userId);
 
-        Review review = reviewRepository.findById(reviewId)
-                .orElseThrow(() -> {
-                    log.error("Review not found with ID: {}", reviewId);
-                    return exception(reviewId);
-                });
+        Review review = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(reviewId)
+                        .and("comments").elemMatch(Criteria.where("_id").is(commentId).and("userId").is(userId))),
+                new Update().set("comments.$.content", commentDto.getContent()),
+                FindAndModifyOptions.options().returnNew(true),
+                Review.class);
+        if (review == null) {
+            throw commentNotModifiable(reviewId, commentId, userId);
+        }
+        log.info("Comment with ID: {} updated in review with ID: {}", commentId, reviewId);
+        evictCachedCommentPages(review);
 
-        log.info("Review found with ID: {}", reviewId);
+        return ReviewMapper.toDto(review);
+    }
 
-        // Find the comment to update
-        Comment commentToUpdate = review.getComments()
-                .stream()
-                .filter(c -> c.get_id().equals(commentId))
-                .findFirst()
-                .orElseThrow(() -> {
-                    log.error("Comment not found with ID: {}", commentId);
-                    return CustomExceptionFactory.throwCustomException(EntityType.COMMENT, ExceptionType.ENTITY_NOT_FOUND, commentId);
-                });
-
-        // Ensure the user owns the comment
-        if (!commentToUpdate.getUserId().equals(userId)) {
-            log.error("User ID {} does not own the comment with ID: {}", userId, commentId);
-            throw CustomExceptionFactory.throwCustomException(EntityType.COMMENT, ExceptionType.CUSTOM_EXCEPTION,
-                    "User does not own this comment");
-        }
+    /**
+     * Retrieves a page of the comments of a review, oldest first.
+     * Only the requested slice of the embedded list is read from MongoDB.
+     *
+     * @param reviewId The ID of the review.
+     * @param page     The zero-based page number.
+     * @param size     The page size, capped at the configured maximum.
+     * @return The comments of the page and the total number of comments.
+     */
+    @Override
+    public CommentPageDto getReviewComments(String reviewId, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, reviewConfigProperties.getMaxPageSize()));
+        Review review = findReviewPage(reviewId, "comments", "commentCount", page, pageSize);
+        return new CommentPageDto()
+                .setComments(review.getComments().stream()
+                        .map(comment -> modelMapper.map(comment, CommentDto.class))
+                        .collect(Collectors.toList()))
+                .setTotal(review.getCommentCount())
+                .setPage(page)
+                .setSize(pageSize);
+    }
 
-        // Update the comment content
-        commentToUpdate.setContent(commentDto.getContent());
-        // Keep the original timestamp - only content should be updated
-        
-        // Save the updated comment
-        commentRepository.save(commentToUpdate);
-        log.info("Comment with ID: {} updated", commentId);
+    /**
+     * Retrieves a page of the resource links of a review, oldest first.
+     * Only the requested slice of the embedded list is read from MongoDB.
+     *
+     * @param reviewId The ID of the review.
+     * @param page     The zero-based page number.
+     * @param size     The page size, capped at the configured maximum.
+     * @return The resource links of the page and the total number of resource links.
+     */
+    @Override
+    public ResourceLinkPageDto getReviewResourceLinks(String reviewId, int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, reviewConfigProperties.getMaxPageSize()));
+        Review review = findReviewPage(reviewId, "resourceLinks", "resourceLinkCount", page, pageSize);
+        return new ResourceLinkPageDto()
+                .setResourceLinks(review.getResourceLinks().stream()
+                        .map(link -> modelMapper.map(link, ResourceLinkDto.class))
+                        .collect(Collectors.toList()))
+                .setTotal(review.getResourceLinkCount())
+                .setPage(page)
+                .setSize(pageSize);
+    }
 
-        // Save the review (to trigger any necessary updates)
-        reviewRepository.save(review);
-        log.info("Review with ID: {} updated after comment modification", reviewId);
+    private Review findReviewPage(String reviewId, String array, String countField, int page, int size) {
+        if (page < 0) {
+            throw CustomException("Invalid page");
+        }
+        Query query = ReviewProjection.page(new Query(Criteria.where("_id").is(reviewId)), array, countField, page, size);
+        Review review = mongoTemplate.findOne(query, Review.class);
+        if (review == null) {
+            log.error("Review not found with ID: {}", reviewId);
+            throw exception(reviewId);
+        }
+        return review;
+    }
 
-        return ReviewMapper.toDto(review);
+    /**
+     * Explains why a conditional comment update matched nothing: the review or the comment does not exist,
+     * or the comment belongs to another user.
+     */
+    private RuntimeException commentNotModifiable(String reviewId, String commentId, String userId) {
+        Query query = new Query(Criteria.where("_id").is(reviewId));
+        query.fields().include("comments");
+        Review review = mongoTemplate.findOne(query, Review.class);
+        if (review == null) {
+            log.error("Review not found with ID: {}", reviewId);
+            return exception(reviewId);
+        }
+
+        boolean commentExists = review.getComments().stream().anyMatch(c -> commentId.equals(c.get_id()));
+        if (!commentExists) {
+            log.error("Comment not found with ID: {}", commentId);
+            return CustomExceptionFactory.throwCustomException(EntityType.COMMENT, ExceptionType.ENTITY_NOT_FOUND, commentId);
+        }
+        log.error("User ID {} does not own the comment with ID: {}", userId, commentId);
+        return CustomExceptionFactory.throwCustomException(EntityType.COMMENT, ExceptionType.CUSTOM_EXCEPTION,
+                "User does not own this comment");
     }
 }
@@ -0,0 +1,581 @@
+package courses.concordia.service.implementation;
+
+import com.google.gson.reflect.TypeToken;
+import courses.concordia.model.Course;
+import courses.concordia.model.Instructor;
+import courses.concordia.model.Review;
+import courses.concordia.repository.CourseRepository;
+import courses.concordia.repository.InstructorRepository;
+import courses.concordia.repository.ReviewRepository;
+import courses.concordia.service.ReviewStatisticsService;
+import courses.concordia.util.JsonUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.GroupOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the aggregated review statistics stored on {@link Course} and {@link Instructor} documents.
+ * Review writes are applied as atomic deltas on running sums, distributions and counts, so the cost
+ * of a write does not depend on how many reviews the course or instructor already has.
+ * Each delta records the ID of its review event on the document in the same update, so an event that is
+ * processed again after a crash or an expired lease does not count twice.
+ */
+@RequiredArgsConstructor
+@Service
+@Slf4j
+public class ReviewStatisticsServiceImpl implements ReviewStatisticsService {
+    private final ReviewRepository reviewRepository;
+    private final CourseRepository courseRepository;
+    private final InstructorRepository instructorRepository;
+    private final MongoTemplate mongoTemplate;
+    private static final Map<String, Instructor.Course> courseMap = new HashMap<>();
+    private static final Pattern COURSE_ID_PATTERN = Pattern.compile("(\\D*)(\\d.*)");
+    private static final int BULK_CHUNK_SIZE = 500;
+    // Latest review events applied to a course or instructor, kept to recognize a retried event
+    private static final String APPLIED_EVENTS = "appliedReviewEvents";
+    private static final int APPLIED_EVENTS_KEPT = 100;
+
+    @PostConstruct
+    public void init() {
+        try {
+            InputStream is = getClass().getResourceAsStream("/subject-catalogs.json");
+            if (is == null) {
+                throw new IllegalStateException("Resource subject-catalogs.json not found");
+            }
+            Map<String, List<String>> coursesData = JsonUtils.getData(is, new TypeToken<Map<String, List<String>>>() {
+            });
+            if (coursesData != null) {
+                coursesData.forEach((key, values) -> values.forEach(value -> {
+                    String courseKey = key + value;
+                    Instructor.Course course = new Instructor.Course(key, value, "concordia-university");
+                    courseMap.put(courseKey, course);
+                }));
+            }
+        } catch (Exception e) {
+            log.error("Failed to initialize course data", e);
+            throw new RuntimeException("Failed to initialize course data", e);
+        }
+    }
+
+    /**
+     * Applies the difference between the previous and current version of a review to the course statistics.
+     * A null previous snapshot means the review was added, a null current snapshot means it was deleted.
+     * Courses whose running sums have not been initialized yet are recomputed from their reviews once.
+     *
+     * @param courseId The ID of the course.
+     * @param eventId  The ID of the review event, a course that already applied it is left unchanged.
+     * @param previous The review before the write, or null.
+     * @param current  The review after the write, or null.
+     */
+    @Override
+    public void applyCourseReviewDelta(String courseId, String eventId, ReviewSnapshot previous, ReviewSnapshot current) {
+        Map<String, Integer> increments = buildIncrements(previous, current, "experienceDistribution", "experienceSum");
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        Query query = new Query(notApplied(courseId, eventId));
+        query.fields().include("difficultySum", "experienceSum", "reviewCount");
+
+        Course updated = mongoTemplate.findAndModify(query, recordApplied(toUpdate(increments), eventId),
+                FindAndModifyOptions.options().returnNew(true), Course.class);
+
+        if (updated == null) {
+            updated = findApplied(courseId, eventId, Course.class, "difficultySum", "experienceSum", "reviewCount");
+        }
+        if (updated == null) {
+            log.info("Course {} has no running statistics yet, recomputing from reviews", courseId);
+            recomputeCourseStatistics(courseId, eventId);
+            return;
+        }
+
+        int count = updated.getReviewCount();
+        int difficultySum = updated.getDifficultySum();
+        int experienceSum = updated.getExperienceSum();
+
+        // Only the writer that observed the latest sums refreshes the averages
+        Query guard = new Query(Criteria.where("_id").is(courseId)
+                .and("reviewCount").is(count)
+                .and("difficultySum").is(difficultySum)
+                .and("experienceSum").is(experienceSum));
+        Update averages = new Update()
+                .set("avgDifficulty", average(difficultySum, count))
+                .set("avgExperience", average(experienceSum, count));
+        mongoTemplate.updateFirst(guard, averages, Course.class);
+    }
+
+    /**
+     * Applies the difference between the previous and current version of a review to the instructor statistics,
+     * including the instructor tags and taught courses.
+     * A null previous snapshot means the review was added, a null current snapshot means it was deleted.
+     * Instructors whose running sums have not been initialized yet are recomputed from their reviews once.
+     *
+     * @param instructorId The ID of the instructor.
+     * @param eventId      The ID of the review event, an instructor that already applied it is left unchanged.
+     * @param previous     The review before the write, or null.
+     * @param current      The review after the write, or null.
+     */
+    @Override
+    public void applyInstructorReviewDelta(String instructorId, String eventId, ReviewSnapshot previous, ReviewSnapshot current) {
+        Map<String, Integer> increments = buildIncrements(previous, current, "ratingDistribution", "ratingSum");
+        Set<Instructor.Tag> addedTags = new HashSet<>(current == null ? Set.of() : current.tags());
+        Set<Instructor.Tag> removedTags = new HashSet<>(previous == null ? Set.of() : previous.tags());
+        if (previous != null) addedTags.removeAll(previous.tags());
+        if (current != null) removedTags.removeAll(current.tags());
+        Instructor.Course course = current == null ? null : courseMap.get(current.courseId());
+
+        if (increments.isEmpty() && addedTags.isEmpty() && removedTags.isEmpty() && course == null) {
+            return;
+        }
+
+        Update update = toUpdate(increments);
+        if (!addedTags.isEmpty()) {
+            update.addToSet("tags").each(addedTags.toArray());
+        }
+        if (course != null) {
+            update.addToSet("courses", course);
+        }
+
+        Query query = new Query(notApplied(instructorId, eventId));
+        query.fields().include("difficultySum", "ratingSum", "reviewCount");
+
+        Instructor updated = mongoTemplate.findAndModify(query, recordApplied(update, eventId),
+                FindAndModifyOptions.options().returnNew(true), Instructor.class);
+
+        if (updated == null) {
+            updated = findApplied(instructorId, eventId, Instructor.class, "difficultySum", "ratingSum", "reviewCount");
+        }
+        if (updated == null) {
+            log.info("Instructor {} has no running statistics yet, recomputing from reviews", instructorId);
+            recomputeInstructorStatistics(instructorId, eventId);
+            return;
+        }
+
+        // A tag only disappears once no remaining review of the instructor carries it
+        List<Instructor.Tag> orphanedTags = removedTags.stream()
+                .filter(tag -> !mongoTemplate.exists(new Query(Criteria.where("instructorId").is(instructorId).and("tags").is(tag)), Review.class))
+                .toList();
+        if (!orphanedTags.isEmpty()) {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(instructorId)),
+                    new Update().pullAll("tags", orphanedTags.toArray()), Instructor.class);
+        }
+
+        int count = updated.getReviewCount();
+        int difficultySum = updated.getDifficultySum();
+        int ratingSum = updated.getRatingSum();
+
+        // Only the writer that observed the latest sums refreshes the averages
+        Query guard = new Query(Criteria.where("_id").is(instructorId)
+                .and("reviewCount").is(count)
+                .and("difficultySum").is(difficultySum)
+                .and("ratingSum").is(ratingSum));
+        Update averages = new Update()
+                .set("avgDifficulty", average(difficultySum, count))
+                .set("avgRating", average(ratingSum, count));
+        mongoTemplate.updateFirst(guard, averages, Instructor.class);
+    }
+
+    /**
+     * Recomputes the average experience and difficulty for a course from all of its reviews,
+     * and initializes the running sums used by the incremental updates.
+     *
+     * @param courseId The ID of the course.
+     */
+    @Override
+    public void recomputeCourseStatistics(String courseId) {
+        recomputeCourseStatistics(courseId, null);
+    }
+
+    private void recomputeCourseStatistics(String courseId, String eventId) {
+        if (!courseRepository.existsById(courseId)) {
+            return;
+        }
+        List<Review> reviews = reviewRepository.findAllByCourseId(courseId);
+        int[][] distributions = getDistributions(reviews);
+        int difficultySum = reviews.stream().mapToInt(Review::getDifficulty).sum();
+        int experienceSum = reviews.stream().mapToInt(this::getScore).sum();
+
+        Update update = new Update()
+                .set("difficultyDistribution", distributions[0])
+                .set("experienceDistribution", distributions[1])
+                .set("difficultySum", difficultySum)
+                .set("experienceSum", experienceSum)
+                .set("avgExperience", average(experienceSum, reviews.size()))
+                .set("avgDifficulty", average(difficultySum, reviews.size()))
+                .set("reviewCount", reviews.size());
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(courseId)), recordApplied(update, eventId), Course.class);
+    }
+
+    /**
+     * Recomputes the average rating, difficulty, tags and courses for an instructor from all of their reviews,
+     * and initializes the running sums used by the incremental updates.
+     *
+     * @param instructorId The ID of the instructor.
+     */
+    @Override
+    public void recomputeInstructorStatistics(String instructorId) {
+        recomputeInstructorStatistics(instructorId, null);
+    }
+
+    private void recomputeInstructorStatistics(String instructorId, String eventId) {
+        if (!instructorRepository.existsById(instructorId)) {
+            return;
+        }
+        List<Review> reviews = reviewRepository.findAllByInstructorId(instructorId);
+        int[][] distributions = getDistributions(reviews);
+        int difficultySum = reviews.stream().mapToInt(Review::getDifficulty).sum();
+        int ratingSum = reviews.stream().mapToInt(this::getScore).sum();
+        Set<Instructor.Tag> tags = reviews.stream().flatMap(r -> r.getTags().stream()).collect(Collectors.toSet());
+        Set<Instructor.Course> courses = reviews.stream()
+                .map(r -> courseMap.get(r.getCourseId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Update update = new Update()
+                .set("difficultyDistribution", distributions[0])
+                .set("ratingDistribution", distributions[1])
+                .set("tags", tags)
+                .set("difficultySum", difficultySum)
+                .set("ratingSum", ratingSum)
+                .set("avgRating", average(ratingSum, reviews.size()))
+                .set("avgDifficulty", average(difficultySum, reviews.size()))
+                .set("reviewCount", reviews.size());
+        if (!courses.isEmpty()) {
+            update.addToSet("courses").each(courses.toArray());
+        }
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(instructorId)), recordApplied(update, eventId), Instructor.class);
+    }
+
+    /**
+     * Matches the document when its running sums are initialized and it has not applied the event yet.
+     */
+    private static Criteria notApplied(String id, String eventId) {
+        Criteria criteria = Criteria.where("_id").is(id).and("difficultySum").exists(true);
+        return eventId == null ? criteria : criteria.and(APPLIED_EVENTS).ne(eventId);
+    }
+
+    /**
+     * Adds the event to the bounded list of events applied to the document, when the update comes from one.
+     */
+    private static Update recordApplied(Update update, String eventId) {
+        if (eventId != null) {
+            update.push(APPLIED_EVENTS).slice(-APPLIED_EVENTS_KEPT).each(eventId);
+        }
+        return update;
+    }
+
+    /**
+     * Finds the statistics of a document that already applied the event, so a retried event can finish
+     * refreshing what follows the delta without applying it again.
+     *
+     * @return The requested fields of the document, or null if it did not apply the event.
+     */
+    private <T> T findApplied(String id, String eventId, Class<T> type, String... fields) {
+        if (eventId == null) {
+            return null;
+        }
+        Query query = new Query(Criteria.where("_id").is(id).and(APPLIED_EVENTS).is(eventId));
+        query.fields().include(fields);
+        T applied = mongoTemplate.findOne(query, type);
+        if (applied != null) {
+            log.debug("Review event {} was already applied to {}", eventId, id);
+        }
+        return applied;
+    }
+
+    /**
+     * Recomputes the statistics of every course with a single aggregation over the reviews collection.
+     * Results are streamed from the server and written back in bounded bulk chunks, and courses without
+     * any review are reset in one update.
+     */
+    @Override
+    public void recomputeAllCourseStatistics() {
+        Set<String> reviewedCourseIds = new HashSet<>();
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Course.class);
+        int pending = 0;
+        int modified = 0;
+
+        try (Stream<Document> results = aggregateStatistics("courseId", statisticsGroup("courseId"))) {
+            for (Iterator<Document> it = results.iterator(); it.hasNext(); ) {
+                Document stats = it.next();
+                String courseId = stats.getString("_id");
+                reviewedCourseIds.add(courseId);
+
+                int count = intValue(stats, "reviewCount");
+                int difficultySum = intValue(stats, "difficultySum");
+                int experienceSum = intValue(stats, "scoreSum");
+                Update update = new Update()
+                        .set("difficultyDistribution", distribution(stats, "difficulty"))
+                        .set("experienceDistribution", distribution(stats, "score"))
+                        .set("avgDifficulty", average(difficultySum, count))
+                        .set("avgExperience", average(experienceSum, count))
+                        .set("difficultySum", difficultySum)
+                        .set("experienceSum", experienceSum)
+                        .set("reviewCount", count);
+                bulkOps.updateOne(new Query(Criteria.where("_id").is(courseId)), update);
+
+                if (++pending == BULK_CHUNK_SIZE) {
+                    modified += bulkOps.execute().getModifiedCount();
+                    bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Course.class);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            modified += bulkOps.execute().getModifiedCount();
+        }
+
+        Update reset = new Update()
+                .set("difficultyDistribution", new int[5])
+                .set("experienceDistribution", new int[5])
+                .set("avgDifficulty", 0.0)
+                .set("avgExperience", 0.0)
+                .set("difficultySum", 0)
+                .set("experienceSum", 0)
+                .set("reviewCount", 0);
+        long resetCount = mongoTemplate.updateMulti(unreviewedQuery(reviewedCourseIds), reset, Course.class).getModifiedCount();
+
+        log.info("Courses statistics recomputed. Reviewed courses: {}, Modified: {}, Reset: {}",
+                reviewedCourseIds.size(), modified, resetCount);
+    }
+
+    /**
+     * Recomputes the statistics, tags and courses of every instructor with a single aggregation over the
+     * reviews collection. Results are streamed from the server and written back in bounded bulk chunks,
+     * and instructors without any review are reset in one update.
+     */
+    @Override
+    public void recomputeAllInstructorStatistics() {
+        GroupOperation group = statisticsGroup("instructorId")
+                .addToSet("tags").as("tags")
+                .addToSet(new Document("courseId", "$courseId").append("schoolId", "$schoolId")).as("courses");
+
+        Set<String> reviewedInstructorIds = new HashSet<>();
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Instructor.class);
+        int pending = 0;
+        int modified = 0;
+
+        try (Stream<Document> results = aggregateStatistics("instructorId", group)) {
+            for (Iterator<Document> it = results.iterator(); it.hasNext(); ) {
+                Document stats = it.next();
+                String instructorId = stats.getString("_id");
+                reviewedInstructorIds.add(instructorId);
+
+                int count = intValue(stats, "reviewCount");
+                int difficultySum = intValue(stats, "difficultySum");
+                int ratingSum = intValue(stats, "scoreSum");
+                Update update = new Update()
+                        .set("difficultyDistribution", distribution(stats, "difficulty"))
+                        .set("ratingDistribution", distribution(stats, "score"))
+                        .set("avgDifficulty", average(difficultySum, count))
+                        .set("avgRating", average(ratingSum, count))
+                        .set("difficultySum", difficultySum)
+                        .set("ratingSum", ratingSum)
+                        .set("reviewCount", count)
+                        .set("tags", toTags(stats.getList("tags", List.class)));
+                Set<Instructor.Course> courses = toInstructorCourses(stats.getList("courses", Document.class));
+                if (!courses.isEmpty()) {
+                    update.addToSet("courses").each(courses.toArray());
+                }
+                bulkOps.updateOne(new Query(Criteria.where("_id").is(instructorId)), update);
+
+                if (++pending == BULK_CHUNK_SIZE) {
+                    modified += bulkOps.execute().getModifiedCount();
+                    bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Instructor.class);
+                    pending = 0;
+                }
+            }
+        }
+        if (pending > 0) {
+            modified += bulkOps.execute().getModifiedCount();
+        }
+
+        Update reset = new Update()
+                .set("difficultyDistribution", new int[5])
+                .set("ratingDistribution", new int[5])
+                .set("avgDifficulty", 0.0)
+                .set("avgRating", 0.0)
+                .set("difficultySum", 0)
+                .set("ratingSum", 0)
+                .set("reviewCount", 0)
+                .set("tags", Set.of());
+        long resetCount = mongoTemplate.updateMulti(unreviewedQuery(reviewedInstructorIds), reset, Instructor.class).getModifiedCount();
+
+        log.info("Instructors statistics recomputed. Reviewed instructors: {}, Modified: {}, Reset: {}",
+                reviewedInstructorIds.size(), modified, resetCount);
+    }
+
+    /**
+     * Streams the result of grouping the reviews by the given field.
+     * The score of a review is its experience for course reviews and its rating otherwise.
+     */
+    private Stream<Document> aggregateStatistics(String groupField, GroupOperation group) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(groupField).ne(null)),
+                Aggregation.project(groupField, "difficulty", "tags", "courseId", "schoolId")
+                        .and(ConditionalOperators.when(Criteria.where("type").is("course"))
+                                .thenValueOf("experience")
+                                .otherwiseValueOf("rating")).as("score"),
+                group
+        ).withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+        return mongoTemplate.aggregateStream(aggregation, mongoTemplate.getCollectionName(Review.class), Document.class);
+    }
+
+    /**
+     * Builds the group stage computing the review count, sums and 1 to 5 distributions of the difficulty and score.
+     */
+    private GroupOperation statisticsGroup(String groupField) {
+        GroupOperation group = Aggregation.group(groupField)
+                .count().as("reviewCount")
+                .sum("difficulty").as("difficultySum")
+                .sum("score").as("scoreSum");
+        for (int i = 1; i <= 5; i++) {
+            group = group
+                    .sum(ConditionalOperators.when(Criteria.where("difficulty").is(i)).then(1).otherwise(0)).as("difficulty" + i)
+                    .sum(ConditionalOperators.when(Criteria.where("score").is(i)).then(1).otherwise(0)).as("score" + i);
+        }
+        return group;
+    }
+
+    /**
+     * Matches the documents that are not in the given set of reviewed IDs and still hold non-empty statistics.
+     */
+    private Query unreviewedQuery(Set<String> reviewedIds) {
+        return new Query(new Criteria().andOperator(
+                Criteria.where("_id").nin(reviewedIds),
+                new Criteria().orOperator(
+                        Criteria.where("reviewCount").ne(0),
+                        Criteria.where("difficultySum").exists(false))));
+    }
+
+    private int[] distribution(Document stats, String prefix) {
+        int[] distribution = new int[5];
+        for (int i = 1; i <= 5; i++) {
+            distribution[i - 1] = intValue(stats, prefix + i);
+        }
+        return distribution;
+    }
+
+    private int intValue(Document stats, String field) {
+        Number value = stats.get(field, Number.class);
+        return value == null ? 0 : value.intValue();
+    }
+
+    private Set<Instructor.Tag> toTags(List<List> tagLists) {
+        Set<Instructor.Tag> tags = EnumSet.noneOf(Instructor.Tag.class);
+        for (List<?> tagList : tagLists) {
+            for (Object tag : tagList) {
+                try {
+                    tags.add(Instructor.Tag.valueOf(String.valueOf(tag)));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Ignoring unknown instructor tag {}", tag);
+                }
+            }
+        }
+        return tags;
+    }
+
+    private Set<Instructor.Course> toInstructorCourses(List<Document> courseRefs) {
+        return courseRefs.stream()
+                .map(ref -> toInstructorCourse(ref.getString("courseId"), ref.getString("schoolId")))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private Instructor.Course toInstructorCourse(String courseId, String schoolId) {
+        if (courseId == null || courseId.isBlank()) {
+            return null;
+        }
+        if (courseId.startsWith("CEWPMOD") || courseId.startsWith("CEBDMOD")
+                || courseId.startsWith("CEENMOD") || courseId.startsWith("CEBUMOD")) {
+            int splitIndex = courseId.indexOf("MOD");
+            return new Instructor.Course(courseId.substring(0, splitIndex), courseId.substring(splitIndex), schoolId);
+        }
+        Matcher matcher = COURSE_ID_PATTERN.matcher(courseId);
+        return matcher.matches()
+                ? new Instructor.Course(matcher.group(1), matcher.group(2), schoolId)
+                : null;
+    }
+
+    /**
+     * Builds the $inc operations that move the statistics from the previous review to the current one.
+     * Increments on the same field are merged and zero increments are dropped.
+     */
+    private Map<String, Integer> buildIncrements(ReviewSnapshot previous, ReviewSnapshot current,
+                                                 String scoreDistributionField, String scoreSumField) {
+        Map<String, Integer> increments = new LinkedHashMap<>();
+        if (previous != null) {
+            addIncrements(increments, previous, -1, scoreDistributionField, scoreSumField);
+        }
+        if (current != null) {
+            addIncrements(increments, current, 1, scoreDistributionField, scoreSumField);
+        }
+        increments.values().removeIf(value -> value == 0);
+        return increments;
+    }
+
+    private void addIncrements(Map<String, Integer> increments, ReviewSnapshot review, int sign,
+                               String scoreDistributionField, String scoreSumField) {
+        increments.merge("reviewCount", sign, Integer::sum);
+        increments.merge("difficultySum", sign * review.difficulty(), Integer::sum);
+        increments.merge(scoreSumField, sign * review.score(), Integer::sum);
+        if (isDistributionValue(review.difficulty())) {
+            increments.merge("difficultyDistribution." + (review.difficulty() - 1), sign, Integer::sum);
+        }
+        if (isDistributionValue(review.score())) {
+            increments.merge(scoreDistributionField + "." + (review.score() - 1), sign, Integer::sum);
+        }
+    }
+
+    private Update toUpdate(Map<String, Integer> increments) {
+        Update update = new Update();
+        increments.forEach(update::inc);
+        return update;
+    }
+
+    private boolean isDistributionValue(int value) {
+        return value >= 1 && value <= 5;
+    }
+
+    private double average(int sum, int count) {
+        return count > 0 ? (double) sum / count : 0.0;
+    }
+
+    private int getScore(Review review) {
+        return "course".equals(review.getType()) ? review.getExperience() : review.getRating();
+    }
+
+    private int[][] getDistributions(List<Review> reviews) {
+        int[] difficultyDistribution = new int[5];
+        int[] scoreDistribution = new int[5];
+        for (Review review : reviews) {
+            if (isDistributionValue(review.getDifficulty())) {
+                difficultyDistribution[review.getDifficulty() - 1]++;
+            }
+            int score = getScore(review);
+            if (isDistributionValue(score)) {
+                scoreDistribution[score - 1]++;
+            }
+        }
+        return new int[][]{difficultyDistribution, scoreDistribution};
+    }
+}
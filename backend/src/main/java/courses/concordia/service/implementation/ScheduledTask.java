@@ -7,6 +7,10 @@ import courses.concordia.util.JsonUtils;
 import courses.concordia.util.seed.model.CourseWithDetails;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -26,6 +30,7 @@ public class ScheduledTask {
     private static final String ADMIN_NAME = "Admin";
 
     private final CourseRepository courseRepository;
+    private final MongoTemplate mongoTemplate;
     private final EmailServiceImpl emailService;
 
     static {
@@ -138,8 +143,9 @@ public class ScheduledTask {
                 }
 
                 if (courseUpdated) {
-                    course.setSchedules(updatedSchedules);
-                    courseRepository.save(course);
+                    // Only the schedules are written, reviews may have changed the statistics since the course was read
+                    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(course.get_id())),
+                            new Update().set("schedules", updatedSchedules), Course.class);
                     updatedCourses++;
                 }
             }
@@ -0,0 +1,327 @@
+package courses.concordia.service.implementation;
+
+import courses.concordia.dto.model.search.SearchSuggestionDto;
+import courses.concordia.model.Course;
+import courses.concordia.model.Instructor;
+import courses.concordia.service.SearchIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * In-memory typeahead index over course codes, course titles and instructor names.
+ * Terms are kept in a sorted dictionary for prefix lookups, with trigram postings over the terms
+ * to tolerate typos. The index is an immutable snapshot rebuilt from MongoDB at startup, after
+ * course and instructor uploads, and hourly to pick up changes made on other nodes.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class SearchIndexServiceImpl implements SearchIndexService {
+    private static final int MAX_LIMIT = 50;
+    private static final int CODE_WEIGHT = 4;
+    private static final int NAME_WEIGHT = 3;
+    private static final int PART_WEIGHT = 2;
+    private static final int TEXT_WEIGHT = 1;
+
+    private final MongoTemplate mongoTemplate;
+    private volatile SearchIndex index = new SearchIndex.Builder().build();
+
+    /**
+     * Rebuilds the index from the courses and instructors collections and swaps it in atomically.
+     * On failure the previous index keeps serving.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 15 * * * ?")
+    @Override
+    public void rebuild() {
+        try {
+            long start = System.nanoTime();
+            SearchIndex.Builder builder = new SearchIndex.Builder();
+
+            Query courseQuery = new Query();
+            courseQuery.fields().include("subject", "catalog", "title", "reviewCount");
+            List<Course> courses = mongoTemplate.find(courseQuery, Course.class);
+            courses.forEach(builder::addCourse);
+
+            Query instructorQuery = new Query();
+            instructorQuery.fields().include("firstName", "lastName", "reviewCount");
+            List<Instructor> instructors = mongoTemplate.find(instructorQuery, Instructor.class);
+            instructors.forEach(builder::addInstructor);
+
+            index = builder.build();
+            log.info("Search index rebuilt with {} courses and {} instructors in {} ms",
+                    courses.size(), instructors.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to rebuild search index, keeping the previous one", e);
+        }
+    }
+
+    /**
+     * Returns ranked suggestions matching every word of the query, by exact term, prefix or close spelling.
+     *
+     * @param query The text typed by the user.
+     * @param type  Restricts the results to "course" or "instructor", or null for both.
+     * @param limit The maximum number of suggestions to return.
+     * @return The suggestions, best match first.
+     */
+    @Override
+    public List<SearchSuggestionDto> suggest(String query, String type, int limit) {
+        return index.search(query, type, Math.max(0, Math.min(limit, MAX_LIMIT)));
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    private record Entry(String type, String id, String label, String description, int reviewCount) {
+    }
+
+    static final class SearchIndex {
+        private static final int MAX_PREFIX_TERMS = 500;
+        private static final int MIN_FUZZY_LENGTH = 4;
+        private static final double EXACT_QUALITY = 1.0;
+        private static final double PREFIX_QUALITY = 0.7;
+        private static final double FUZZY_QUALITY = 0.45;
+
+        private final List<Entry> entries;
+        private final String[] terms;
+        // Per term, entry index shifted left by 3 with the field weight in the low bits
+        private final int[][] postings;
+        private final Map<String, int[]> trigramTerms;
+
+        private SearchIndex(List<Entry> entries, String[] terms, int[][] postings, Map<String, int[]> trigramTerms) {
+            this.entries = entries;
+            this.terms = terms;
+            this.postings = postings;
+            this.trigramTerms = trigramTerms;
+        }
+
+        List<SearchSuggestionDto> search(String query, String type, int limit) {
+            String normalized = normalize(query);
+            if (normalized.isEmpty() || limit == 0) {
+                return List.of();
+            }
+
+            List<String> tokens = List.of(normalized.split(" "));
+            Map<Integer, Double> scores = scoreAll(tokens);
+            if (tokens.size() > 1) {
+                // "comp 248" should also match the course code "comp248"
+                scoreAll(List.of(normalized.replace(" ", ""))).forEach((entry, score) -> scores.merge(entry, score, Math::max));
+            }
+
+            return scores.entrySet().stream()
+                    .filter(e -> type == null || type.isBlank() || entries.get(e.getKey()).type().equals(type))
+                    .sorted(Comparator.<Map.Entry<Integer, Double>>comparingDouble(Map.Entry::getValue).reversed()
+                            .thenComparing(e -> -entries.get(e.getKey()).reviewCount())
+                            .thenComparing(e -> entries.get(e.getKey()).label().length()))
+                    .limit(limit)
+                    .map(e -> {
+                        Entry entry = entries.get(e.getKey());
+                        return new SearchSuggestionDto(entry.id(), entry.type(), entry.label(), entry.description(), entry.reviewCount());
+                    })
+                    .toList();
+        }
+
+        /**
+         * Scores the entries matching every token, summing the best match of each token.
+         */
+        private Map<Integer, Double> scoreAll(List<String> tokens) {
+            Map<Integer, Double> result = null;
+            for (String token : tokens) {
+                Map<Integer, Double> tokenScores = scoreToken(token);
+                if (result == null) {
+                    result = tokenScores;
+                } else {
+                    result.keySet().retainAll(tokenScores.keySet());
+                    result.replaceAll((entry, score) -> score + tokenScores.get(entry));
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result == null ? new HashMap<>() : result;
+        }
+
+        private Map<Integer, Double> scoreToken(String token) {
+            Map<Integer, Double> scores = new HashMap<>();
+            int prefixMatches = 0;
+            for (int t = lowerBound(token); t < terms.length && terms[t].startsWith(token) && prefixMatches < MAX_PREFIX_TERMS; t++) {
+                addPostings(t, terms[t].length() == token.length() ? EXACT_QUALITY : PREFIX_QUALITY, scores);
+                prefixMatches++;
+            }
+
+            if (token.length() >= MIN_FUZZY_LENGTH) {
+                int maxEdits = token.length() <= 5 ? 1 : 2;
+                for (int t : fuzzyCandidates(token, maxEdits)) {
+                    String term = terms[t];
+                    if (term.startsWith(token)) {
+                        continue;
+                    }
+                    int distance = Math.min(
+                            editDistance(token, term, maxEdits),
+                            editDistance(token, term.substring(0, Math.min(term.length(), token.length())), maxEdits));
+                    if (distance <= maxEdits) {
+                        addPostings(t, FUZZY_QUALITY / distance, scores);
+                    }
+                }
+            }
+            return scores;
+        }
+
+        private void addPostings(int term, double quality, Map<Integer, Double> scores) {
+            for (int posting : postings[term]) {
+                scores.merge(posting >>> 3, quality * (posting & 7), Math::max);
+            }
+        }
+
+        private int lowerBound(String token) {
+            int low = 0;
+            int high = terms.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (terms[mid].compareTo(token) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Terms sharing enough trigrams with the token to be within the allowed number of edits.
+         */
+        private List<Integer> fuzzyCandidates(String token, int maxEdits) {
+            List<String> trigrams = trigrams(token);
+            int required = Math.max(1, trigrams.size() - 3 * maxEdits);
+            Map<Integer, Integer> shared = new HashMap<>();
+            for (String trigram : trigrams) {
+                for (int t : trigramTerms.getOrDefault(trigram, new int[0])) {
+                    shared.merge(t, 1, Integer::sum);
+                }
+            }
+            return shared.entrySet().stream()
+                    .filter(e -> e.getValue() >= required)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+
+        /**
+         * Trigrams of the term padded at the front, one per character, so that an edit changes at most three of them
+         * and "smyth" still shares the leading trigrams of "smith". The end is not padded, keeping every trigram of a
+         * token shared with a longer term it is a prefix of.
+         */
+        private static List<String> trigrams(String term) {
+            String padded = "  " + term;
+            List<String> trigrams = new ArrayList<>();
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+            return trigrams;
+        }
+
+        /**
+         * Levenshtein distance, returning maxEdits + 1 as soon as it is known to exceed maxEdits.
+         */
+        static int editDistance(String a, String b, int maxEdits) {
+            if (Math.abs(a.length() - b.length()) > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] previous = new int[b.length() + 1];
+            int[] current = new int[b.length() + 1];
+            for (int j = 0; j <= b.length(); j++) {
+                previous[j] = j;
+            }
+            for (int i = 1; i <= a.length(); i++) {
+                current[0] = i;
+                int rowMin = current[0];
+                for (int j = 1; j <= b.length(); j++) {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                    rowMin = Math.min(rowMin, current[j]);
+                }
+                if (rowMin > maxEdits) {
+                    return maxEdits + 1;
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return previous[b.length()];
+        }
+
+        private static final class Builder {
+            private final List<Entry> entries = new ArrayList<>();
+            private final TreeMap<String, Map<Integer, Integer>> termPostings = new TreeMap<>();
+
+            void addCourse(Course course) {
+                if (course.getSubject() == null || course.getCatalog() == null) {
+                    return;
+                }
+                int entry = add(new Entry("course", course.get_id(), course.getSubject() + " " + course.getCatalog(),
+                        course.getTitle(), course.getReviewCount()));
+                addTerm(normalize(course.getSubject() + course.getCatalog()).replace(" ", ""), entry, CODE_WEIGHT);
+                addTerms(course.getSubject(), entry, PART_WEIGHT);
+                addTerms(course.getCatalog(), entry, PART_WEIGHT);
+                addTerms(course.getTitle(), entry, TEXT_WEIGHT);
+            }
+
+            void addInstructor(Instructor instructor) {
+                String name = (Objects.toString(instructor.getFirstName(), "") + " " + Objects.toString(instructor.getLastName(), "")).trim();
+                if (name.isEmpty()) {
+                    return;
+                }
+                int entry = add(new Entry("instructor", instructor.get_id(), name, null, instructor.getReviewCount()));
+                addTerm(normalize(name).replace(" ", ""), entry, CODE_WEIGHT);
+                addTerms(name, entry, NAME_WEIGHT);
+            }
+
+            private int add(Entry entry) {
+                entries.add(entry);
+                return entries.size() - 1;
+            }
+
+            private void addTerms(String text, int entry, int weight) {
+                for (String term : normalize(text).split(" ")) {
+                    addTerm(term, entry, weight);
+                }
+            }
+
+            private void addTerm(String term, int entry, int weight) {
+                if (!term.isEmpty()) {
+                    termPostings.computeIfAbsent(term, k -> new HashMap<>()).merge(entry, weight, Math::max);
+                }
+            }
+
+            SearchIndex build() {
+                String[] terms = termPostings.keySet().toArray(new String[0]);
+                int[][] postings = new int[terms.length][];
+                Map<String, List<Integer>> trigramLists = new HashMap<>();
+                for (int t = 0; t < terms.length; t++) {
+                    postings[t] = termPostings.get(terms[t]).entrySet().stream()
+                            .mapToInt(e -> (e.getKey() << 3) | e.getValue())
+                            .toArray();
+                    for (String trigram : new HashSet<>(trigrams(terms[t]))) {
+                        trigramLists.computeIfAbsent(trigram, k -> new ArrayList<>()).add(t);
+                    }
+                }
+                Map<String, int[]> trigramTerms = new HashMap<>();
+                trigramLists.forEach((trigram, list) -> trigramTerms.put(trigram, list.stream().mapToInt(Integer::intValue).toArray()));
+                return new SearchIndex(List.copyOf(entries), terms, postings, trigramTerms);
+            }
+        }
+    }
+}
@@ -9,6 +9,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -24,6 +28,7 @@ public class SummaryService {
     private final InstructorRepository instructorRepository;
     private final AISummaryGenerator aiSummaryGenerator;
     private final ReviewRepository reviewRepository;
+    private final MongoTemplate mongoTemplate;
     private static final int REVIEW_THRESHOLD = 10;
     private static final int REVIEW_CEILING = 450;
 
@@ -40,10 +45,12 @@ public class SummaryService {
                 }
                 String summary = aiSummaryGenerator.generateSummary(instructorReviews, instructor.getAvgRating(), instructor.getAvgDifficulty());
                 if (summary == null) continue;
-                instructor.setAiSummary(summary);
-                instructor.setLastReviewCount(instructor.getReviewCount());
-                instructor.setLastSummaryUpdate(getLocalDateTime());
-                instructorRepository.save(instructor);
+                // Only the summary fields are written, the statistics may have moved on while the summary was generated
+                Update update = new Update()
+                        .set("aiSummary", summary)
+                        .set("lastReviewCount", instructor.getReviewCount())
+                        .set("lastSummaryUpdate", getLocalDateTime());
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(instructor.get_id())), update, Instructor.class);
                 log.info("Updated summary for instructor {}", instructor.get_id());
             }
         }
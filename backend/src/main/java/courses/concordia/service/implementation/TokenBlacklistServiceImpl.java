@@ -1,25 +1,67 @@
 package courses.concordia.service.implementation;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import courses.concordia.config.TokenBlacklistConfigProperties;
 import courses.concordia.service.TokenBlacklistService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 /**
  * Service implementation for handling token blacklisting operations.
  * This service provides functionalities to blacklist tokens and check if a token is blacklisted
  * by utilizing Redis as the storage mechanism.
+ * <p>
+ * Since almost no token is ever blacklisted, each node remembers the tokens it found not blacklisted for a short
+ * time and answers those lookups without Redis. Blacklisted tokens are broadcast to all nodes, which drop their
+ * negative entry right away; a node that misses the broadcast, or a token blacklisted directly in Redis,
+ * is caught once the negative entry expires.
  */
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class TokenBlacklistServiceImpl implements TokenBlacklistService {
     private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final TokenBlacklistConfigProperties properties;
+    private final Cache<String, Boolean> notBlacklisted;
+    private final Counter localLookups;
+    private final Counter redisLookups;
+
+    public TokenBlacklistServiceImpl(StringRedisTemplate stringRedisTemplate,
+                                     RedisMessageListenerContainer listenerContainer,
+                                     TokenBlacklistConfigProperties properties,
+                                     MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.properties = properties;
+        this.notBlacklisted = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxSize())
+                .expireAfterWrite(properties.getNegativeTtl())
+                .build();
+        this.localLookups = Counter.builder("token.blacklist.lookups").tag("source", "local").register(meterRegistry);
+        this.redisLookups = Counter.builder("token.blacklist.lookups").tag("source", "redis").register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener((message, pattern) ->
+                        notBlacklisted.invalidate(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(properties.getChannel()));
+    }
 
     /**
      * Blacklists a token by adding it to a Redis store with a specified duration.
      * Once the duration expires, the token is automatically removed from the blacklist.
+     * All nodes are notified so they stop trusting a cached negative lookup for the token.
      *
      * @param token The token to be blacklisted.
      * @param durationInSeconds The duration in seconds for which the token should remain blacklisted.
@@ -28,6 +70,12 @@ public class TokenBlacklistServiceImpl implements TokenBlacklistService {
     public void blacklistToken(String token, long durationInSeconds) {
         String key = BLACKLIST_PREFIX + token;
         stringRedisTemplate.opsForValue().set(key, "blacklisted", Duration.ofSeconds(durationInSeconds));
+        notBlacklisted.invalidate(token);
+        try {
+            stringRedisTemplate.convertAndSend(properties.getChannel(), token);
+        } catch (RuntimeException e) {
+            log.warn("Failed to broadcast blacklisted token, other nodes will reject it within {}", properties.getNegativeTtl(), e);
+        }
     }
 
     /**
@@ -38,7 +86,17 @@ public class TokenBlacklistServiceImpl implements TokenBlacklistService {
      */
     @Override
     public boolean isTokenBlacklisted(String token) {
+        if (notBlacklisted.getIfPresent(token) != null) {
+            localLookups.increment();
+            return false;
+        }
+
+        redisLookups.increment();
         String key = BLACKLIST_PREFIX + token;
-        return Boolean.TRUE.equals(stringRedisTemplate.hasKey(key));
+        boolean blacklisted = Boolean.TRUE.equals(stringRedisTemplate.hasKey(key));
+        if (!blacklisted) {
+            notBlacklisted.put(token, Boolean.TRUE);
+        }
+        return blacklisted;
     }
 }
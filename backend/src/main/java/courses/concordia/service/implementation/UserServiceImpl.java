@@ -48,6 +48,7 @@ public class UserServiceImpl implements UserService {
     private final AuthenticationManager authenticationManager;
     private final CookieService cookieService;
     private final TokenBlacklistService tokenBlacklistService;
+    private final PrincipalCacheService principalCacheService;
     private final JwtConfigProperties jwtConfigProperties;
     private final RtConfigProperties rtConfigProperties;
 
@@ -127,6 +128,8 @@ public class UserServiceImpl implements UserService {
 
         user.setUsername(newUsername);
         userRepository.save(user);
+        principalCacheService.evict(originalUsername);
+        principalCacheService.evict(newUsername);
         return UserMapper.toDto(user);
     }
 
@@ -143,6 +146,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> exception(USER, ENTITY_NOT_FOUND));
         updateUserPassword(user, newPassword);
+        principalCacheService.evict(username);
         tokenRepository.delete(token);
         emailService.sendResetPasswordConfirmationMailMessage(user.getUsername(), user.getEmail());
     }
@@ -304,6 +308,7 @@ public class UserServiceImpl implements UserService {
         if (!user.isVerified()) {
             user.setVerified(true);
             userRepository.save(user);
+            principalCacheService.evict(user.getUsername());
             tokenRepository.delete(token);
             return true;
         }
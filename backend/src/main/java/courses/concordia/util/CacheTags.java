@@ -0,0 +1,84 @@
+package courses.concordia.util;
+
+import courses.concordia.dto.model.course.CourseDto;
+import courses.concordia.dto.model.course.CourseReviewsDto;
+import courses.concordia.dto.model.instructor.InstructorDto;
+import courses.concordia.dto.model.instructor.InstructorReviewsDto;
+import courses.concordia.dto.model.review.ReviewDto;
+import courses.concordia.dto.model.review.ReviewPageDto;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Naming and resolution of the entity tags attached to cache entries.
+ * Every cached value is tagged with the courses and instructors it contains, and each tag is backed by
+ * a Redis set listing the cache keys to drop when that course or instructor changes.
+ */
+public class CacheTags {
+    public static final String TAG_PREFIX = "cache-tags:";
+    // Caches holding pages of reviews
+    public static final String[] REVIEW_PAGE_CACHES = {"courseReviewsCache", "instructorReviewsCache", "reviewsCacheWithFilters"};
+    // Review pages and the courses and instructors whose statistics are derived from their reviews
+    public static final String[] REVIEW_WRITE_CACHES = {"courseReviewsCache", "instructorReviewsCache", "reviewsCacheWithFilters",
+            "coursesCache", "instructorsCache", "coursesCacheWithFilters", "instructorsCacheWithFilters"};
+
+    public static String course(String courseId) {
+        return "course:" + courseId;
+    }
+
+    public static String instructor(String instructorId) {
+        return "instructor:" + instructorId;
+    }
+
+    /**
+     * @param cacheName The name of the cache.
+     * @param tag       The entity tag.
+     * @return The Redis key of the set holding the keys of the entries of the cache carrying the tag.
+     */
+    public static String setKey(String cacheName, String tag) {
+        return TAG_PREFIX + cacheName + ":" + tag;
+    }
+
+    /**
+     * Collects the tags of every course, instructor and review contained in a cached value.
+     *
+     * @param value The cached value.
+     * @return The tags of the value, empty if it does not reference any course or instructor.
+     */
+    public static Set<String> resolve(Object value) {
+        Set<String> tags = new LinkedHashSet<>();
+        collect(value, tags);
+        return tags;
+    }
+
+    private static void collect(Object value, Set<String> tags) {
+        if (value instanceof Collection<?> values) {
+            values.forEach(v -> collect(v, tags));
+        } else if (value instanceof CourseDto course) {
+            addCourse(course.get_id(), tags);
+        } else if (value instanceof InstructorDto instructor) {
+            addInstructor(instructor.get_id(), tags);
+        } else if (value instanceof ReviewDto review) {
+            addCourse(review.getCourseId(), tags);
+            addInstructor(review.getInstructorId(), tags);
+        } else if (value instanceof ReviewPageDto page) {
+            collect(page.getReviews(), tags);
+        } else if (value instanceof CourseReviewsDto courseReviews) {
+            collect(courseReviews.getCourse(), tags);
+            collect(courseReviews.getReviews(), tags);
+        } else if (value instanceof InstructorReviewsDto instructorReviews) {
+            collect(instructorReviews.getInstructor(), tags);
+            collect(instructorReviews.getReviews(), tags);
+        }
+    }
+
+    private static void addCourse(String courseId, Set<String> tags) {
+        if (courseId != null) tags.add(course(courseId));
+    }
+
+    private static void addInstructor(String instructorId, Set<String> tags) {
+        if (instructorId != null) tags.add(instructor(instructorId));
+    }
+}
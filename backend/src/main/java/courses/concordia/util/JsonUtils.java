@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 
 import courses.concordia.json.LocalDateTimeTypeAdapter;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +13,7 @@ import java.io.*;
 import java.lang.reflect.Type;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.function.Consumer;
 
 @Slf4j
 public class JsonUtils {
@@ -45,6 +47,26 @@ public class JsonUtils {
         return null;
     }
 
+    /**
+     * Decodes a JSON array one element at a time, so that large files never have to be held in memory.
+     *
+     * @param inputStream The stream holding the JSON array.
+     * @param type        The type of the elements.
+     * @param consumer    Receives each decoded element in order.
+     * @throws IOException if the stream cannot be read or is not a JSON array.
+     */
+    public static <T> void streamArray(InputStream inputStream, Class<T> type, Consumer<T> consumer) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(inputStream))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                consumer.accept(gson.fromJson(reader, type));
+            }
+            reader.endArray();
+        } catch (JsonSyntaxException | IllegalStateException e) {
+            throw new IOException("Malformed JSON array: " + e.getMessage(), e);
+        }
+    }
+
     public static <T> T getData(String jsonString, TypeToken<T> typeToken) {
         if (jsonString == null) {
             log.error("Input JSON string is null.");
@@ -0,0 +1,108 @@
+package courses.concordia.util;
+
+import courses.concordia.exception.CustomExceptionFactory;
+import courses.concordia.exception.EntityType;
+import courses.concordia.exception.ExceptionType;
+import courses.concordia.model.Review;
+import org.bson.BSONException;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque keyset cursor for review listings.
+ * The cursor holds the sort key and id of the last review of a page, so the next page seeks directly past it
+ * instead of skipping every previous review, and carries the total computed for the first page of the chain.
+ *
+ * @param field     The sort field: timestamp, likes, difficulty, experience or rating.
+ * @param direction The sort direction.
+ * @param value     The sort key of the last review returned.
+ * @param id        The id of the last review returned, breaking ties between equal sort keys.
+ * @param total     The total number of reviews of the listing.
+ */
+public record ReviewCursor(String field, Sort.Direction direction, Object value, String id, long total) {
+    private static final String TIMESTAMP = "timestamp";
+
+    /**
+     * @return The sort to apply to every page of a keyset listing, with the id as tie-breaker.
+     */
+    public static Sort sort(String field, Sort.Direction direction) {
+        return Sort.by(direction, field, "_id");
+    }
+
+    /**
+     * Builds the cursor pointing after the given review.
+     */
+    public static ReviewCursor after(Review review, String field, Sort.Direction direction, long total) {
+        Object value = switch (field) {
+            case TIMESTAMP -> review.getTimestamp();
+            case "likes" -> review.getLikes();
+            case "difficulty" -> review.getDifficulty();
+            case "experience" -> review.getExperience();
+            case "rating" -> review.getRating();
+            default -> throw new IllegalArgumentException("Unsupported review sort field: " + field);
+        };
+        return new ReviewCursor(field, direction, value, review.get_id(), total);
+    }
+
+    /**
+     * Decodes a cursor issued for the same sort.
+     *
+     * @throws CustomExceptionFactory.CustomEntityException if the cursor is malformed or was issued for another sort.
+     */
+    public static ReviewCursor decode(String cursor, String field, Sort.Direction direction) {
+        try {
+            Document document = Document.parse(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (!field.equals(document.getString("f")) || !direction.name().equals(document.getString("d"))) {
+                throw invalidCursor();
+            }
+            Object value = document.get("v");
+            if (TIMESTAMP.equals(field) && value != null) {
+                value = LocalDateTime.parse((String) value);
+            }
+            return new ReviewCursor(field, direction, value, document.getString("i"), document.get("n", Number.class).longValue());
+        } catch (IllegalArgumentException | ClassCastException | NullPointerException | DateTimeException
+                 | BSONException | JsonParseException e) {
+            throw invalidCursor();
+        }
+    }
+
+    public String encode() {
+        Document document = new Document("f", field)
+                .append("d", direction.name())
+                .append("v", value instanceof LocalDateTime timestamp ? timestamp.toString() : value)
+                .append("i", id)
+                .append("n", total);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(document.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Matches the reviews that come after this cursor in the sort order.
+     * Reviews without a sort key sort before all others, as in MongoDB.
+     */
+    public Criteria criteria() {
+        boolean descending = direction.isDescending();
+        Criteria sameKeyAfter = new Criteria().andOperator(
+                Criteria.where(field).is(value),
+                descending ? Criteria.where("_id").lt(id) : Criteria.where("_id").gt(id));
+
+        if (value == null) {
+            return descending
+                    ? sameKeyAfter
+                    : new Criteria().orOperator(sameKeyAfter, Criteria.where(field).ne(null));
+        }
+        return descending
+                ? new Criteria().orOperator(Criteria.where(field).lt(value), sameKeyAfter, Criteria.where(field).is(null))
+                : new Criteria().orOperator(Criteria.where(field).gt(value), sameKeyAfter);
+    }
+
+    private static RuntimeException invalidCursor() {
+        return CustomExceptionFactory.throwCustomException(EntityType.REVIEW, ExceptionType.CUSTOM_EXCEPTION, "Invalid pagination cursor");
+    }
+}
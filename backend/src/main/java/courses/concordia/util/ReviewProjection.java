@@ -0,0 +1,41 @@
+package courses.concordia.util;
+
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Projections keeping the embedded comments and resource links of reviews out of listings.
+ * A listed review carries its latest comment and the number of comments and resource links;
+ * the rest is served page by page on request.
+ */
+public final class ReviewProjection {
+    private ReviewProjection() {
+    }
+
+    /**
+     * Restricts a review listing query to the latest comment and no resource links.
+     *
+     * @param query The listing query.
+     * @return The same query.
+     */
+    public static Query listing(Query query) {
+        query.fields().slice("comments", -1).exclude("resourceLinks");
+        return query;
+    }
+
+    /**
+     * Restricts a single review query to a page of the given embedded array and its count.
+     *
+     * @param query      The query of the review.
+     * @param array      The embedded array, comments or resourceLinks.
+     * @param countField The field holding the length of the array.
+     * @param page       The zero-based page number.
+     * @param size       The page size.
+     * @return The same query.
+     */
+    public static Query page(Query query, String array, String countField, int page, int size) {
+        // $slice takes an int offset, and no embedded array comes near Integer.MAX_VALUE elements
+        long skip = (long) page * size;
+        query.fields().include(countField).slice(array, (int) Math.min(skip, Integer.MAX_VALUE), size);
+        return query;
+    }
+}
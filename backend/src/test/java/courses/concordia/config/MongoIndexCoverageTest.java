@@ -0,0 +1,202 @@
+package courses.concordia.config;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import courses.concordia.model.*;
+import courses.concordia.repository.*;
+import courses.concordia.util.ReviewCursor;
+import courses.concordia.util.ReviewProjection;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every repository finder and every keyset review listing against a MongoDB with the indexes declared by
+ * {@link MongoIndexManager}, and fails when the plan MongoDB executed for one of them is a collection scan.
+ * The executed plans are read from the database profiler, which records the plan summary explain() reports.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MongoIndexCoverageTest {
+    private static final String DATABASE = "index-coverage";
+    private static final String COURSE_ID = "COMP248";
+    private static final String INSTRUCTOR_ID = "jane-doe";
+    private static final String USER_ID = "author";
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:6.0");
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+    private static Review review;
+
+    @BeforeAll
+    static void setUp() {
+        client = MongoClients.create(mongo.getReplicaSetUrl(DATABASE));
+        mongoTemplate = new MongoTemplate(client, DATABASE);
+        seed();
+        new MongoIndexManager(mongoTemplate).reconcileIndexes();
+        mongoTemplate.getDb().runCommand(new Document("profile", 2));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        client.close();
+    }
+
+    @TestFactory
+    Stream<DynamicTest> repositoryFindersUseAnIndex() {
+        MongoRepositoryFactory factory = new MongoRepositoryFactory(mongoTemplate);
+        ReviewRepository reviews = factory.getRepository(ReviewRepository.class);
+        InteractionRepository interactions = factory.getRepository(InteractionRepository.class);
+        InstructorRepository instructors = factory.getRepository(InstructorRepository.class);
+        GradeDistributionRepository gradeDistributions = factory.getRepository(GradeDistributionRepository.class);
+        SubscriptionRepository subscriptions = factory.getRepository(SubscriptionRepository.class);
+        TokenRepository tokens = factory.getRepository(TokenRepository.class);
+        UserRepository users = factory.getRepository(UserRepository.class);
+
+        Map<String, Runnable> finders = new LinkedHashMap<>();
+        finders.put("ReviewRepository.findByInstructorIdAndUserIdAndType", () -> reviews.findByInstructorIdAndUserIdAndType(INSTRUCTOR_ID, USER_ID, "instructor"));
+        finders.put("ReviewRepository.findByCourseIdAndUserIdAndType", () -> reviews.findByCourseIdAndUserIdAndType(COURSE_ID, USER_ID, "course"));
+        finders.put("ReviewRepository.findAllByInstructorIdAndType", () -> reviews.findAllByInstructorIdAndType(INSTRUCTOR_ID, "instructor"));
+        finders.put("ReviewRepository.findAllByCourseIdAndType", () -> reviews.findAllByCourseIdAndType(COURSE_ID, "course"));
+        finders.put("ReviewRepository.existsByTimestampAndInstructorIdAndCourseId", () -> reviews.existsByTimestampAndInstructorIdAndCourseId(review.getTimestamp(), INSTRUCTOR_ID, COURSE_ID));
+        finders.put("ReviewRepository.findAllByCourseId", () -> reviews.findAllByCourseId(COURSE_ID));
+        finders.put("ReviewRepository.findAllByInstructorId", () -> reviews.findAllByInstructorId(INSTRUCTOR_ID));
+        finders.put("ReviewRepository.findAllByType", () -> reviews.findAllByType("course"));
+        finders.put("InteractionRepository.findByReferrer", () -> interactions.findByReferrer("reader"));
+        finders.put("InteractionRepository.findByCourseIdAndUserIdAndReferrerAndType", () -> interactions.findByCourseIdAndUserIdAndReferrerAndType(COURSE_ID, USER_ID, "reader", "course"));
+        finders.put("InteractionRepository.findByInstructorIdAndUserIdAndReferrerAndType", () -> interactions.findByInstructorIdAndUserIdAndReferrerAndType(INSTRUCTOR_ID, USER_ID, "reader", "instructor"));
+        finders.put("InteractionRepository.findByCourseIdAndReferrerAndType", () -> interactions.findByCourseIdAndReferrerAndType(COURSE_ID, "reader", "course"));
+        finders.put("InteractionRepository.findByInstructorIdAndReferrerAndType", () -> interactions.findByInstructorIdAndReferrerAndType(INSTRUCTOR_ID, "reader", "instructor"));
+        finders.put("InstructorRepository.findByCoursesContaining", () -> instructors.findByCoursesContaining(Set.of(new Instructor.Course("COMP", "248", "concordia-university"))));
+        finders.put("GradeDistributionRepository.findTopByCourseSubjectAndCourseCatalogOrderByYearDescTermAsc", () -> gradeDistributions.findTopByCourseSubjectAndCourseCatalogOrderByYearDescTermAsc("COMP", "248"));
+        finders.put("SubscriptionRepository.findByUserId", () -> subscriptions.findByUserId("reader"));
+        finders.put("SubscriptionRepository.findByUserIdAndCourseId", () -> subscriptions.findByUserIdAndCourseId("reader", COURSE_ID));
+        finders.put("SubscriptionRepository.deleteByUserIdAndCourseId", () -> subscriptions.deleteByUserIdAndCourseId("nobody", COURSE_ID));
+        finders.put("TokenRepository.findByToken", () -> tokens.findByToken("token"));
+        finders.put("TokenRepository.findByUserId", () -> tokens.findByUserId("reader"));
+        finders.put("UserRepository.findByUsername", () -> users.findByUsername("reader"));
+        finders.put("UserRepository.findByEmail", () -> users.findByEmail("reader@example.com"));
+        finders.put("UserRepository.existsByUsernameOrEmail", () -> users.existsByUsernameOrEmail("reader", "reader@example.com"));
+
+        return finders.entrySet().stream()
+                .map(finder -> DynamicTest.dynamicTest(finder.getKey(), () -> assertIndexed(finder.getKey(), finder.getValue())));
+    }
+
+    @TestFactory
+    Stream<DynamicTest> keysetReviewListingsUseAnIndex() {
+        Map<String, Query> listings = new LinkedHashMap<>();
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            for (String field : List.of("timestamp", "likes", "difficulty", "experience")) {
+                addPages(listings, "course by " + field + " " + direction, Criteria.where("courseId").is(COURSE_ID), field, direction);
+            }
+            addPages(listings, "course of an instructor by timestamp " + direction,
+                    Criteria.where("courseId").is(COURSE_ID).and("instructorId").is(INSTRUCTOR_ID), "timestamp", direction);
+            for (String field : List.of("timestamp", "likes", "difficulty", "rating")) {
+                addPages(listings, "instructor by " + field + " " + direction, Criteria.where("instructorId").is(INSTRUCTOR_ID), field, direction);
+            }
+        }
+        for (String field : List.of("timestamp", "likes", "experience")) {
+            addPages(listings, "all reviews by " + field, new Criteria(), field, Sort.Direction.DESC);
+        }
+        listings.put("reviews of a user", new Query(Criteria.where("userId").is(USER_ID)).with(Sort.by(Sort.Direction.DESC, "timestamp")));
+
+        return listings.entrySet().stream()
+                .map(listing -> DynamicTest.dynamicTest(listing.getKey(), () -> assertIndexed(listing.getKey(),
+                        () -> mongoTemplate.find(ReviewProjection.listing(listing.getValue()), Review.class))));
+    }
+
+    /**
+     * Adds the first page of a listing and the page following the seeded review.
+     */
+    private static void addPages(Map<String, Query> listings, String name, Criteria scope, String field, Sort.Direction direction) {
+        listings.put(name + ", first page", new Query(scope).with(ReviewCursor.sort(field, direction)).limit(10));
+        listings.put(name + ", next page", new Query(scope)
+                .addCriteria(ReviewCursor.after(review, field, direction, 1).criteria())
+                .with(ReviewCursor.sort(field, direction))
+                .limit(10));
+    }
+
+    /**
+     * Runs an operation and checks the plans the profiler recorded for it.
+     */
+    private static void assertIndexed(String name, Runnable operation) {
+        MongoCollection<Document> profile = mongoTemplate.getDb().getCollection("system.profile");
+        long before = profile.countDocuments();
+        operation.run();
+
+        List<Document> plans = new ArrayList<>();
+        profile.find()
+                .sort(new Document("$natural", 1))
+                .skip((int) before)
+                .forEach(entry -> {
+                    String namespace = entry.getString("ns");
+                    if (entry.containsKey("planSummary") && namespace != null && !namespace.startsWith(DATABASE + ".system.")) {
+                        plans.add(entry);
+                    }
+                });
+
+        assertThat(plans).as("plans executed by %s", name).isNotEmpty();
+        assertThat(plans).as("plans executed by %s", name)
+                .allSatisfy(plan -> assertThat(plan.getString("planSummary"))
+                        .as("plan of %s on %s", name, plan.getString("ns"))
+                        .doesNotContain("COLLSCAN"));
+    }
+
+    private static void seed() {
+        LocalDateTime now = LocalDateTime.now();
+        review = mongoTemplate.insert(new Review()
+                .setType("course")
+                .setCourseId(COURSE_ID)
+                .setInstructorId(INSTRUCTOR_ID)
+                .setUserId(USER_ID)
+                .setTimestamp(now)
+                .setDifficulty(3)
+                .setExperience(4)
+                .setLikes(2));
+        mongoTemplate.insert(new Review()
+                .setType("instructor")
+                .setCourseId(COURSE_ID)
+                .setInstructorId(INSTRUCTOR_ID)
+                .setUserId("another-author")
+                .setTimestamp(now.minusDays(1))
+                .setDifficulty(2)
+                .setRating(5));
+        Interaction interaction = new Interaction();
+        interaction.setType("course");
+        interaction.setCourseId(COURSE_ID);
+        interaction.setInstructorId(INSTRUCTOR_ID);
+        interaction.setUserId(USER_ID);
+        interaction.setReferrer("reader");
+        interaction.setKind(Interaction.InteractionKind.LIKE);
+        mongoTemplate.insert(interaction);
+        mongoTemplate.insert(new Instructor()
+                .setFirstName("Jane")
+                .setLastName("Doe")
+                .setCourses(Set.of(new Instructor.Course("COMP", "248", "concordia-university"))));
+        mongoTemplate.insert(new GradeDistribution()
+                .setCourse(new GradeDistribution.Course("COMP", "248"))
+                .setYear(2024)
+                .setTerm("Fall"));
+        mongoTemplate.insert(new Subscription().setUserId("reader").setCourseId(COURSE_ID));
+        mongoTemplate.insert(new Token().setUserId("reader").setToken("token"));
+        mongoTemplate.insert(new User().setUsername("reader").setEmail("reader@example.com"));
+    }
+}
@@ -0,0 +1,103 @@
+package courses.concordia.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import courses.concordia.dto.model.review.ReviewDto;
+import courses.concordia.dto.model.review.ReviewPageDto;
+import courses.concordia.util.CacheTags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Stores cursor review pages in a tagged cache and checks that the course and instructor tags of their reviews
+ * evict them, from Redis and from the local tier. The tag sets are kept in memory in place of Redis.
+ */
+class TaggedRedisCacheTest {
+    private static final String CACHE = "reviewsCacheWithFilters";
+
+    private final Map<String, Set<String>> tagSets = new HashMap<>();
+    private StringRedisTemplate redisTemplate;
+    private TaggedRedisCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        StringRedisConnection connection = mock(StringRedisConnection.class);
+        when(connection.sAdd(anyString(), any(String[].class))).thenAnswer(invocation -> {
+            String setKey = invocation.getArgument(0);
+            for (Object member : Arrays.copyOfRange(invocation.getArguments(), 1, invocation.getArguments().length)) {
+                tagSets.computeIfAbsent(setKey, k -> new HashSet<>()).add((String) member);
+            }
+            return 1L;
+        });
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            ((RedisCallback<Object>) invocation.getArgument(0)).doInRedis(connection);
+            return List.of();
+        });
+        SetOperations<String, String> setOperations = mock(SetOperations.class);
+        when(setOperations.members(anyString())).thenAnswer(invocation -> Set.copyOf(tagSets.getOrDefault(invocation.getArgument(0), Set.of())));
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+
+        RedisCacheConfiguration configuration = RedisCacheConfiguration.defaultCacheConfig()
+                .entryTtl(Duration.ofMinutes(10))
+                .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()))
+                .disableCachingNullValues();
+        cache = new TaggedRedisCache(CACHE, mock(RedisCacheWriter.class), configuration,
+                Caffeine.newBuilder().maximumSize(100).build(), redisTemplate, "cache-invalidation", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void tagsCursorPageWithTheCoursesAndInstructorsOfItsReviews() {
+        assertThat(CacheTags.resolve(page("COMP248", "jane-doe")))
+                .containsExactlyInAnyOrder(CacheTags.course("COMP248"), CacheTags.instructor("jane-doe"));
+    }
+
+    @Test
+    void evictsCursorPageByCourse() {
+        cache.put("comp248-first", page("COMP248", "jane-doe"));
+        cache.put("soen287-first", page("SOEN287", "john-smith"));
+
+        cache.evictTagged(CacheTags.course("COMP248"));
+
+        verify(redisTemplate).delete(Set.of(CACHE + "::comp248-first"));
+        assertThat(cache.get("comp248-first")).isNull();
+        assertThat(cache.get("soen287-first")).isNotNull();
+    }
+
+    @Test
+    void evictsCursorPageByInstructor() {
+        cache.put("comp248-first", page("COMP248", "jane-doe"));
+        cache.put("soen287-first", page("SOEN287", "john-smith"));
+
+        cache.evictTagged(CacheTags.instructor("john-smith"));
+
+        verify(redisTemplate).delete(Set.of(CACHE + "::soen287-first"));
+        assertThat(cache.get("soen287-first")).isNull();
+        assertThat(cache.get("comp248-first")).isNotNull();
+    }
+
+    private static ReviewPageDto page(String courseId, String instructorId) {
+        return new ReviewPageDto()
+                .setReviews(List.of(new ReviewDto().setCourseId(courseId).setInstructorId(instructorId)))
+                .setNextCursor("cursor");
+    }
+}
@@ -0,0 +1,191 @@
+package courses.concordia.service.implementation;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.mongodb.client.result.UpdateResult;
+import courses.concordia.config.EmailOutboxConfigProperties;
+import courses.concordia.model.EmailMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the outbox against an in-process SMTP server, with the MongoDB side mocked, to check that mails are
+ * sent over SMTP and that their outcome is only recorded while the claim still holds their lease.
+ */
+class EmailOutboxServiceImplTest {
+    private static final String TEMPLATE = "<p th:text=\"${name}\">name</p>";
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Deque<EmailMessage> due = new ArrayDeque<>();
+    private EmailOutboxServiceImpl outbox;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost(ServerSetupTest.SMTP.getBindAddress());
+        sender.setPort(ServerSetupTest.SMTP.getPort());
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(new StringTemplateResolver());
+        EmailOutboxConfigProperties properties = new EmailOutboxConfigProperties();
+        properties.setWorkers(1);
+        outbox = new EmailOutboxServiceImpl(mongoTemplate, sender, templateEngine, properties, meterRegistry);
+
+        // A claim hands out the next due mail under the owner set by the update
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(EmailMessage.class)))
+                .thenAnswer(invocation -> {
+                    EmailMessage message = due.poll();
+                    if (message == null) {
+                        return null;
+                    }
+                    Update update = invocation.getArgument(1);
+                    return message
+                            .setOwner(update.getUpdateObject().get("$set", Document.class).getString("owner"))
+                            .setStatus(EmailMessage.Status.SENDING)
+                            .setAttempts(message.getAttempts() + 1);
+                });
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(EmailMessage.class)))
+                .thenAnswer(invocation -> matched(due.size() + 2));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(EmailMessage.class)))
+                .thenReturn(matched(1));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        outbox.shutdown();
+    }
+
+    @Test
+    void sendsClaimedMailsAndMarksThemSentUnderTheirLease() throws Exception {
+        due.add(message("1", "alice@example.com"));
+        due.add(message("2", "bob@example.com"));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(EmailMessage.class))).thenReturn(matched(2));
+
+        outbox.drain();
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 2)).isTrue();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).extracting(message -> message.getAllRecipients()[0].toString())
+                .containsExactlyInAnyOrder("alice@example.com", "bob@example.com");
+        assertThat(GreenMailUtil.getBody(received[0])).contains("<p>" + received[0].getAllRecipients()[0] + "</p>");
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, timeout(5000).times(2)).updateFirst(queries.capture(), updates.capture(), eq(EmailMessage.class));
+        assertThat(queries.getAllValues()).allSatisfy(query -> {
+            assertThat(query.getQueryObject()).containsKey("owner");
+            assertThat(query.getQueryObject().get("status")).isEqualTo(EmailMessage.Status.SENDING);
+        });
+        assertThat(updates.getAllValues()).allSatisfy(update ->
+                assertThat(update.getUpdateObject().get("$set", Document.class).get("status")).isEqualTo(EmailMessage.Status.SENT));
+    }
+
+    @Test
+    void skipsMailsWhoseLeaseWasTakenOverBeforeSending() {
+        due.add(message("1", "alice@example.com"));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(EmailMessage.class))).thenReturn(matched(0));
+        when(mongoTemplate.find(any(Query.class), eq(EmailMessage.class))).thenReturn(List.of());
+
+        outbox.drain();
+
+        verify(mongoTemplate, timeout(5000)).find(any(Query.class), eq(EmailMessage.class));
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+        verify(mongoTemplate, after(200).never()).updateFirst(any(Query.class), any(Update.class), eq(EmailMessage.class));
+        assertThat(meterRegistry.counter("email.outbox.messages", "template", TEMPLATE, "result", "lease_lost").count()).isEqualTo(1);
+    }
+
+    @Test
+    void schedulesARetryOfAMailThatFailsToRender() {
+        due.add(message("1", "alice@example.com").setTemplate("<p th:text=\"${\">broken</p>"));
+
+        outbox.drain();
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, timeout(5000)).updateFirst(any(Query.class), updates.capture(), eq(EmailMessage.class));
+        Document set = updates.getValue().getUpdateObject().get("$set", Document.class);
+        assertThat(set.get("status")).isEqualTo(EmailMessage.Status.PENDING);
+        assertThat(set).containsKey("nextAttemptAt");
+        assertThat(greenMail.getReceivedMessages()).isEmpty();
+    }
+
+    @Test
+    void recordsNothingWhenTheLeaseIsLostWhileSending() throws Exception {
+        due.add(message("1", "alice@example.com"));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(EmailMessage.class))).thenReturn(matched(1));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(EmailMessage.class))).thenReturn(matched(0));
+
+        outbox.drain();
+
+        assertThat(greenMail.waitForIncomingEmail(5000, 1)).isTrue();
+        verify(mongoTemplate, timeout(5000)).updateFirst(any(Query.class), any(Update.class), eq(EmailMessage.class));
+        assertThat(meterRegistry.counter("email.outbox.messages", "template", TEMPLATE, "result", "sent").count()).isZero();
+    }
+
+    @Test
+    void claimsNothingWhileEveryWorkerIsBusy() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(EmailMessage.class))).thenAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return matched(1);
+        });
+        due.add(message("1", "alice@example.com"));
+        outbox.drain();
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        due.add(message("2", "bob@example.com"));
+        outbox.drain();
+        // The single worker is busy, so the second mail stays due instead of being leased while it waits
+        assertThat(due).hasSize(1);
+
+        release.countDown();
+        assertThat(greenMail.waitForIncomingEmail(5000, 1)).isTrue();
+        verify(mongoTemplate, timeout(5000)).updateFirst(any(Query.class), any(Update.class), eq(EmailMessage.class));
+        outbox.drain();
+        assertThat(greenMail.waitForIncomingEmail(5000, 2)).isTrue();
+    }
+
+    private static EmailMessage message(String id, String to) {
+        EmailMessage message = new EmailMessage()
+                .setTemplate(TEMPLATE)
+                .setTo(to)
+                .setSubject("Subject " + id)
+                .setVariables(Map.of("name", to));
+        message.set_id(id);
+        return message;
+    }
+
+    private static UpdateResult matched(long count) {
+        return UpdateResult.acknowledged(count, count, null);
+    }
+}
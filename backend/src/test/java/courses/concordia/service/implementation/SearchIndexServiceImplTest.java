@@ -0,0 +1,142 @@
+package courses.concordia.service.implementation;
+
+import courses.concordia.dto.model.search.SearchSuggestionDto;
+import courses.concordia.model.Course;
+import courses.concordia.model.Instructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Builds the search index over a small fixed catalog and checks ranking, prefix matching and typo tolerance.
+ */
+class SearchIndexServiceImplTest {
+    private SearchIndexServiceImpl searchIndexService;
+
+    @BeforeEach
+    void setUp() {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(Course.class))).thenReturn(List.of(
+                course("comp248", "COMP", "248", "Object-Oriented Programming I", 120),
+                course("comp249", "COMP", "249", "Object-Oriented Programming II", 80),
+                course("comp352", "COMP", "352", "Data Structures and Algorithms", 95),
+                course("comp2480", "COMP", "2480", "Special Topics", 0),
+                course("soen287", "SOEN", "287", "Web Programming", 40),
+                course("math205", "MATH", "205", "Differential and Integral Calculus II", 60),
+                course("phys204", "PHYS", "204", "Mechanics", 10)));
+        when(mongoTemplate.find(any(Query.class), eq(Instructor.class))).thenReturn(List.of(
+                instructor("john-smith", "John", "Smith", 30),
+                instructor("jane-smithers", "Jane", "Smithers", 5),
+                instructor("ali-programmer", "Ali", "Programmer", 0)));
+
+        searchIndexService = new SearchIndexServiceImpl(mongoTemplate);
+        searchIndexService.rebuild();
+    }
+
+    @Test
+    void matchesCourseCodeWithOrWithoutSpace() {
+        assertThat(ids("comp248", null)).startsWith("comp248");
+        assertThat(ids("comp 248", null)).startsWith("comp248");
+        assertThat(ids("COMP-248", null)).startsWith("comp248");
+    }
+
+    @Test
+    void ranksExactMatchesBeforePrefixMatchesBeforeTypos() {
+        assertThat(ids("comp 248", null)).containsExactly("comp248", "comp2480", "comp249");
+    }
+
+    @Test
+    void matchesPrefixes() {
+        // comp352 is one typo away from the prefix comp24 and ranks after every true prefix match
+        assertThat(ids("comp24", null)).containsExactly("comp248", "comp249", "comp2480", "comp352");
+        assertThat(ids("algo", null)).containsExactly("comp352");
+        assertThat(ids("smi", "instructor")).containsExactly("john-smith", "jane-smithers");
+    }
+
+    @Test
+    void breaksScoreTiesByReviewCount() {
+        assertThat(ids("comp", null)).containsExactly("comp248", "comp352", "comp249", "comp2480");
+    }
+
+    @Test
+    void requiresEveryWordToMatch() {
+        assertThat(ids("object programming", null)).containsExactly("comp248", "comp249");
+        assertThat(ids("web programming", null)).containsExactly("soen287");
+        assertThat(ids("web calculus", null)).isEmpty();
+    }
+
+    @Test
+    void toleratesTypos() {
+        assertThat(ids("algoritms", null)).containsExactly("comp352");
+        assertThat(ids("calclus", null)).containsExactly("math205");
+        assertThat(ids("mechanisc", null)).containsExactly("phys204");
+    }
+
+    @Test
+    void ranksExactNamesBeforeTypos() {
+        assertThat(ids("smith", "instructor")).containsExactly("john-smith", "jane-smithers");
+        assertThat(ids("smyth", "instructor")).containsExactly("john-smith", "jane-smithers");
+        assertThat(ids("xmith", "instructor")).containsExactly("john-smith", "jane-smithers");
+        assertThat(ids("smithres", "instructor")).containsExactly("jane-smithers");
+    }
+
+    @Test
+    void doesNotMatchShortTokensFuzzily() {
+        assertThat(ids("xyz", null)).isEmpty();
+        assertThat(ids("mat", null)).containsExactly("math205");
+    }
+
+    @Test
+    void filtersByTypeAndLimit() {
+        assertThat(ids("programmer", null)).startsWith("ali-programmer");
+        assertThat(ids("programmer", "course")).containsExactly("comp248", "comp249", "soen287");
+        assertThat(ids("programmer", "instructor")).containsExactly("ali-programmer");
+        assertThat(searchIndexService.suggest("comp", null, 2)).hasSize(2);
+        assertThat(searchIndexService.suggest("comp", null, 0)).isEmpty();
+        assertThat(searchIndexService.suggest("  ", null, 10)).isEmpty();
+    }
+
+    @Test
+    void returnsCourseSuggestionsWithCodeAndTitle() {
+        SearchSuggestionDto suggestion = searchIndexService.suggest("soen 287", null, 10).get(0);
+
+        assertThat(suggestion.get_id()).isEqualTo("soen287");
+        assertThat(suggestion.getType()).isEqualTo("course");
+        assertThat(suggestion.getLabel()).isEqualTo("SOEN 287");
+        assertThat(suggestion.getDescription()).isEqualTo("Web Programming");
+        assertThat(suggestion.getReviewCount()).isEqualTo(40);
+    }
+
+    @Test
+    void computesEditDistanceUpToTheBound() {
+        assertThat(SearchIndexServiceImpl.SearchIndex.editDistance("calculus", "calculus", 2)).isZero();
+        assertThat(SearchIndexServiceImpl.SearchIndex.editDistance("calclus", "calculus", 2)).isEqualTo(1);
+        assertThat(SearchIndexServiceImpl.SearchIndex.editDistance("smyth", "smith", 1)).isEqualTo(1);
+        assertThat(SearchIndexServiceImpl.SearchIndex.editDistance("mechanisc", "mechanics", 2)).isEqualTo(2);
+        assertThat(SearchIndexServiceImpl.SearchIndex.editDistance("", "abc", 3)).isEqualTo(3);
+        // Beyond the bound the distance is reported as bound + 1
+        assertThat(SearchIndexServiceImpl.SearchIndex.editDistance("algebra", "physics", 2)).isEqualTo(3);
+        assertThat(SearchIndexServiceImpl.SearchIndex.editDistance("comp", "comp2480", 2)).isEqualTo(3);
+    }
+
+    private List<String> ids(String query, String type) {
+        return searchIndexService.suggest(query, type, 10).stream().map(SearchSuggestionDto::get_id).toList();
+    }
+
+    private static Course course(String id, String subject, String catalog, String title, int reviewCount) {
+        return new Course().set_id(id).setSubject(subject).setCatalog(catalog).setTitle(title).setReviewCount(reviewCount);
+    }
+
+    private static Instructor instructor(String id, String firstName, String lastName, int reviewCount) {
+        return new Instructor().set_id(id).setFirstName(firstName).setLastName(lastName).setReviewCount(reviewCount);
+    }
+}
@@ -0,0 +1,231 @@
+package courses.concordia.util;
+
+import courses.concordia.config.PropertiesConfig;
+import courses.concordia.exception.CustomExceptionFactory;
+import courses.concordia.model.Review;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks that cursors survive encoding, and that the criteria of a cursor match exactly the reviews MongoDB
+ * sorts after it. The criteria are evaluated in memory, and the reviews are sorted the way MongoDB sorts them,
+ * missing keys first in ascending order.
+ */
+class ReviewCursorTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 14, 15, 9, 26, 535_000_000);
+
+    @BeforeAll
+    static void loadErrorMessages() throws IOException {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new ResourcePropertySource("classpath:custom.properties"));
+        new CustomExceptionFactory(new PropertiesConfig(environment));
+    }
+
+    static Stream<Arguments> sorts() {
+        return Stream.of("timestamp", "likes", "difficulty", "experience", "rating")
+                .flatMap(field -> Stream.of(Sort.Direction.values()).map(direction -> Arguments.of(field, direction)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("sorts")
+    void roundTripsEverySortField(String field, Sort.Direction direction) {
+        Review review = review("a1", NOW, 3).setDifficulty(4).setExperience(2).setRating(5);
+        ReviewCursor cursor = ReviewCursor.after(review, field, direction, 42);
+
+        ReviewCursor decoded = ReviewCursor.decode(cursor.encode(), field, direction);
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.value()).isEqualTo(value(review, field));
+        assertThat(decoded.id()).isEqualTo("a1");
+        assertThat(decoded.total()).isEqualTo(42);
+    }
+
+    @ParameterizedTest
+    @MethodSource("sorts")
+    void matchesExactlyTheReviewsAfterEachOfThem(String field, Sort.Direction direction) {
+        List<Review> reviews = List.of(
+                review("a1", NOW, 3).setDifficulty(1).setExperience(1).setRating(1),
+                review("a2", NOW, 3).setDifficulty(1).setExperience(1).setRating(1),
+                review("a3", NOW.minusDays(1), 0).setDifficulty(5).setExperience(3).setRating(2),
+                review("a4", NOW.plusDays(1), 7).setDifficulty(3).setExperience(5).setRating(4),
+                review("a5", NOW.plusDays(1), 7).setDifficulty(3).setExperience(5).setRating(4),
+                review("a6", null, 1).setDifficulty(2).setExperience(0).setRating(3),
+                review("a7", null, 1).setDifficulty(2).setExperience(0).setRating(3));
+
+        assertPagesFollowSortOrder(reviews, field, direction);
+    }
+
+    @Test
+    void breaksTiesOnId() {
+        List<Review> reviews = List.of(review("b", NOW, 2), review("a", NOW, 2), review("c", NOW, 2));
+
+        assertThat(after(reviews, "c", "likes", Sort.Direction.ASC)).isEmpty();
+        assertThat(after(reviews, "a", "likes", Sort.Direction.ASC)).containsExactly("b", "c");
+        assertThat(after(reviews, "c", "likes", Sort.Direction.DESC)).containsExactly("b", "a");
+        assertThat(after(reviews, "a", "likes", Sort.Direction.DESC)).isEmpty();
+    }
+
+    @Test
+    void sortsMissingKeysFirstAscendingAndLastDescending() {
+        List<Review> reviews = List.of(review("a", NOW, 0), review("b", null, 0), review("c", null, 0), review("d", NOW.minusDays(1), 0));
+
+        assertThat(after(reviews, "b", "timestamp", Sort.Direction.ASC)).containsExactly("c", "d", "a");
+        assertThat(after(reviews, "c", "timestamp", Sort.Direction.ASC)).containsExactly("d", "a");
+        assertThat(after(reviews, "a", "timestamp", Sort.Direction.DESC)).containsExactly("d", "c", "b");
+        assertThat(after(reviews, "d", "timestamp", Sort.Direction.DESC)).containsExactly("c", "b");
+        assertThat(after(reviews, "c", "timestamp", Sort.Direction.DESC)).containsExactly("b");
+    }
+
+    @ParameterizedTest
+    @MethodSource("sorts")
+    void roundTripsMissingSortKey(String field, Sort.Direction direction) {
+        ReviewCursor cursor = new ReviewCursor(field, direction, null, "a1", 7);
+
+        assertThat(ReviewCursor.decode(cursor.encode(), field, direction)).isEqualTo(cursor);
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSort() {
+        String cursor = ReviewCursor.after(review("a1", NOW, 3), "likes", Sort.Direction.DESC, 10).encode();
+
+        assertInvalid(() -> ReviewCursor.decode(cursor, "timestamp", Sort.Direction.DESC));
+        assertInvalid(() -> ReviewCursor.decode(cursor, "likes", Sort.Direction.ASC));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "not a cursor!",
+            "{\"f\": \"likes\"",
+            "[1, 2]",
+            "{\"f\": \"likes\", \"d\": \"DESC\", \"v\": 3, \"i\": \"a1\"}",
+            "{\"f\": \"likes\", \"d\": \"DESC\", \"v\": 3, \"i\": \"a1\", \"n\": \"ten\"}",
+            "{\"f\": \"likes\", \"d\": \"DESC\", \"v\": 3, \"i\": 5, \"n\": 10}",
+            "{\"f\": \"timestamp\", \"d\": \"DESC\", \"v\": \"yesterday\", \"i\": \"a1\", \"n\": 10}",
+            "{\"f\": \"timestamp\", \"d\": \"DESC\", \"v\": 3, \"i\": \"a1\", \"n\": 10}"
+    })
+    void rejectsTamperedCursor(String json) {
+        String field = json.contains("timestamp") ? "timestamp" : "likes";
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+
+        assertInvalid(() -> ReviewCursor.decode(cursor, field, Sort.Direction.DESC));
+    }
+
+    @Test
+    void rejectsCursorThatIsNotBase64() {
+        assertInvalid(() -> ReviewCursor.decode("%%%", "likes", Sort.Direction.DESC));
+    }
+
+    private static void assertPagesFollowSortOrder(List<Review> reviews, String field, Sort.Direction direction) {
+        List<String> sorted = sorted(reviews, field, direction);
+        for (int i = 0; i < sorted.size(); i++) {
+            assertThat(after(reviews, sorted.get(i), field, direction))
+                    .as("reviews after %s sorted by %s %s", sorted.get(i), field, direction)
+                    .containsExactlyElementsOf(sorted.subList(i + 1, sorted.size()));
+        }
+    }
+
+    /**
+     * @return The ids of the reviews the cursor after the given review matches, in sort order.
+     */
+    private static List<String> after(List<Review> reviews, String id, String field, Sort.Direction direction) {
+        Review last = reviews.stream().filter(review -> review.get_id().equals(id)).findFirst().orElseThrow();
+        ReviewCursor cursor = ReviewCursor.decode(ReviewCursor.after(last, field, direction, reviews.size()).encode(), field, direction);
+        Document criteria = cursor.criteria().getCriteriaObject();
+
+        List<Review> matched = reviews.stream().filter(review -> matches(criteria, review)).toList();
+        return sorted(matched, field, direction);
+    }
+
+    private static List<String> sorted(List<Review> reviews, String field, Sort.Direction direction) {
+        Comparator<Review> order = Comparator.<Review, Object>comparing(review -> value(review, field), ReviewCursorTest::compare)
+                .thenComparing(Review::get_id);
+        return reviews.stream()
+                .sorted(direction.isDescending() ? order.reversed() : order)
+                .map(Review::get_id)
+                .toList();
+    }
+
+    /**
+     * Evaluates the subset of the query language the cursor criteria use.
+     */
+    private static boolean matches(Document criteria, Review review) {
+        for (Map.Entry<String, Object> clause : criteria.entrySet()) {
+            boolean matched = switch (clause.getKey()) {
+                case "$or" -> ((List<?>) clause.getValue()).stream().anyMatch(part -> matches((Document) part, review));
+                case "$and" -> ((List<?>) clause.getValue()).stream().allMatch(part -> matches((Document) part, review));
+                default -> matches(value(review, clause.getKey()), clause.getValue());
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(Object actual, Object condition) {
+        if (!(condition instanceof Document operators)) {
+            return Objects.equals(actual, condition);
+        }
+        for (Map.Entry<String, Object> operator : operators.entrySet()) {
+            Object operand = operator.getValue();
+            boolean matched = switch (operator.getKey()) {
+                case "$ne" -> !Objects.equals(actual, operand);
+                case "$lt" -> actual != null && compare(actual, operand) < 0;
+                case "$gt" -> actual != null && compare(actual, operand) > 0;
+                default -> throw new IllegalArgumentException("Unexpected operator " + operator.getKey());
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right) {
+        if (left == null || right == null) {
+            return left == null ? (right == null ? 0 : -1) : 1;
+        }
+        return ((Comparable) left).compareTo(right);
+    }
+
+    private static Object value(Review review, String field) {
+        Map<String, Function<Review, Object>> fields = Map.of(
+                "_id", Review::get_id,
+                "timestamp", Review::getTimestamp,
+                "likes", Review::getLikes,
+                "difficulty", Review::getDifficulty,
+                "experience", Review::getExperience,
+                "rating", Review::getRating);
+        return fields.get(field).apply(review);
+    }
+
+    private static Review review(String id, LocalDateTime timestamp, int likes) {
+        return new Review().set_id(id).setTimestamp(timestamp).setLikes(likes);
+    }
+
+    private static void assertInvalid(Runnable decode) {
+        assertThatThrownBy(decode::run)
+                .isInstanceOf(CustomExceptionFactory.CustomEntityException.class)
+                .hasMessageContaining("Invalid pagination cursor");
+    }
+}